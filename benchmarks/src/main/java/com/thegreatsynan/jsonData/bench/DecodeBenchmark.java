@@ -0,0 +1,82 @@
+package com.thegreatsynan.jsonData.bench;
+
+import com.thegreatsynan.jsonData.JSONAPIPage;
+import com.thegreatsynan.jsonData.JSONTape;
+import com.thegreatsynan.jsonData.bench.generated.Pokemon;
+import com.thegreatsynan.jsonData.bench.generated.PokemonView;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building objects from their encoded forms: API pages, and a generated page from already parsed JSON, a string, the tape and binary.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+    private JSONObject api;
+    private String apiString;
+    private JSONObject pokemon;
+    private ByteBuffer binary;
+    private PokemonView view;
+
+    @Setup
+    public void setup() {
+        Pokemon first = Samples.pokemon(0);
+        api = first.makeAPI().makeObject(Samples.BASE);
+        apiString = api.toString();
+        pokemon = Samples.pokemonJSON();
+        binary = ByteBuffer.wrap(Samples.POKEMON_BINARY);
+        view = new PokemonView();
+    }
+
+    @Benchmark
+    public JSONAPIPage apiFromJSON() {
+        return new JSONAPIPage(api, Samples.BASE);
+    }
+
+    @Benchmark
+    public JSONAPIPage apiFromString() {
+        return new JSONAPIPage(new JSONObject(apiString), Samples.BASE);
+    }
+
+    @Benchmark
+    public Pokemon pokemonFromJSON() {
+        return new Pokemon(pokemon, Samples.BASE);
+    }
+
+    @Benchmark
+    public Pokemon pokemonFromString() {
+        return new Pokemon(new JSONObject(Samples.POKEMON_JSON), Samples.BASE);
+    }
+
+    @Benchmark
+    public Pokemon pokemonFromTape() {
+        return new Pokemon(JSONTape.parseObject(Samples.POKEMON_BYTES), Samples.BASE);
+    }
+
+    @Benchmark
+    public Pokemon pokemonFromBinary() {
+        return new Pokemon(Samples.CODEC.decode(Samples.POKEMON_BINARY, "pokemon", Samples.BASE), Samples.BASE);
+    }
+
+    @Benchmark
+    public int pokemonViewField() {
+        return view.wrap(binary, 0).getWeight();
+    }
+}
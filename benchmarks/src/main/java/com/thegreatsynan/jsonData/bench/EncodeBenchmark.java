@@ -0,0 +1,56 @@
+package com.thegreatsynan.jsonData.bench;
+
+import com.thegreatsynan.jsonData.JSONAPIPage;
+import com.thegreatsynan.jsonData.bench.generated.Pokemon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing objects out with makeObject, to a string, and in the BinaryCodec form.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodeBenchmark {
+    private Pokemon pokemon;
+    private JSONAPIPage api;
+
+    @Setup
+    public void setup() {
+        pokemon = Samples.pokemon(0);
+        api = pokemon.makeAPI();
+    }
+
+    @Benchmark
+    public String apiToString() {
+        return api.makeObject(Samples.BASE).toString();
+    }
+
+    @Benchmark
+    public Object pokemonMakeObject() {
+        return pokemon.makeObject(Samples.BASE);
+    }
+
+    @Benchmark
+    public String pokemonToString() {
+        return pokemon.makeObject(Samples.BASE).toString();
+    }
+
+    @Benchmark
+    public byte[] pokemonToBinary() {
+        return Samples.CODEC.encode(pokemon, Samples.BASE);
+    }
+}
@@ -0,0 +1,61 @@
+package com.thegreatsynan.jsonData.bench;
+
+import com.thegreatsynan.jsonData.JSONTape;
+import com.thegreatsynan.jsonData.bench.generated.Pokemon;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a page with its arrays decoded straight away, against the classes made with lazyValues that decode them when read.
+ * The lazy classes are in the generated.lazy package.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LazyDecodeBenchmark {
+    private JSONObject pokemon;
+
+    @Setup
+    public void setup() {
+        pokemon = Samples.pokemonJSON();
+    }
+
+    @Benchmark
+    public Pokemon eagerFromJSON() {
+        return new Pokemon(pokemon, Samples.BASE);
+    }
+
+    @Benchmark
+    public com.thegreatsynan.jsonData.bench.generated.lazy.Pokemon lazyFromJSON() {
+        return new com.thegreatsynan.jsonData.bench.generated.lazy.Pokemon(pokemon, Samples.BASE);
+    }
+
+    @Benchmark
+    public Pokemon eagerFromTape() {
+        return new Pokemon(JSONTape.parseObject(Samples.POKEMON_BYTES), Samples.BASE);
+    }
+
+    @Benchmark
+    public com.thegreatsynan.jsonData.bench.generated.lazy.Pokemon lazyFromTape() {
+        return new com.thegreatsynan.jsonData.bench.generated.lazy.Pokemon(JSONTape.parseObject(Samples.POKEMON_BYTES), Samples.BASE);
+    }
+
+    @Benchmark
+    public Object lazyFromTapeReadingStats() {
+        return new com.thegreatsynan.jsonData.bench.generated.lazy.Pokemon(JSONTape.parseObject(Samples.POKEMON_BYTES), Samples.BASE).getStats();
+    }
+}
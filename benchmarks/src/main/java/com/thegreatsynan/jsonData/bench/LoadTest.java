@@ -0,0 +1,341 @@
+package com.thegreatsynan.jsonData.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.thegreatsynan.jsonData.BaseServer;
+import com.thegreatsynan.jsonData.GeneralURLEncoder;
+import com.thegreatsynan.jsonData.JSONPage;
+import com.thegreatsynan.jsonData.MetricsRecorder;
+import com.thegreatsynan.jsonData.URLEncoder;
+import com.thegreatsynan.jsonData.bench.generated.Pokemon;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An end to end load test: a local stand-in API serving made up Pokemon pages, and client threads loading them through JSONPage.get.
+ * Reports throughput, latency percentiles, heap and GC use, so transport and caching changes can be compared run to run.
+ * <p>
+ * Options, each as --name=value:
+ * threads (client threads, 8), seconds (measured time, 10), warmup (seconds before measuring, 3),
+ * ids (how many different pages are asked for, 100000; pages already loaded are registry hits),
+ * batch (ids per JSONPage.get call, 1; more than 1 uses the batch endpoint),
+ * latency and jitter (milliseconds the server waits before each response, 0 and 0),
+ * serverThreads (64), and lazy (parse with JSONTape, true).
+ */
+public class LoadTest {
+    private static final String CATEGORY = "pokemon";
+    /**
+     * Copied from Samples rather than used from it, since loading Samples fills the registry with the pages being asked for.
+     */
+    private static final String[] STATS = {"hp", "attack", "defense", "special-attack", "special-defense", "speed"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String i : args) {
+            int split = i.indexOf('=');
+            if (!i.startsWith("--") || split < 0)
+                throw new IllegalArgumentException("Options are --name=value, not " + i);
+            options.put(i.substring(2, split), i.substring(split + 1));
+        }
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        int ids = Integer.parseInt(options.getOrDefault("ids", "100000"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "1"));
+        int latency = Integer.parseInt(options.getOrDefault("latency", "0"));
+        int jitter = Integer.parseInt(options.getOrDefault("jitter", "0"));
+        int serverThreads = Integer.parseInt(options.getOrDefault("serverThreads", "64"));
+        boolean lazy = Boolean.parseBoolean(options.getOrDefault("lazy", "true"));
+
+        StandIn server = new StandIn(latency, jitter, serverThreads);
+        String urlBase = "http://localhost:" + server.start() + "/api/";
+        URLEncoder base = new GeneralURLEncoder(urlBase, "url", null, lazy, batch > 1);
+        // Load the class so its Creator is added before the first get.
+        Class.forName(Pokemon.class.getName());
+        System.out.printf("threads=%d seconds=%d warmup=%d ids=%d batch=%d latency=%dms jitter=%dms lazy=%b%n",
+                threads, seconds, warmup, ids, batch, latency, jitter, lazy);
+        try {
+            run(base, threads, warmup, ids, batch, null);
+            Result result = new Result();
+            long requests = server.requests.get();
+            MetricsRecorder metrics = new MetricsRecorder();
+            JSONPage.setMetrics(metrics);
+            run(base, threads, seconds, ids, batch, result);
+            JSONPage.setMetrics(null);
+            result.print(seconds, server.requests.get() - requests);
+            for (MetricsRecorder.Snapshot i : metrics.snapshot().values())
+                System.out.println("metrics    " + i);
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Run the client threads for a while.
+     *
+     * @param result Where to record each call, or null to only warm up.
+     */
+    private static void run(URLEncoder base, int threads, int seconds, int ids, int batch, Result result) throws InterruptedException {
+        long end = System.nanoTime() + seconds * 1000000000L;
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                Histogram histogram = new Histogram();
+                long misses = 0;
+                int[] batchIds = new int[batch];
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        if (batch <= 1) {
+                            int id = random.nextInt(ids);
+                            if (JSONPage.getLoaded(CATEGORY, id) == null)
+                                misses++;
+                            if (JSONPage.get(CATEGORY, id, base) == null)
+                                throw new IllegalStateException("Page " + id + " couldn't be loaded");
+                        } else {
+                            for (int i = 0; i < batch; i++) {
+                                batchIds[i] = random.nextInt(ids);
+                                if (JSONPage.getLoaded(CATEGORY, batchIds[i]) == null)
+                                    misses++;
+                            }
+                            JSONPage.get(CATEGORY, batchIds, base);
+                        }
+                        histogram.record(System.nanoTime() - start);
+                    }
+                    if (result != null)
+                        result.add(histogram, misses, batch);
+                } catch (RuntimeException e) {
+                    if (result != null)
+                        result.failure = e;
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        while (!done.await(100, java.util.concurrent.TimeUnit.MILLISECONDS)) {
+            if (result != null)
+                result.sampleHeap(memory.getHeapMemoryUsage().getUsed());
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Everything recorded in a measured run.
+     */
+    private static class Result {
+        private final Histogram histogram = new Histogram();
+        private final long gcCount = gcCount();
+        private final long gcTime = gcTime();
+        private long pages;
+        private long misses;
+        private long maxHeap;
+        private volatile RuntimeException failure;
+
+        private synchronized void add(Histogram thread, long threadMisses, int batch) {
+            histogram.add(thread);
+            pages += thread.count * Math.max(1, batch);
+            misses += threadMisses;
+        }
+
+        private void sampleHeap(long used) {
+            maxHeap = Math.max(maxHeap, used);
+        }
+
+        private static long gcCount() {
+            long out = 0;
+            for (GarbageCollectorMXBean i : ManagementFactory.getGarbageCollectorMXBeans())
+                out += Math.max(0, i.getCollectionCount());
+            return out;
+        }
+
+        private static long gcTime() {
+            long out = 0;
+            for (GarbageCollectorMXBean i : ManagementFactory.getGarbageCollectorMXBeans())
+                out += Math.max(0, i.getCollectionTime());
+            return out;
+        }
+
+        private void print(int seconds, long requests) {
+            if (failure != null)
+                System.out.println("A client thread failed: " + failure);
+            Runtime runtime = Runtime.getRuntime();
+            System.out.printf("calls      %d (%.0f/s)%n", histogram.count, histogram.count / (double) seconds);
+            System.out.printf("pages      %d (%.0f/s), %.1f%% registry misses%n", pages, pages / (double) seconds, pages == 0 ? 0 : misses * 100.0 / pages);
+            System.out.printf("requests   %d to the server (%.0f/s)%n", requests, requests / (double) seconds);
+            System.out.printf("latency    p50 %s  p90 %s  p99 %s  p99.9 %s  max %s%n", format(histogram.percentile(50)), format(histogram.percentile(90)),
+                    format(histogram.percentile(99)), format(histogram.percentile(99.9)), format(histogram.max));
+            System.out.printf("heap       %.1f MB peak used, %.1f MB committed, %d pages loaded%n", maxHeap / 1e6, runtime.totalMemory() / 1e6,
+                    JSONPage.getLoadedIDs(CATEGORY).length);
+            System.out.printf("gc         %d collections, %d ms%n", gcCount() - gcCount, gcTime() - gcTime);
+        }
+
+        private static String format(long nanos) {
+            if (nanos >= 1000000)
+                return String.format("%.2fms", nanos / 1e6);
+            return String.format("%.1fus", nanos / 1e3);
+        }
+    }
+
+    /**
+     * Counts latencies in buckets 1% wide, so percentiles are within 1% without keeping every sample.
+     */
+    private static class Histogram {
+        private static final double BASE = Math.log(1.01);
+        private final long[] buckets = new long[2600];
+        private long count;
+        private long max;
+
+        private void record(long nanos) {
+            int bucket = nanos <= 1 ? 0 : Math.min(buckets.length - 1, (int) (Math.log(nanos) / BASE));
+            buckets[bucket]++;
+            count++;
+            max = Math.max(max, nanos);
+        }
+
+        private void add(Histogram other) {
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] += other.buckets[i];
+            count += other.count;
+            max = Math.max(max, other.max);
+        }
+
+        private long percentile(double percent) {
+            long target = (long) Math.ceil(count * percent / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(1, target))
+                    return Math.min(max, (long) Math.exp((i + 1) * BASE));
+            }
+            return max;
+        }
+    }
+
+    /**
+     * A stand-in for a real API, making up a Pokemon page for any id, with optional delay before each response.
+     * Serves urlBase/pokemon/id and the BaseServer batch path.
+     */
+    private static class StandIn {
+        private final int latency;
+        private final int jitter;
+        private final int threads;
+        private final AtomicLong requests = new AtomicLong();
+        private HttpServer server;
+        private ExecutorService executor;
+        private String urlBase;
+
+        private StandIn(int latency, int jitter, int threads) {
+            this.latency = latency;
+            this.jitter = jitter;
+            this.threads = threads;
+        }
+
+        private int start() throws IOException {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+            urlBase = "http://localhost:" + server.getAddress().getPort() + "/api/";
+            executor = Executors.newFixedThreadPool(threads);
+            server.createContext("/api/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+            return server.getAddress().getPort();
+        }
+
+        private void stop() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try {
+                requests.incrementAndGet();
+                int delay = latency + (jitter > 0 ? ThreadLocalRandom.current().nextInt(jitter + 1) : 0);
+                if (delay > 0)
+                    Thread.sleep(delay);
+                String path = exchange.getRequestURI().getRawPath().substring("/api/".length());
+                StringBuilder body = new StringBuilder(4096);
+                if (path.equals(BaseServer.BATCH_PATH)) {
+                    String ids = exchange.getRequestURI().getRawQuery().replaceAll(".*ids=", "");
+                    body.append('[');
+                    String[] list = ids.split("%2C|,");
+                    for (int i = 0; i < list.length; i++) {
+                        if (i > 0)
+                            body.append(',');
+                        page(body, Integer.parseInt(list[i]));
+                    }
+                    body.append(']');
+                } else if (path.startsWith(CATEGORY + "/"))
+                    page(body, Integer.parseInt(path.substring(CATEGORY.length() + 1)));
+                else {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                exchange.sendResponseHeaders(400, -1);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        /**
+         * Write a made up page. The same id always gets the same page.
+         */
+        private void page(StringBuilder out, int id) {
+            Random random = new Random(id);
+            out.append("{\"name\":\"pokemon-").append(id).append("\",\"id\":").append(id)
+                    .append(",\"height\":").append(3 + random.nextInt(200))
+                    .append(",\"weight\":").append(10 + random.nextInt(9000))
+                    .append(",\"baseExperience\":").append(40 + random.nextInt(300))
+                    .append(",\"isDefault\":").append(random.nextInt(10) != 0)
+                    .append(",\"species\":\"species-").append(id / 3).append('"')
+                    .append(",\"abilities\":[\"ability-").append(random.nextInt(300)).append("\",\"ability-").append(random.nextInt(300)).append("\"]")
+                    .append(",\"stats\":[");
+            for (int i = 0; i < STATS.length; i++) {
+                if (i > 0)
+                    out.append(',');
+                out.append("{\"stat\":\"").append(STATS[i]).append("\",\"baseStat\":").append(20 + random.nextInt(130))
+                        .append(",\"effort\":").append(random.nextInt(4)).append('}');
+            }
+            out.append("],\"types\":[");
+            link(out, "type", random.nextInt(Samples.TYPES), "type");
+            out.append("],\"moves\":[");
+            int moves = 40 + random.nextInt(60);
+            for (int i = 0; i < moves; i++) {
+                if (i > 0)
+                    out.append(',');
+                link(out, "move", random.nextInt(Samples.MOVES), "move");
+            }
+            out.append("]}");
+        }
+
+        private void link(StringBuilder out, String category, int id, String name) {
+            out.append("{\"name\":\"").append(name).append('-').append(id).append("\",\"url\":\"")
+                    .append(urlBase).append(category).append('/').append(id).append("\"}");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.thegreatsynan.jsonData.bench;
+
+import com.thegreatsynan.jsonData.JSONPage;
+import com.thegreatsynan.jsonData.bench.generated.Pokemon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering and summing a category with PageQuery, against the same loop written by hand.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+    @Setup
+    public void setup() {
+        Samples.pokemon(0);
+    }
+
+    @Benchmark
+    public DoubleSummaryStatistics query() {
+        return Pokemon.query().where(Pokemon.HEIGHT, h -> h > 100).summarize(Pokemon.WEIGHT);
+    }
+
+    @Benchmark
+    public DoubleSummaryStatistics loop() {
+        DoubleSummaryStatistics out = new DoubleSummaryStatistics();
+        for (int id : JSONPage.getLoadedIDs("pokemon")) {
+            Pokemon pokemon = (Pokemon) JSONPage.getLoaded("pokemon", id);
+            if (pokemon != null && pokemon.height != null && pokemon.height > 100 && pokemon.weight != null)
+                out.accept(pokemon.weight);
+        }
+        return out;
+    }
+}
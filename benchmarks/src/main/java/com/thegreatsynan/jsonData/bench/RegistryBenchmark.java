@@ -0,0 +1,54 @@
+package com.thegreatsynan.jsonData.bench;
+
+import com.thegreatsynan.jsonData.JSONPage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSONPage.get hitting the registry from many threads at once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RegistryBenchmark {
+    private int[] batch;
+
+    @Setup
+    public void setup() {
+        Samples.pokemon(0);
+        batch = new int[64];
+        for (int i = 0; i < batch.length; i++)
+            batch[i] = i * 7 % Samples.POKEMON;
+    }
+
+    @Benchmark
+    public JSONPage getHit() {
+        return JSONPage.get("pokemon", ThreadLocalRandom.current().nextInt(Samples.POKEMON), Samples.BASE);
+    }
+
+    @Benchmark
+    public JSONPage getLoaded() {
+        return JSONPage.getLoaded("move", ThreadLocalRandom.current().nextInt(Samples.MOVES));
+    }
+
+    @Benchmark
+    public JSONPage[] getBatch() {
+        return JSONPage.get("pokemon", batch, Samples.BASE);
+    }
+}
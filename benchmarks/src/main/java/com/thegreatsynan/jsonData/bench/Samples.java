@@ -0,0 +1,101 @@
+package com.thegreatsynan.jsonData.bench;
+
+import com.thegreatsynan.jsonData.BinaryCodec;
+import com.thegreatsynan.jsonData.GeneralURLEncoder;
+import com.thegreatsynan.jsonData.JSONAPIPage;
+import com.thegreatsynan.jsonData.JSONPage;
+import com.thegreatsynan.jsonData.URLEncoder;
+import com.thegreatsynan.jsonData.bench.generated.Move;
+import com.thegreatsynan.jsonData.bench.generated.Pokemon;
+import com.thegreatsynan.jsonData.bench.generated.Type;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * The sample data every benchmark shares: a registry of generated Pokemon, Move and Type pages, and their encoded forms.
+ * Built once per JVM, so every fork starts from the same registry.
+ */
+public class Samples {
+    public static final int TYPES = 18;
+    public static final int MOVES = 800;
+    public static final int POKEMON = 1000;
+    public static final String[] STATS = {"hp", "attack", "defense", "special-attack", "special-defense", "speed"};
+    public static final String[] CLASSES = {"physical", "special", "status"};
+
+    /**
+     * The URL writer for every sample, with links stored as objects like most real APIs.
+     */
+    public static final URLEncoder BASE = new GeneralURLEncoder("https://pokeapi.local/api/v2/", true);
+    public static final BinaryCodec CODEC;
+    /**
+     * The first Pokemon, as a JSON string.
+     */
+    public static final String POKEMON_JSON;
+    /**
+     * The first Pokemon, as UTF-8 JSON.
+     */
+    public static final byte[] POKEMON_BYTES;
+    /**
+     * The first Pokemon, in the BinaryCodec form.
+     */
+    public static final byte[] POKEMON_BINARY;
+
+    static {
+        Random random = new Random(42);
+        for (int i = 0; i < TYPES; i++)
+            JSONPage.register(new Type("type-" + i, i, "generation-" + (1 + i % 8)));
+        for (int i = 0; i < MOVES; i++)
+            JSONPage.register(new Move("move-" + i, i, 20 + random.nextInt(130), 50 + random.nextInt(51), 5 + 5 * random.nextInt(7),
+                    random.nextInt(3) - 1, CLASSES[random.nextInt(CLASSES.length)], random.nextInt(TYPES)));
+        for (int i = 0; i < POKEMON; i++)
+            makePokemon(i, random);
+        Pokemon first = (Pokemon) JSONPage.getLoaded("pokemon", 0);
+        CODEC = new BinaryCodec(new JSONAPIPage[]{first.makeAPI(), first.stats[0].makeAPI(),
+                JSONPage.getLoaded("move", 0).makeAPI(), JSONPage.getLoaded("type", 0).makeAPI()});
+        POKEMON_JSON = first.makeObject(BASE).toString();
+        POKEMON_BYTES = POKEMON_JSON.getBytes(StandardCharsets.UTF_8);
+        POKEMON_BINARY = CODEC.encode(first, BASE);
+    }
+
+    private Samples() {
+    }
+
+    /**
+     * Make and register a Pokemon with a realistic spread of values.
+     */
+    public static Pokemon makePokemon(int id, Random random) {
+        Pokemon.Stat[] stats = new Pokemon.Stat[STATS.length];
+        for (int i = 0; i < stats.length; i++)
+            stats[i] = new Pokemon.Stat(STATS[i], 20 + random.nextInt(130), random.nextInt(4));
+        int[] types = new int[1 + random.nextInt(2)];
+        for (int i = 0; i < types.length; i++)
+            types[i] = random.nextInt(TYPES);
+        int[] moves = new int[40 + random.nextInt(60)];
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = random.nextInt(MOVES);
+        Pokemon out = new Pokemon("pokemon-" + id, id, 3 + random.nextInt(200), 10 + random.nextInt(9000), 40 + random.nextInt(300),
+                random.nextInt(10) != 0, "species-" + id / 3, new String[]{"ability-" + random.nextInt(300), "ability-" + random.nextInt(300)},
+                stats, types, moves);
+        JSONPage.register(out);
+        return out;
+    }
+
+    /**
+     * Get a sample Pokemon. Call this from every setup, so the samples are registered before anything else reads the registry.
+     *
+     * @param id The id of the Pokemon, up to POKEMON.
+     * @return The registered Pokemon.
+     */
+    public static Pokemon pokemon(int id) {
+        return (Pokemon) JSONPage.getLoaded("pokemon", id);
+    }
+
+    /**
+     * @return A fresh parse of the first Pokemon's JSON.
+     */
+    public static JSONObject pokemonJSON() {
+        return new JSONObject(POKEMON_JSON);
+    }
+}
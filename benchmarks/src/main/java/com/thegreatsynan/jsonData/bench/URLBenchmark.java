@@ -0,0 +1,69 @@
+package com.thegreatsynan.jsonData.bench;
+
+import com.thegreatsynan.jsonData.URLEncoder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and writing links with GeneralURLEncoder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class URLBenchmark {
+    private URLEncoder base;
+    private String url;
+    private JSONObject holder;
+    private JSONArray moves;
+    private int id;
+
+    @Setup
+    public void setup() {
+        Samples.pokemon(0);
+        base = Samples.BASE;
+        url = base.makeURL("move", 421);
+        holder = new JSONObject().put("link", base.makeLink("move", 421));
+        moves = Samples.pokemonJSON().getJSONArray("moves");
+    }
+
+    @Benchmark
+    public int getID() {
+        return base.getID(url);
+    }
+
+    @Benchmark
+    public String getCategory() {
+        return base.getCategory(url);
+    }
+
+    @Benchmark
+    public String makeURL() {
+        id = (id + 1) & 1023;
+        return base.makeURL("move", id);
+    }
+
+    @Benchmark
+    public int loadLink() {
+        return base.getID(holder, "link");
+    }
+
+    @Benchmark
+    public int[] getIDs() {
+        return base.getIDs(moves);
+    }
+}
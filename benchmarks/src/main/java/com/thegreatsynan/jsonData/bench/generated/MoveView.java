@@ -0,0 +1,72 @@
+package com.thegreatsynan.jsonData.bench.generated;
+
+import java.nio.ByteBuffer;
+import com.thegreatsynan.jsonData.*;
+/**
+ * A view of Move read straight from its BinaryCodec form. A move pokemon can use in battle.
+ */
+public class MoveView extends BinaryView {
+    public static final Layout LAYOUT = new Layout(true,
+            new byte[]{BinaryView.STRING, BinaryView.INTEGER, BinaryView.INTEGER, BinaryView.INTEGER, BinaryView.INTEGER, BinaryView.INTEGER, BinaryView.STRING, BinaryView.LINK},
+            new boolean[]{false, false, false, false, false, false, false, false},
+            new Layout[]{null, null, null, null, null, null, null, null});
+    public MoveView() {
+        super(LAYOUT);
+    }
+    @Override
+    public MoveView wrap(ByteBuffer buffer, int position) {
+        super.wrap(buffer, position);
+        return this;
+    }
+    @Override
+    public MoveView wrap(byte[] data) {
+        super.wrap(data);
+        return this;
+    }
+    /**
+     * @return The base power of the move.
+     */
+    public Integer getPower() {
+        return getInteger(2);
+    }
+    /**
+     * @return The percent chance the move hits.
+     */
+    public Integer getAccuracy() {
+        return getInteger(3);
+    }
+    /**
+     * @return How many times the move can be used.
+     */
+    public Integer getPp() {
+        return getInteger(4);
+    }
+    /**
+     * @return The move's place in the turn order.
+     */
+    public Integer getPriority() {
+        return getInteger(5);
+    }
+    /**
+     * @return If the move is physical, special or status.
+     */
+    public String getDamageClass() {
+        return getString(6);
+    }
+    /**
+     * @return The id value for The type of the move.
+     */
+    public int getTypeID() {
+        return getLinkID(7);
+    }
+    /**
+     * Get The type of the move.
+     * @param base The URL reader.
+     * @return The type of the move.
+     */
+    public Type getType(URLEncoder base) {
+        if (getTypeID() < 0)
+            return null;
+        return (Type) JSONPage.get("type", getTypeID(), base);
+    }
+}
@@ -0,0 +1,149 @@
+package com.thegreatsynan.jsonData.bench.generated;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import com.thegreatsynan.jsonData.*;
+/**
+ * A view of Pokemon read straight from its BinaryCodec form. A pokemon species form with its stats, types and moves.
+ */
+public class PokemonView extends BinaryView {
+    public static final Layout LAYOUT = new Layout(true,
+            new byte[]{BinaryView.STRING, BinaryView.INTEGER, BinaryView.INTEGER, BinaryView.INTEGER, BinaryView.INTEGER, BinaryView.BOOLEAN, BinaryView.STRING, BinaryView.STRING, BinaryView.OBJECT, BinaryView.LINK, BinaryView.LINK},
+            new boolean[]{false, false, false, false, false, false, false, true, true, true, true},
+            new Layout[]{null, null, null, null, null, null, null, null, StatView.LAYOUT, null, null});
+    public PokemonView() {
+        super(LAYOUT);
+    }
+    @Override
+    public PokemonView wrap(ByteBuffer buffer, int position) {
+        super.wrap(buffer, position);
+        return this;
+    }
+    @Override
+    public PokemonView wrap(byte[] data) {
+        super.wrap(data);
+        return this;
+    }
+    /**
+     * @return The height in decimetres.
+     */
+    public Integer getHeight() {
+        return getInteger(2);
+    }
+    /**
+     * @return The weight in hectograms.
+     */
+    public Integer getWeight() {
+        return getInteger(3);
+    }
+    /**
+     * @return The experience gained for defeating it.
+     */
+    public Integer getBaseExperience() {
+        return getInteger(4);
+    }
+    /**
+     * @return If this is the default form of the species.
+     */
+    public Boolean getIsDefault() {
+        return getBoolean(5);
+    }
+    /**
+     * @return The species the pokemon belongs to.
+     */
+    public String getSpecies() {
+        return getString(6);
+    }
+    /**
+     * @return The abilities the pokemon can have.
+     */
+    public String[] getAbilities() {
+        return getStringArray(7);
+    }
+    /**
+     * @return The base stats of the pokemon.
+     */
+    public StatView[] getStats() {
+        int length = arrayLength(8);
+        if (length < 0)
+            return null;
+        StatView[] out = new StatView[length];
+        for (int i = 0; i < length; i++)
+            out[i] = new StatView();
+        return getViewArray(8, out);
+    }
+    /**
+     * @return The id value for The types of the pokemon.
+     */
+    public int[] getTypesIDs() {
+        return getLinkIDs(9);
+    }
+    /**
+     * Get The types of the pokemon.
+     * @param base The URL reader.
+     * @return The types of the pokemon.
+     */
+    public Type[] getTypes(URLEncoder base) {
+        if (getTypesIDs() == null)
+            return null;
+        JSONPage[] pages = JSONPage.get("type", getTypesIDs(), base);
+        return Arrays.copyOf(pages, pages.length, Type[].class);
+    }
+    /**
+     * @return The id value for The moves the pokemon can learn.
+     */
+    public int[] getMovesIDs() {
+        return getLinkIDs(10);
+    }
+    /**
+     * Get The moves the pokemon can learn.
+     * @param base The URL reader.
+     * @return The moves the pokemon can learn.
+     */
+    public Move[] getMoves(URLEncoder base) {
+        if (getMovesIDs() == null)
+            return null;
+        JSONPage[] pages = JSONPage.get("move", getMovesIDs(), base);
+        return Arrays.copyOf(pages, pages.length, Move[].class);
+    }
+    /**
+     * A view of Stat read straight from its BinaryCodec form. One base stat of a pokemon.
+     */
+    public static class StatView extends BinaryView {
+        public static final Layout LAYOUT = new Layout(false,
+                new byte[]{BinaryView.STRING, BinaryView.INTEGER, BinaryView.INTEGER},
+                new boolean[]{false, false, false},
+                new Layout[]{null, null, null});
+        public StatView() {
+            super(LAYOUT);
+        }
+        @Override
+        public StatView wrap(ByteBuffer buffer, int position) {
+            super.wrap(buffer, position);
+            return this;
+        }
+        @Override
+        public StatView wrap(byte[] data) {
+            super.wrap(data);
+            return this;
+        }
+        /**
+         * @return The name of the stat.
+         */
+        public String getStat() {
+            return getString(0);
+        }
+        /**
+         * @return The base value of the stat.
+         */
+        public Integer getBaseStat() {
+            return getInteger(1);
+        }
+        /**
+         * @return The effort points gained for defeating it.
+         */
+        public Integer getEffort() {
+            return getInteger(2);
+        }
+    }
+}
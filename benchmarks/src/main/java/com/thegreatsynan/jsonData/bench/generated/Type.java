@@ -0,0 +1,94 @@
+package com.thegreatsynan.jsonData.bench.generated;
+
+import java.util.List;
+import java.util.ArrayList;
+import org.json.JSONObject;
+import com.thegreatsynan.jsonData.*;
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+/**
+ * An elemental type of pokemon and moves.
+ */
+public class Type extends JSONPage {
+    /**
+     * The generation the type was added in.
+     */
+    public final String generation;
+    /**
+     * Reads The code name of the type.
+     */
+    public static final PageField<Type, String> NAME = new PageField<>("name", String.class, object -> object.name);
+    /**
+     * Reads The id of the type.
+     */
+    public static final PageField<Type, Integer> ID = new PageField<>("id", Integer.class, object -> object.id);
+    /**
+     * Reads The generation the type was added in.
+     */
+    public static final PageField<Type, String> GENERATION = new PageField<>("generation", String.class, object -> object.generation);
+    /**
+     * Every value of the class, in the order of its API.
+     */
+    public static final List<PageField<Type, ?>> FIELDS = PageField.list(NAME, ID, GENERATION);
+    /**
+     * Start a query over every loaded Type.
+     *
+     * @return A query including every loaded Type.
+     */
+    public static PageQuery<Type> query() {
+        return new PageQuery<>("type", Type.class, FIELDS);
+    }
+    /**
+    * @param name The code name of the type.
+    * @param id The id of the type.
+    * @param generation The generation the type was added in.
+    */
+    public Type(String name, Integer id, String generation) {
+        super(name, id);
+        this.generation = generation;
+    }
+    /**
+     * Create from a JSONObject.
+     * @param json The JSONObject with all the data.
+     * @param base The URL Decoder.
+    */
+    public Type(JSONObject json, URLEncoder base){
+        super(json, base);
+        this.generation = JSONMake.getString(json, "generation", StringPool.DEFAULT);
+    }
+    
+    static {
+        JSONPage.addCreator("type", Type::new);
+    }
+    @Override
+    public String getCategory() {
+        return "type";
+    }
+    @Override
+    public JSONAPIPage makeAPI() {
+        return api(this.getClass().getSimpleName());
+    }
+    /**
+     * Choose values to load on their own, for JSONPage.get.
+     *
+     * @param keys The keys of the values.
+     * @return The values, with name and id.
+     */
+    public static FieldSet select(String... keys) {
+        return new FieldSet(api("Type"), keys);
+    }
+    private static JSONAPIPage api(String object) {
+        ArrayList<JSONAPIValue> vars = new ArrayList<>();
+        vars.add(new JSONAPIValue("name", "string", false, "The code name of the type."));
+        vars.add(new JSONAPIValue("id", "integer", false, "The id of the type."));
+        vars.add(new JSONAPIValue("generation", "string", false, "The generation the type was added in.", true));
+        return new JSONAPIPage(object, vars.toArray(new JSONAPIValue[vars.size()]), "An elemental type of pokemon and moves.", "type", null);
+    }
+    @Override
+    public JSONObject makeObject(URLEncoder base) {
+        JSONObject out = super.makeObject(base);
+        out.put("generation", generation);
+    return out;
+    }
+    
+    
+}
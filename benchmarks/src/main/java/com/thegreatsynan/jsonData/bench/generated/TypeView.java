@@ -0,0 +1,32 @@
+package com.thegreatsynan.jsonData.bench.generated;
+
+import java.nio.ByteBuffer;
+import com.thegreatsynan.jsonData.*;
+/**
+ * A view of Type read straight from its BinaryCodec form. An elemental type of pokemon and moves.
+ */
+public class TypeView extends BinaryView {
+    public static final Layout LAYOUT = new Layout(true,
+            new byte[]{BinaryView.STRING, BinaryView.INTEGER, BinaryView.STRING},
+            new boolean[]{false, false, false},
+            new Layout[]{null, null, null});
+    public TypeView() {
+        super(LAYOUT);
+    }
+    @Override
+    public TypeView wrap(ByteBuffer buffer, int position) {
+        super.wrap(buffer, position);
+        return this;
+    }
+    @Override
+    public TypeView wrap(byte[] data) {
+        super.wrap(data);
+        return this;
+    }
+    /**
+     * @return The generation the type was added in.
+     */
+    public String getGeneration() {
+        return getString(2);
+    }
+}
@@ -0,0 +1,169 @@
+package com.thegreatsynan.jsonData.bench.generated.lazy;
+
+import java.util.List;
+import java.util.ArrayList;
+import org.json.JSONObject;
+import com.thegreatsynan.jsonData.*;
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+/**
+ * A move pokemon can use in battle.
+ */
+public class Move extends JSONPage {
+    /**
+     * The base power of the move.
+     */
+    public final Integer power;
+    /**
+     * The percent chance the move hits.
+     */
+    public final Integer accuracy;
+    /**
+     * How many times the move can be used.
+     */
+    public final Integer pp;
+    /**
+     * The move's place in the turn order.
+     */
+    public final Integer priority;
+    /**
+     * If the move is physical, special or status.
+     */
+    public final String damageClass;
+    /**
+     * The id value for The type of the move.
+     */
+    private final int type;
+    /**
+     * Reads The code name of the move.
+     */
+    public static final PageField<Move, String> NAME = new PageField<>("name", String.class, object -> object.name);
+    /**
+     * Reads The id of the move.
+     */
+    public static final PageField<Move, Integer> ID = new PageField<>("id", Integer.class, object -> object.id);
+    /**
+     * Reads The base power of the move.
+     */
+    public static final PageField<Move, Integer> POWER = new PageField<>("power", Integer.class, object -> object.power);
+    /**
+     * Reads The percent chance the move hits.
+     */
+    public static final PageField<Move, Integer> ACCURACY = new PageField<>("accuracy", Integer.class, object -> object.accuracy);
+    /**
+     * Reads How many times the move can be used.
+     */
+    public static final PageField<Move, Integer> PP = new PageField<>("pp", Integer.class, object -> object.pp);
+    /**
+     * Reads The move's place in the turn order.
+     */
+    public static final PageField<Move, Integer> PRIORITY = new PageField<>("priority", Integer.class, object -> object.priority);
+    /**
+     * Reads If the move is physical, special or status.
+     */
+    public static final PageField<Move, String> DAMAGE_CLASS = new PageField<>("damageClass", String.class, object -> object.damageClass);
+    /**
+     * Reads the id of The type of the move.
+     */
+    public static final PageField<Move, Integer> TYPE = new PageField<>("type", Integer.class, object -> object.type);
+    /**
+     * Every value of the class, in the order of its API.
+     */
+    public static final List<PageField<Move, ?>> FIELDS = PageField.list(NAME, ID, POWER, ACCURACY, PP, PRIORITY, DAMAGE_CLASS, TYPE);
+    /**
+     * Start a query over every loaded Move.
+     *
+     * @return A query including every loaded Move.
+     */
+    public static PageQuery<Move> query() {
+        return new PageQuery<>("move", Move.class, FIELDS);
+    }
+    /**
+    * @param name The code name of the move.
+    * @param id The id of the move.
+    * @param power The base power of the move.
+    * @param accuracy The percent chance the move hits.
+    * @param pp How many times the move can be used.
+    * @param priority The move's place in the turn order.
+    * @param damageClass If the move is physical, special or status.
+    * @param type The type of the move.
+    */
+    public Move(String name, Integer id, Integer power, Integer accuracy, Integer pp, Integer priority, String damageClass, int type) {
+        super(name, id);
+        this.power = power;
+        this.accuracy = accuracy;
+        this.pp = pp;
+        this.priority = priority;
+        this.damageClass = damageClass;
+        this.type = type;
+    }
+    /**
+     * Create from a JSONObject.
+     * @param json The JSONObject with all the data.
+     * @param base The URL Decoder.
+    */
+    public Move(JSONObject json, URLEncoder base){
+        super(json, base);
+        this.power = JSONMake.getInt(json, "power");
+        this.accuracy = JSONMake.getInt(json, "accuracy");
+        this.pp = JSONMake.getInt(json, "pp");
+        this.priority = JSONMake.getInt(json, "priority");
+        this.damageClass = JSONMake.getString(json, "damageClass", StringPool.DEFAULT);
+        this.type = json.isNull("type") ? -1 : base.getID(json, "type");
+    }
+    /**
+     * Get The type of the move.
+     * @param base The URL reader.
+     * @return The type of the move.
+     */
+     public Type getType(URLEncoder base) {
+        if (type < 0)
+            return null;
+        return (Type) JSONPage.get("type", type, base);
+    }
+    static {
+        JSONPage.addCreator("move", Move::new);
+    }
+    @Override
+    public String getCategory() {
+        return "move";
+    }
+    @Override
+    public JSONAPIPage makeAPI() {
+        return api(this.getClass().getSimpleName());
+    }
+    /**
+     * Choose values to load on their own, for JSONPage.get.
+     *
+     * @param keys The keys of the values.
+     * @return The values, with name and id.
+     */
+    public static FieldSet select(String... keys) {
+        return new FieldSet(api("Move"), keys);
+    }
+    private static JSONAPIPage api(String object) {
+        ArrayList<JSONAPIValue> vars = new ArrayList<>();
+        vars.add(new JSONAPIValue("name", "string", false, "The code name of the move."));
+        vars.add(new JSONAPIValue("id", "integer", false, "The id of the move."));
+        vars.add(new JSONAPIValue("power", "integer", false, "The base power of the move."));
+        vars.add(new JSONAPIValue("accuracy", "integer", false, "The percent chance the move hits."));
+        vars.add(new JSONAPIValue("pp", "integer", false, "How many times the move can be used."));
+        vars.add(new JSONAPIValue("priority", "integer", false, "The move's place in the turn order."));
+        vars.add(new JSONAPIValue("damageClass", "string", false, "If the move is physical, special or status.", true));
+        vars.add(new JSONAPIValue("type", "Type", false, "The type of the move."));
+        return new JSONAPIPage(object, vars.toArray(new JSONAPIValue[vars.size()]), "A move pokemon can use in battle.", "move", null);
+    }
+    @Override
+    public JSONObject makeObject(URLEncoder base) {
+        JSONObject out = super.makeObject(base);
+        out.put("power", power);
+        out.put("accuracy", accuracy);
+        out.put("pp", pp);
+        out.put("priority", priority);
+        out.put("damageClass", damageClass);
+        if (type >= 0)
+            out.put("type", base.makeLink("type", type));
+    return out;
+    }
+    
+    
+}
@@ -0,0 +1,379 @@
+package com.thegreatsynan.jsonData.bench.generated.lazy;
+
+import java.util.List;
+import java.util.Arrays;
+import org.json.JSONArray;
+import java.util.ArrayList;
+import org.json.JSONObject;
+import com.thegreatsynan.jsonData.*;
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+/**
+ * A pokemon species form with its stats, types and moves.
+ */
+public class Pokemon extends JSONPage {
+    /**
+     * The height in decimetres.
+     */
+    public final Integer height;
+    /**
+     * The weight in hectograms.
+     */
+    public final Integer weight;
+    /**
+     * The experience gained for defeating it.
+     */
+    public final Integer baseExperience;
+    /**
+     * If this is the default form of the species.
+     */
+    public final Boolean isDefault;
+    /**
+     * The species the pokemon belongs to.
+     */
+    public final String species;
+    /**
+     * The abilities the pokemon can have. Held as JSON until first read.
+     */
+    private volatile Object abilities;
+    /**
+     * The base stats of the pokemon. Held as JSON until first read.
+     */
+    private volatile Object stats;
+    /**
+     * The id values for The types of the pokemon. Held as JSON until first read.
+     */
+    private volatile Object types;
+    /**
+     * The id values for The moves the pokemon can learn. Held as JSON until first read.
+     */
+    private volatile Object moves;
+    /**
+     * The URL reader the values held as JSON are decoded with.
+     */
+    private final URLEncoder jsonBase;
+    /**
+     * Reads The code name of the pokemon.
+     */
+    public static final PageField<Pokemon, String> NAME = new PageField<>("name", String.class, object -> object.name);
+    /**
+     * Reads The id of the pokemon.
+     */
+    public static final PageField<Pokemon, Integer> ID = new PageField<>("id", Integer.class, object -> object.id);
+    /**
+     * Reads The height in decimetres.
+     */
+    public static final PageField<Pokemon, Integer> HEIGHT = new PageField<>("height", Integer.class, object -> object.height);
+    /**
+     * Reads The weight in hectograms.
+     */
+    public static final PageField<Pokemon, Integer> WEIGHT = new PageField<>("weight", Integer.class, object -> object.weight);
+    /**
+     * Reads The experience gained for defeating it.
+     */
+    public static final PageField<Pokemon, Integer> BASE_EXPERIENCE = new PageField<>("baseExperience", Integer.class, object -> object.baseExperience);
+    /**
+     * Reads If this is the default form of the species.
+     */
+    public static final PageField<Pokemon, Boolean> IS_DEFAULT = new PageField<>("isDefault", Boolean.class, object -> object.isDefault);
+    /**
+     * Reads The species the pokemon belongs to.
+     */
+    public static final PageField<Pokemon, String> SPECIES = new PageField<>("species", String.class, object -> object.species);
+    /**
+     * Reads The abilities the pokemon can have.
+     */
+    public static final PageField<Pokemon, String[]> ABILITIES = new PageField<>("abilities", String[].class, object -> object.getAbilities());
+    /**
+     * Reads The base stats of the pokemon.
+     */
+    public static final PageField<Pokemon, Stat[]> STATS = new PageField<>("stats", Stat[].class, object -> object.getStats());
+    /**
+     * Reads the ids of The types of the pokemon.
+     */
+    public static final PageField<Pokemon, int[]> TYPES = new PageField<>("types", int[].class, object -> object.getTypesIDs());
+    /**
+     * Reads the ids of The moves the pokemon can learn.
+     */
+    public static final PageField<Pokemon, int[]> MOVES = new PageField<>("moves", int[].class, object -> object.getMovesIDs());
+    /**
+     * Every value of the class, in the order of its API.
+     */
+    public static final List<PageField<Pokemon, ?>> FIELDS = PageField.list(NAME, ID, HEIGHT, WEIGHT, BASE_EXPERIENCE, IS_DEFAULT, SPECIES, ABILITIES, STATS, TYPES, MOVES);
+    /**
+     * Start a query over every loaded Pokemon.
+     *
+     * @return A query including every loaded Pokemon.
+     */
+    public static PageQuery<Pokemon> query() {
+        return new PageQuery<>("pokemon", Pokemon.class, FIELDS);
+    }
+    /**
+    * @param name The code name of the pokemon.
+    * @param id The id of the pokemon.
+    * @param height The height in decimetres.
+    * @param weight The weight in hectograms.
+    * @param baseExperience The experience gained for defeating it.
+    * @param isDefault If this is the default form of the species.
+    * @param species The species the pokemon belongs to.
+    * @param abilities The abilities the pokemon can have.
+    * @param stats The base stats of the pokemon.
+    * @param types The types of the pokemon.
+    * @param moves The moves the pokemon can learn.
+    */
+    public Pokemon(String name, Integer id, Integer height, Integer weight, Integer baseExperience, Boolean isDefault, String species, String[] abilities, Stat[] stats, int[] types, int[] moves) {
+        super(name, id);
+        this.height = height;
+        this.weight = weight;
+        this.baseExperience = baseExperience;
+        this.isDefault = isDefault;
+        this.species = species;
+        this.abilities = abilities;
+        this.stats = stats;
+        this.types = types;
+        this.moves = moves;
+        this.jsonBase = null;
+    }
+    /**
+     * Create from a JSONObject.
+     * @param json The JSONObject with all the data.
+     * @param base The URL Decoder.
+    */
+    public Pokemon(JSONObject json, URLEncoder base){
+        super(json, base);
+        this.height = JSONMake.getInt(json, "height");
+        this.weight = JSONMake.getInt(json, "weight");
+        this.baseExperience = JSONMake.getInt(json, "baseExperience");
+        this.isDefault = JSONMake.getBoolean(json, "isDefault");
+        this.species = JSONMake.getString(json, "species", StringPool.DEFAULT);
+        this.abilities = json.isNull("abilities") ? null : json.getJSONArray("abilities");
+        this.stats = json.isNull("stats") ? null : json.getJSONArray("stats");
+        this.types = json.isNull("types") ? null : json.getJSONArray("types");
+        this.moves = json.isNull("moves") ? null : json.getJSONArray("moves");
+        this.jsonBase = base;
+    }
+    /**
+     * Get The abilities the pokemon can have. Decoded the first time it is read.
+     * @return The abilities the pokemon can have.
+     */
+    public String[] getAbilities() {
+        Object value = this.abilities;
+        if (value instanceof JSONArray) {
+            synchronized (this) {
+                value = this.abilities;
+                if (value instanceof JSONArray) {
+                    value = JSONMake.loadStringArray((JSONArray) value, StringPool.DEFAULT);
+                    this.abilities = value;
+                }
+            }
+        }
+        return (String[]) value;
+    }
+    /**
+     * Get The base stats of the pokemon. Decoded the first time it is read.
+     * @return The base stats of the pokemon.
+     */
+    public Stat[] getStats() {
+        Object value = this.stats;
+        if (value instanceof JSONArray) {
+            synchronized (this) {
+                value = this.stats;
+                if (value instanceof JSONArray) {
+                    value = Stat.create((JSONArray) value, jsonBase);
+                    this.stats = value;
+                }
+            }
+        }
+        return (Stat[]) value;
+    }
+    /**
+     * Get the ids of The types of the pokemon. Decoded the first time it is read.
+     * @return The types of the pokemon.
+     */
+    public int[] getTypesIDs() {
+        Object value = this.types;
+        if (value instanceof JSONArray) {
+            synchronized (this) {
+                value = this.types;
+                if (value instanceof JSONArray) {
+                    value = jsonBase.getIDs((JSONArray) value);
+                    this.types = value;
+                }
+            }
+        }
+        return (int[]) value;
+    }
+    /**
+     * Get The types of the pokemon.
+     * @param base The URL reader.
+     * @return The types of the pokemon.
+     */
+     public Type[] getTypes(URLEncoder base) {
+        if (getTypesIDs() == null)
+            return null;
+        JSONPage[] pages = JSONPage.get("type", getTypesIDs(), base);
+        return Arrays.copyOf(pages, pages.length, Type[].class);
+    }/**
+     * Get the ids of The moves the pokemon can learn. Decoded the first time it is read.
+     * @return The moves the pokemon can learn.
+     */
+    public int[] getMovesIDs() {
+        Object value = this.moves;
+        if (value instanceof JSONArray) {
+            synchronized (this) {
+                value = this.moves;
+                if (value instanceof JSONArray) {
+                    value = jsonBase.getIDs((JSONArray) value);
+                    this.moves = value;
+                }
+            }
+        }
+        return (int[]) value;
+    }
+    /**
+     * Get The moves the pokemon can learn.
+     * @param base The URL reader.
+     * @return The moves the pokemon can learn.
+     */
+     public Move[] getMoves(URLEncoder base) {
+        if (getMovesIDs() == null)
+            return null;
+        JSONPage[] pages = JSONPage.get("move", getMovesIDs(), base);
+        return Arrays.copyOf(pages, pages.length, Move[].class);
+    }
+    static {
+        JSONPage.addCreator("pokemon", Pokemon::new);
+    }
+    @Override
+    public String getCategory() {
+        return "pokemon";
+    }
+    @Override
+    public JSONAPIPage makeAPI() {
+        return api(this.getClass().getSimpleName());
+    }
+    /**
+     * Choose values to load on their own, for JSONPage.get.
+     *
+     * @param keys The keys of the values.
+     * @return The values, with name and id.
+     */
+    public static FieldSet select(String... keys) {
+        return new FieldSet(api("Pokemon"), keys);
+    }
+    private static JSONAPIPage api(String object) {
+        ArrayList<JSONAPIValue> vars = new ArrayList<>();
+        vars.add(new JSONAPIValue("name", "string", false, "The code name of the pokemon."));
+        vars.add(new JSONAPIValue("id", "integer", false, "The id of the pokemon."));
+        vars.add(new JSONAPIValue("height", "integer", false, "The height in decimetres."));
+        vars.add(new JSONAPIValue("weight", "integer", false, "The weight in hectograms."));
+        vars.add(new JSONAPIValue("baseExperience", "integer", false, "The experience gained for defeating it."));
+        vars.add(new JSONAPIValue("isDefault", "boolean", false, "If this is the default form of the species."));
+        vars.add(new JSONAPIValue("species", "string", false, "The species the pokemon belongs to.", true));
+        vars.add(new JSONAPIValue("abilities", "string", true, "The abilities the pokemon can have.", true));
+        vars.add(new JSONAPIValue("stats", "Stat", true, "The base stats of the pokemon."));
+        vars.add(new JSONAPIValue("types", "Type", true, "The types of the pokemon."));
+        vars.add(new JSONAPIValue("moves", "Move", true, "The moves the pokemon can learn."));
+        return new JSONAPIPage(object, vars.toArray(new JSONAPIValue[vars.size()]), "A pokemon species form with its stats, types and moves.", "pokemon", null);
+    }
+    @Override
+    public JSONObject makeObject(URLEncoder base) {
+        JSONObject out = super.makeObject(base);
+        out.put("height", height);
+        out.put("weight", weight);
+        out.put("baseExperience", baseExperience);
+        out.put("isDefault", isDefault);
+        out.put("species", species);
+        if (getAbilities() != null)
+            out.put("abilities", JSONMake.makeArray(getAbilities()));
+        if (getStats() != null)
+            out.put("stats", JSONMake.makeArray(getStats(), base));
+        if (getTypesIDs() != null)
+            out.put("types", base.makeLinkArray("type", getTypesIDs()));
+        if (getMovesIDs() != null)
+            out.put("moves", base.makeLinkArray("move", getMovesIDs()));
+    return out;
+    }
+    
+    /**
+     * One base stat of a pokemon.
+     */
+    public static class Stat extends JSONMake {
+        /**
+         * The name of the stat.
+         */
+        public final String stat;
+        /**
+         * The base value of the stat.
+         */
+        public final Integer baseStat;
+        /**
+         * The effort points gained for defeating it.
+         */
+        public final Integer effort;
+        /**
+         * Reads The name of the stat.
+         */
+        public static final PageField<Stat, String> STAT = new PageField<>("stat", String.class, object -> object.stat);
+        /**
+         * Reads The base value of the stat.
+         */
+        public static final PageField<Stat, Integer> BASE_STAT = new PageField<>("baseStat", Integer.class, object -> object.baseStat);
+        /**
+         * Reads The effort points gained for defeating it.
+         */
+        public static final PageField<Stat, Integer> EFFORT = new PageField<>("effort", Integer.class, object -> object.effort);
+        /**
+         * Every value of the class, in the order of its API.
+         */
+        public static final List<PageField<Stat, ?>> FIELDS = PageField.list(STAT, BASE_STAT, EFFORT);
+        /**
+        * @param stat The name of the stat.
+        * @param baseStat The base value of the stat.
+        * @param effort The effort points gained for defeating it.
+        */
+        public Stat(String stat, Integer baseStat, Integer effort) {
+            this.stat = stat;
+            this.baseStat = baseStat;
+            this.effort = effort;
+        }
+        /**
+         * Create from a JSONObject.
+         * @param json The JSONObject with all the data.
+         * @param base The URL Decoder.
+        */
+        public Stat(JSONObject json, URLEncoder base){
+            this.stat = JSONMake.getString(json, "stat", StringPool.DEFAULT);
+            this.baseStat = JSONMake.getInt(json, "baseStat");
+            this.effort = JSONMake.getInt(json, "effort");
+        }
+        
+        
+        @Override
+        public JSONAPIPage makeAPI() {
+            return api(this.getClass().getSimpleName());
+        }
+        private static JSONAPIPage api(String object) {
+            ArrayList<JSONAPIValue> vars = new ArrayList<>();
+            vars.add(new JSONAPIValue("stat", "string", false, "The name of the stat.", true));
+            vars.add(new JSONAPIValue("baseStat", "integer", false, "The base value of the stat."));
+            vars.add(new JSONAPIValue("effort", "integer", false, "The effort points gained for defeating it."));
+            return new JSONAPIPage(object, vars.toArray(new JSONAPIValue[vars.size()]), "One base stat of a pokemon.", null, "Pokemon");
+        }
+        @Override
+        public JSONObject makeObject(URLEncoder base) {
+            JSONObject out = new JSONObject();
+            out.put("stat", stat);
+            out.put("baseStat", baseStat);
+            out.put("effort", effort);
+        return out;
+        }
+        public static Stat[] create(JSONArray array, URLEncoder base) {
+            Stat[] out = new Stat[array.length()];
+            for(int i = 0; i < out.length; i++){
+                out[i] = new Stat(array.getJSONObject(i), base);
+            }
+            return out;
+        }
+        
+    }
+}
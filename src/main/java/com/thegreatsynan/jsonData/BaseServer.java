@@ -1,14 +1,771 @@
 package com.thegreatsynan.jsonData;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
 /**
  * A simple server class for handling a set of objects.
+ * Serves GET urlBase/category/id for every loaded JSONPage, using the URLEncoder to read the URLs.
+ * Pages that aren't loaded can be served from a PageStore instead, as can partial pages, which are never served themselves.
+ * Add ?fields=a,b to get only some values of a page, along with its name and id. Unknown keys get a 400.
+ * Requests that fail unexpectedly, such as for stored pages that can't be read or parsed, get a 500.
+ * <p>
+ * Without TCP_NODELAY small responses wait on delayed ACKs, capping each connection at about 25 requests a second.
+ * The JDK server only turns it on with the JVM-wide sun.net.httpserver.nodelay property, read once when its first server is made.
+ * start sets it if it isn't set yet, but that does nothing if another HttpServer was made first,
+ * so pass -Dsun.net.httpserver.nodelay=true at startup to be sure.
  */
 public class BaseServer {
+    /**
+     * The path under urlBase for fetching many pages at once.
+     * GET it with ?category=...&ids=1,2,3, or POST it a JSON array of page URLs.
+     * The pages are sent back as a JSON array in the same order, with null for any that aren't loaded or stored.
+     * Malformed batches get a 400, and POST bodies over MAX_BATCH_BODY bytes get a 413.
+     */
+    public static final String BATCH_PATH = "_batch";
+    /**
+     * The most bytes read from a batch POST body.
+     */
+    public static final int MAX_BATCH_BODY = 1 << 20;
+    /**
+     * The path under urlBase for exporting a whole category. GET it with ?category=... and optionally &after=id to resume.
+     * The pages are streamed back one JSON object per line, in id order.
+     */
+    public static final String EXPORT_PATH = "_export";
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+
     public final String urlBase;
+    /**
+     * If true, encoded pages are kept and sent again until the page in the registry changes.
+     */
+    public final boolean cacheResponses;
+    /**
+     * If true, a gzipped copy of each response is made as well, for clients that accept it.
+     */
+    public final boolean gzipResponses;
+    /**
+     * Where pages that aren't loaded are served from. If null, only loaded pages are served.
+     */
+    public final PageStore store;
+    /**
+     * If not null, loaded pages are also sent in the BinaryCodec form to clients that accept it.
+     */
+    public final BinaryCodec codec;
     private final URLEncoder encoder;
+    /**
+     * The encoded pages, by category then id.
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Response>> responses = new ConcurrentHashMap<>();
+    /**
+     * Drops the cached response for each page taken out of the registry, while the server is running.
+     */
+    private final Consumer<JSONPage> removed = page -> invalidate(page.getCategory(), page.id, page);
+    /**
+     * The API of each category, for checking the keys of fields requests.
+     */
+    private final ConcurrentHashMap<String, JSONAPIPage> apis = new ConcurrentHashMap<>();
+    /**
+     * The path part of urlBase. Request paths are added to urlBase after this is taken off.
+     */
+    private final String basePath;
+    /**
+     * The running HTTP server. Null if the server isn't running.
+     */
+    private HttpServer server;
 
     public BaseServer(URLEncoder encoder, String urlBase) {
+        this(encoder, urlBase, true, false);
+    }
+
+    /**
+     * @param encoder        The URL reader and writer for the pages.
+     * @param urlBase        The URL the server is reached at. Pages are served under it as category/id.
+     * @param cacheResponses If true, encoded pages are kept and sent again until the page in the registry changes.
+     * @param gzipResponses  If true, a gzipped copy of each response is made as well, for clients that accept it.
+     */
+    public BaseServer(URLEncoder encoder, String urlBase, boolean cacheResponses, boolean gzipResponses) {
+        this(encoder, urlBase, cacheResponses, gzipResponses, null);
+    }
+
+    /**
+     * @param encoder        The URL reader and writer for the pages.
+     * @param urlBase        The URL the server is reached at. Pages are served under it as category/id.
+     * @param cacheResponses If true, encoded pages are kept and sent again until the page in the registry changes.
+     * @param gzipResponses  If true, a gzipped copy of each response is made as well, for clients that accept it.
+     * @param store          Where pages that aren't loaded are served from. If null, only loaded pages are served.
+     */
+    public BaseServer(URLEncoder encoder, String urlBase, boolean cacheResponses, boolean gzipResponses, PageStore store) {
+        this(encoder, urlBase, cacheResponses, gzipResponses, store, null);
+    }
+
+    /**
+     * @param encoder        The URL reader and writer for the pages.
+     * @param urlBase        The URL the server is reached at. Pages are served under it as category/id.
+     * @param cacheResponses If true, encoded pages are kept and sent again until the page in the registry changes.
+     * @param gzipResponses  If true, a gzipped copy of each response is made as well, for clients that accept it.
+     * @param store          Where pages that aren't loaded are served from. If null, only loaded pages are served.
+     * @param codec          If not null, loaded pages are also sent in the BinaryCodec form to clients that accept it.
+     */
+    public BaseServer(URLEncoder encoder, String urlBase, boolean cacheResponses, boolean gzipResponses, PageStore store, BinaryCodec codec) {
         this.encoder = encoder;
+        this.store = store;
+        this.codec = codec;
         this.urlBase = urlBase;
+        this.cacheResponses = cacheResponses;
+        this.gzipResponses = gzipResponses;
+        String path = URI.create(urlBase).getRawPath();
+        this.basePath = path == null || path.isEmpty() ? "/" : path;
+    }
+
+    /**
+     * Make an executor with a fixed number of threads for handling requests.
+     *
+     * @param threads How many requests can be handled at once.
+     * @return The executor.
+     */
+    public static ExecutorService pooledExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Make an executor that handles each request on its own virtual thread. Needs Java 21 or later.
+     *
+     * @return The executor.
+     * @throws UnsupportedOperationException If this Java version doesn't have virtual threads.
+     */
+    public static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later", e);
+        }
+    }
+
+    /**
+     * Start serving on the given port.
+     *
+     * @param port     The port to listen on. If 0, any free port is used.
+     * @param executor What runs the request handlers. If null, they're all run on the one server thread.
+     * @throws IOException If the server can't be started.
+     */
+    public synchronized void start(int port, Executor executor) throws IOException {
+        start(new InetSocketAddress(port), executor);
+    }
+
+    /**
+     * Start serving on the given address.
+     *
+     * @param address  The address to listen on.
+     * @param executor What runs the request handlers. If null, they're all run on the one server thread.
+     * @throws IOException If the server can't be started.
+     */
+    public synchronized void start(InetSocketAddress address, Executor executor) throws IOException {
+        if (server != null)
+            throw new IllegalStateException("The server is already running");
+        // Read by the JDK's ServerConfig when it's first loaded, so this is too late if any HttpServer was made before.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer s = HttpServer.create(address, 1024);
+        s.createContext(basePath, this::handle);
+        s.setExecutor(executor);
+        s.start();
+        server = s;
+        // Added only once started, so a failed start leaves nothing holding on to this server.
+        // Pages removed before this are caught by getResponse checking the registry after caching.
+        JSONPage.addRemovedListener(removed);
+    }
+
+    /**
+     * Stop serving. The executor isn't shut down.
+     *
+     * @param delay The most seconds to wait for requests being handled to finish.
+     */
+    public synchronized void stop(int delay) {
+        if (server != null) {
+            server.stop(delay);
+            server = null;
+            JSONPage.removeRemovedListener(removed);
+            clearCache();
+        }
+    }
+
+    /**
+     * @return The port being listened on, or -1 if the server isn't running.
+     */
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * Make the body sent for a page.
+     *
+     * @param page The page being sent.
+     * @return The UTF-8 JSON for the page.
+     */
+    protected byte[] encode(JSONPage page) {
+        return page.makeObject(encoder).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Make the response for a page, with its binary form as well if there is a codec.
+     *
+     * @param page The page being sent.
+     * @return The encoded response.
+     */
+    private Response makeResponse(JSONPage page) {
+        return new Response(page, encode(page), gzipResponses, codec == null ? null : codec.encode(page, encoder));
+    }
+
+    /**
+     * Get the response for a page, reusing the cached one if it was made for this same page object.
+     * Only pages still in the registry are cached, and while the server is running their responses are dropped
+     * as soon as they're unloaded or replaced by a new object under the same category and id.
+     * Changing the values of a registered page in place isn't noticed, so call invalidate after doing that.
+     * Partial pages are never cached.
+     *
+     * @param page The page being sent.
+     * @return The encoded response.
+     */
+    protected Response getResponse(JSONPage page) {
+        if (!cacheResponses || page.isPartial())
+            return makeResponse(page);
+        ConcurrentHashMap<Integer, Response> map = responses.get(page.getCategory());
+        if (map == null) {
+            map = new ConcurrentHashMap<>();
+            ConcurrentHashMap<Integer, Response> old = responses.putIfAbsent(page.getCategory(), map);
+            if (old != null)
+                map = old;
+        }
+        Response out = map.get(page.id);
+        if (out == null || out.page != page) {
+            out = makeResponse(page);
+            map.put(page.id, out);
+            // The page may have been removed while encoding, after its listener call found nothing to drop.
+            if (JSONPage.getLoaded(page.getCategory(), page.id) != page)
+                map.remove(page.id, out);
+        }
+        return out;
+    }
+
+    /**
+     * Drop the cached response for a page, so it will be encoded again the next time it is asked for.
+     *
+     * @param category The category the page is in.
+     * @param id       The id of the page.
+     */
+    public void invalidate(String category, int id) {
+        ConcurrentHashMap<Integer, Response> map = responses.get(category);
+        if (map != null)
+            map.remove(id);
+    }
+
+    /**
+     * Drop the cached response for a page only if it was made from the given object.
+     */
+    private void invalidate(String category, int id, JSONPage page) {
+        ConcurrentHashMap<Integer, Response> map = category == null ? null : responses.get(category);
+        if (map != null)
+            map.computeIfPresent(id, (key, value) -> value.page == page ? null : value);
+    }
+
+    /**
+     * Drop every cached response.
+     */
+    public void clearCache() {
+        responses.clear();
+    }
+
+    /**
+     * Get the stored JSON for a page that isn't loaded.
+     *
+     * @param category The category the page is in.
+     * @param id       The id of the page.
+     * @return The UTF-8 JSON, or null if there's no store or it isn't in it.
+     * @throws IOException If the store can't be read.
+     */
+    private ByteBuffer getStored(String category, int id) throws IOException {
+        return store == null ? null : store.get(category, id);
+    }
+
+    /**
+     * Get the pages asked for by a batch GET.
+     *
+     * @param query The raw query, category=...&ids=1,2,3
+     * @return The pages asked for.
+     * @throws RuntimeException If the query is malformed.
+     */
+    private Batch getBatch(String query) {
+        Map<String, String> params = parseQuery(query);
+        String category = params.get("category");
+        String ids = params.get("ids");
+        if (category == null || ids == null)
+            throw new IllegalArgumentException("A batch needs a category and ids");
+        String[] list = ids.isEmpty() ? new String[0] : ids.split(",");
+        Batch out = new Batch(list.length);
+        for (int i = 0; i < list.length; i++) {
+            out.categories[i] = category;
+            out.ids[i] = Integer.parseInt(list[i].trim());
+        }
+        return out;
+    }
+
+    /**
+     * Get the pages asked for by a batch POST.
+     *
+     * @param body A JSON array of page URLs.
+     * @return The pages asked for.
+     * @throws RuntimeException If the body isn't an array of URLs the encoder can read.
+     */
+    private Batch getBatch(byte[] body) {
+        JSONArray urls = JSONTape.parseArray(body);
+        Batch out = new Batch(urls.length());
+        for (int i = 0; i < out.ids.length; i++) {
+            String url = urls.getString(i);
+            out.categories[i] = encoder.getCategory(url);
+            out.ids[i] = encoder.getID(url);
+        }
+        return out;
+    }
+
+    /**
+     * Get a loaded page to serve.
+     *
+     * @return The page, or null if it isn't loaded or is partial.
+     */
+    private static JSONPage getServed(String category, int id) {
+        JSONPage out = JSONPage.getLoaded(category, id);
+        return out == null || out.isPartial() ? null : out;
+    }
+
+    /**
+     * Get the API of a category, to check the keys of a fields request.
+     *
+     * @param category The category of the page.
+     * @param page     A loaded page of the category, or null.
+     * @param stored   The stored JSON of a page of the category, used to make an unregistered page if there's no loaded one.
+     * @return The API, or null if it can't be found.
+     */
+    private JSONAPIPage getAPI(String category, JSONPage page, JSONObject stored) {
+        JSONAPIPage out = apis.get(category);
+        if (out != null)
+            return out;
+        if (page == null)
+            page = JSONPage.createUnregistered(category, stored, encoder);
+        if (page == null)
+            return null;
+        out = page.makeAPI();
+        JSONAPIPage old = apis.putIfAbsent(category, out);
+        return old != null ? old : out;
+    }
+
+    /**
+     * Check the keys of a fields request.
+     *
+     * @param api    The API of the page, or null if it isn't known.
+     * @param json   The full JSON of the page, checked against instead if there's no API.
+     * @param fields The keys asked for, split by commas.
+     * @return True if every key is a value of the page.
+     */
+    private static boolean checkFields(JSONAPIPage api, JSONObject json, String fields) {
+        String[] keys = fields.split(",");
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = keys[i].trim();
+        if (api != null) {
+            try {
+                new FieldSet(api, keys);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        for (String i : keys) {
+            if (!json.has(i) && !Arrays.asList(ClassCreator.defaultPageVars).contains(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Split a raw query into its decoded parameters.
+     *
+     * @param query The raw query. Can be null.
+     * @return The parameters by name.
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> out = new HashMap<>();
+        if (query != null) {
+            for (String i : query.split("&")) {
+                int split = i.indexOf('=');
+                if (split > 0)
+                    out.put(decode(i.substring(0, split)), decode(i.substring(split + 1)));
+            }
+        }
+        return out;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        Batch pages;
+        try {
+            if (method.equals("GET"))
+                pages = getBatch(exchange.getRequestURI().getRawQuery());
+            else if (method.equals("POST")) {
+                byte[] body = readBody(exchange, MAX_BATCH_BODY);
+                if (body == null) {
+                    send(exchange, 413, null, false);
+                    return;
+                }
+                pages = getBatch(body);
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, POST");
+                send(exchange, 405, null, false);
+                return;
+            }
+        } catch (RuntimeException e) {
+            send(exchange, 400, null, false);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write('[');
+            for (int i = 0; i < pages.ids.length; i++) {
+                if (i > 0)
+                    out.write(',');
+                JSONPage page = getServed(pages.categories[i], pages.ids[i]);
+                if (page != null) {
+                    out.write(getResponse(page).body);
+                    continue;
+                }
+                ByteBuffer stored = getStored(pages.categories[i], pages.ids[i]);
+                if (stored != null)
+                    write(out, stored);
+                else
+                    out.write(NULL);
+            }
+            out.write(']');
+        }
+    }
+
+    /**
+     * Read a request body, stopping as soon as it's too big.
+     *
+     * @param exchange The request.
+     * @param limit    The most bytes to read.
+     * @return The body, or null if it's longer than the limit.
+     * @throws IOException If the body can't be read.
+     */
+    private static byte[] readBody(HttpExchange exchange, int limit) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        try {
+            if (length != null && Long.parseLong(length.trim()) > limit)
+                return null;
+        } catch (NumberFormatException e) {
+            // Ignored; the limit is still checked while reading.
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (out.size() + read > limit)
+                    return null;
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private void handleExport(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            exchange.getResponseHeaders().set("Allow", "GET");
+            send(exchange, 405, null, false);
+            return;
+        }
+        String category;
+        int after;
+        try {
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            category = params.get("category");
+            if (category == null)
+                throw new IllegalArgumentException("An export needs a category");
+            after = params.containsKey("after") ? Integer.parseInt(params.get("after")) : Integer.MIN_VALUE;
+        } catch (RuntimeException e) {
+            send(exchange, 400, null, false);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            JSONPage.exportCategory(category, after, encoder, out);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            if (path.equals(basePath + BATCH_PATH)) {
+                handleBatch(exchange);
+                return;
+            }
+            if (path.equals(basePath + EXPORT_PATH)) {
+                handleExport(exchange);
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                send(exchange, 405, null, false);
+                return;
+            }
+            String url = urlBase + path.substring(basePath.length());
+            String category;
+            int id;
+            try {
+                category = encoder.getCategory(url);
+                id = encoder.getID(url);
+            } catch (RuntimeException e) {
+                send(exchange, 400, null, head);
+                return;
+            }
+            JSONPage page = getServed(category, id);
+            String fields = parseQuery(exchange.getRequestURI().getRawQuery()).get(FieldSet.PARAMETER);
+            if (page == null) {
+                ByteBuffer stored = getStored(category, id);
+                if (stored == null) {
+                    send(exchange, 404, null, head);
+                    return;
+                }
+                if (fields != null) {
+                    byte[] bytes = new byte[stored.remaining()];
+                    stored.duplicate().get(bytes);
+                    JSONObject json = JSONTape.parseObject(bytes);
+                    if (!checkFields(getAPI(category, null, json), json, fields)) {
+                        send(exchange, 400, null, head);
+                        return;
+                    }
+                    sendFields(exchange, json, fields, head);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                if (head) {
+                    exchange.sendResponseHeaders(200, -1);
+                    return;
+                }
+                exchange.sendResponseHeaders(200, stored.remaining());
+                try (OutputStream out = exchange.getResponseBody()) {
+                    write(out, stored);
+                }
+                return;
+            }
+            if (fields != null) {
+                JSONObject json = page.makeObject(encoder);
+                if (!checkFields(getAPI(category, page, null), json, fields)) {
+                    send(exchange, 400, null, head);
+                    return;
+                }
+                sendFields(exchange, json, fields, head);
+                return;
+            }
+            Response response = getResponse(page);
+            String types = exchange.getRequestHeaders().getFirst("Accept");
+            boolean binary = response.binary != null && types != null && types.contains(BinaryCodec.MEDIA_TYPE);
+            boolean gzip = false;
+            if (!binary && response.gzip != null) {
+                String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                gzip = accept != null && accept.contains("gzip");
+            }
+            String etag = binary ? response.binaryETag : gzip ? response.gzipETag : response.etag;
+            if (response.binary != null)
+                exchange.getResponseHeaders().set("Vary", response.gzip != null ? "Accept, Accept-Encoding" : "Accept");
+            else if (response.gzip != null)
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            exchange.getResponseHeaders().set("ETag", etag);
+            String match = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (match != null && (match.equals("*") || match.contains(etag))) {
+                send(exchange, 304, null, head);
+                return;
+            }
+            if (binary) {
+                exchange.getResponseHeaders().set("Content-Type", BinaryCodec.MEDIA_TYPE);
+                send(exchange, 200, response.binary, head);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            byte[] body = response.body;
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                body = response.gzip;
+            }
+            send(exchange, 200, body, head);
+        } catch (RuntimeException | IOException e) {
+            // The client still gets an answer if the headers haven't gone out yet.
+            if (exchange.getResponseCode() < 0)
+                send(exchange, 500, null, false);
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Send only some values of a page, for a request with a FieldSet parameter. Never cached, gzipped or sent in binary.
+     *
+     * @param exchange The request.
+     * @param json     The full JSON of the page.
+     * @param fields   The keys asked for, split by commas.
+     * @param head     If true, only the headers are sent.
+     */
+    private static void sendFields(HttpExchange exchange, JSONObject json, String fields, boolean head) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        send(exchange, 200, FieldSet.select(json, fields).toString().getBytes(StandardCharsets.UTF_8), head);
+    }
+
+    private static void write(OutputStream out, ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+        Channels.newChannel(out).write(buffer);
+    }
+
+    private static void send(HttpExchange exchange, int code, byte[] body, boolean head) throws IOException {
+        if (body == null || head) {
+            exchange.sendResponseHeaders(code, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * The category and id of each page asked for in a batch.
+     */
+    private static class Batch {
+        private final String[] categories;
+        private final int[] ids;
+
+        private Batch(int size) {
+            categories = new String[size];
+            ids = new int[size];
+        }
+    }
+
+    /**
+     * A page encoded and ready to be sent.
+     */
+    protected static class Response {
+        /**
+         * The page object this was made from. Used to tell when the registry has a new one.
+         */
+        public final JSONPage page;
+        /**
+         * The UTF-8 JSON body.
+         */
+        public final byte[] body;
+        /**
+         * The gzipped body. Null if gzip is off or it wasn't any smaller.
+         */
+        public final byte[] gzip;
+        /**
+         * The quoted hash of the body, sent as the ETag.
+         */
+        public final String etag;
+        /**
+         * The ETag sent with the gzipped body, so caches don't mix it up with the plain one. Null if there is no gzipped body.
+         */
+        public final String gzipETag;
+        /**
+         * The BinaryCodec form of the page. Null if the server has no codec.
+         */
+        public final byte[] binary;
+        /**
+         * The quoted hash of the binary form, sent as its ETag. Null if there is no binary form.
+         */
+        public final String binaryETag;
+
+        /**
+         * @param page The page object this was made from.
+         * @param body The UTF-8 JSON body.
+         * @param gzip If true, a gzipped copy of the body is made as well.
+         */
+        public Response(JSONPage page, byte[] body, boolean gzip) {
+            this(page, body, gzip, null);
+        }
+
+        /**
+         * @param page   The page object this was made from.
+         * @param body   The UTF-8 JSON body.
+         * @param gzip   If true, a gzipped copy of the body is made as well.
+         * @param binary The BinaryCodec form of the page. Null if there isn't one.
+         */
+        public Response(JSONPage page, byte[] body, boolean gzip, byte[] binary) {
+            this.page = page;
+            this.body = body;
+            this.gzip = gzip ? gzip(body) : null;
+            this.etag = makeETag(body);
+            this.gzipETag = this.gzip == null ? null : etag.substring(0, etag.length() - 1) + "-gzip\"";
+            this.binary = binary;
+            this.binaryETag = binary == null ? null : makeETag(binary);
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2 + 32);
+            try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+                zip.write(body);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return out.size() < body.length ? out.toByteArray() : null;
+        }
+
+        private static String makeETag(byte[] body) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-1").digest(body);
+                StringBuilder out = new StringBuilder(42).append('"');
+                for (int i = 0; i < 12; i++)
+                    out.append(Character.forDigit((hash[i] >> 4) & 15, 16)).append(Character.forDigit(hash[i] & 15, 16));
+                return out.append('"').toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
     }
 }
@@ -0,0 +1,364 @@
+package com.thegreatsynan.jsonData;
+
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A compact binary form of JSONMake objects, laid out by their JSONAPIPage instead of by key names.
+ * <p>
+ * An object is a list of fields, each a varint of its position in the API's values plus one, then its value,
+ * ending with a 0. Null values are left out. Pages start with their id and name before the fields.
+ * Integers are zigzag varints, floats and doubles are their raw bits, booleans are one byte,
+ * strings are a varint length and UTF-8, links to pages are the page's id, and nested objects are written the same way.
+ * Arrays are a varint length, then a 0 for each null or a 1 and the value.
+ */
+public class BinaryCodec {
+    /**
+     * The content type used for the binary form when asking for or sending pages.
+     */
+    public static final String MEDIA_TYPE = "application/x-jsonapi-binary";
+    /**
+     * The APIs of every type that can be encoded, by object name.
+     */
+    private final HashMap<String, JSONAPIPage> objects = new HashMap<>();
+    /**
+     * The APIs of every page type, by category.
+     */
+    private final HashMap<String, JSONAPIPage> categories = new HashMap<>();
+
+    /**
+     * @param apis The APIs of every type that can be encoded, including the ones only used inside other types.
+     */
+    public BinaryCodec(JSONAPIPage[] apis) {
+        for (JSONAPIPage i : apis) {
+            objects.put(i.object, i);
+            if (i.category != null)
+                categories.put(i.category, i);
+        }
+    }
+
+    /**
+     * @param category The category of a page type.
+     * @return The API for the pages in the category, or null if it isn't known.
+     */
+    public JSONAPIPage getCategoryAPI(String category) {
+        return categories.get(category);
+    }
+
+    /**
+     * Encode an object.
+     *
+     * @param object The object to encode.
+     * @param base   The URL writer.
+     * @return The binary form of the object.
+     */
+    public byte[] encode(JSONMake object, URLEncoder base) {
+        return encode(object.makeObject(base), object.makeAPI(), base);
+    }
+
+    /**
+     * Encode the JSON for an object.
+     *
+     * @param json The JSON of the object.
+     * @param api  The API of the object's type.
+     * @param base The URL reader, used to read links.
+     * @return The binary form of the object.
+     */
+    public byte[] encode(JSONObject json, JSONAPIPage api, URLEncoder base) {
+        Output out = new Output(64);
+        writeObject(out, json, api, base);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a page into the JSON its (JSONObject, URLEncoder) constructor reads.
+     *
+     * @param data     The binary form of the page.
+     * @param category The category of the page.
+     * @param base     The URL writer, used to rebuild links.
+     * @return The JSON of the page.
+     * @throws IllegalArgumentException If the category isn't known.
+     */
+    public JSONObject decode(byte[] data, String category, URLEncoder base) {
+        JSONAPIPage api = categories.get(category);
+        if (api == null)
+            throw new IllegalArgumentException("No API for category " + category);
+        return decode(data, api, base);
+    }
+
+    /**
+     * Decode an object into the JSON its (JSONObject, URLEncoder) constructor reads.
+     *
+     * @param data The binary form of the object.
+     * @param api  The API of the object's type.
+     * @param base The URL writer, used to rebuild links.
+     * @return The JSON of the object.
+     * @throws IllegalArgumentException If the data doesn't match the API.
+     */
+    public JSONObject decode(byte[] data, JSONAPIPage api, URLEncoder base) {
+        Input in = new Input(data);
+        JSONObject out = readObject(in, api, base);
+        if (in.pos != data.length)
+            throw new IllegalArgumentException("Unexpected data after the " + api.object);
+        return out;
+    }
+
+    private static boolean isHeader(JSONAPIPage api, JSONAPIValue value) {
+        return api.category != null && (value.key.equals("id") || value.key.equals("name"));
+    }
+
+    private JSONAPIPage getAPI(String type) {
+        JSONAPIPage out = objects.get(type);
+        if (out == null)
+            throw new IllegalArgumentException(type + " does not have a loaded API");
+        return out;
+    }
+
+    private boolean isPage(JSONAPIValue value) {
+        JSONAPIPage api = objects.get(value.type);
+        return api != null && api.category != null;
+    }
+
+    private void writeObject(Output out, JSONObject json, JSONAPIPage api, URLEncoder base) {
+        if (api.category != null) {
+            out.writeSigned(json.getInt("id"));
+            out.writeNullableString(json.isNull("name") ? null : json.getString("name"));
+        }
+        for (int i = 0; i < api.values.length; i++) {
+            JSONAPIValue value = api.values[i];
+            if (isHeader(api, value) || json.isNull(value.key))
+                continue;
+            out.writeVarint(i + 1);
+            if (value.array) {
+                JSONArray array = json.getJSONArray(value.key);
+                out.writeVarint(array.length());
+                if (isPage(value)) {
+                    URLEncoder.URLLink[] links = base.loadLinkArray(array);
+                    for (URLEncoder.URLLink link : links) {
+                        out.writeByte(link == null ? 0 : 1);
+                        if (link != null)
+                            out.writeSigned(base.getID(link));
+                    }
+                } else {
+                    for (int j = 0; j < array.length(); j++) {
+                        boolean present = !array.isNull(j);
+                        out.writeByte(present ? 1 : 0);
+                        if (present)
+                            writeValue(out, value, array.get(j), base);
+                    }
+                }
+            } else if (isPage(value))
+                out.writeSigned(base.getID(json, value.key));
+            else
+                writeValue(out, value, json.get(value.key), base);
+        }
+        out.writeVarint(0);
+    }
+
+    private void writeValue(Output out, JSONAPIValue value, Object item, URLEncoder base) {
+        switch (value.type.toLowerCase()) {
+            case "boolean":
+                out.writeByte((Boolean) item ? 1 : 0);
+                break;
+            case "integer":
+                out.writeSigned(((Number) item).longValue());
+                break;
+            case "float":
+                out.writeFixed(Float.floatToIntBits(((Number) item).floatValue()), 4);
+                break;
+            case "double":
+                out.writeFixed(Double.doubleToLongBits(((Number) item).doubleValue()), 8);
+                break;
+            case "string":
+                out.writeString(item.toString());
+                break;
+            default:
+                writeObject(out, (JSONObject) item, getAPI(value.type), base);
+        }
+    }
+
+    private JSONObject readObject(Input in, JSONAPIPage api, URLEncoder base) {
+        JSONObject out = new JSONObject();
+        if (api.category != null) {
+            out.put("id", (int) in.readSigned());
+            out.put("name", in.readNullableString());
+        }
+        int field;
+        while ((field = in.readVarint()) != 0) {
+            if (field > api.values.length)
+                throw new IllegalArgumentException("Field " + field + " is not in " + api.object);
+            JSONAPIValue value = api.values[field - 1];
+            if (value.array) {
+                int length = in.readVarint();
+                JSONArray array = new JSONArray();
+                boolean page = isPage(value);
+                String category = page ? getAPI(value.type).category : null;
+                for (int j = 0; j < length; j++) {
+                    if (in.readByte() == 0)
+                        array.put(JSONObject.NULL);
+                    else if (page)
+                        array.put(base.makeLink(category, (int) in.readSigned()));
+                    else
+                        array.put(readValue(in, value, base));
+                }
+                out.put(value.key, array);
+            } else if (isPage(value))
+                out.put(value.key, base.makeLink(getAPI(value.type).category, (int) in.readSigned()));
+            else
+                out.put(value.key, readValue(in, value, base));
+        }
+        return out;
+    }
+
+    private Object readValue(Input in, JSONAPIValue value, URLEncoder base) {
+        switch (value.type.toLowerCase()) {
+            case "boolean":
+                return in.readByte() != 0;
+            case "integer":
+                return (int) in.readSigned();
+            case "float":
+                return Float.intBitsToFloat((int) in.readFixed(4));
+            case "double":
+                return Double.longBitsToDouble(in.readFixed(8));
+            case "string":
+                return in.readString();
+            default:
+                return readObject(in, getAPI(value.type), base);
+        }
+    }
+
+    /**
+     * A growable byte array to encode into.
+     */
+    private static class Output {
+        private byte[] data;
+        private int size;
+
+        private Output(int capacity) {
+            data = new byte[capacity];
+        }
+
+        private void ensure(int more) {
+            if (size + more > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + more));
+        }
+
+        private void writeByte(int b) {
+            ensure(1);
+            data[size++] = (byte) b;
+        }
+
+        private void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        private void writeSigned(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private void writeFixed(long bits, int bytes) {
+            ensure(bytes);
+            for (int i = 0; i < bytes; i++)
+                data[size++] = (byte) (bits >>> (8 * i));
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void writeNullableString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+
+    /**
+     * Reads values back out of an encoded byte array.
+     */
+    private static class Input {
+        private final byte[] data;
+        private int pos;
+
+        private Input(byte[] data) {
+            this.data = data;
+        }
+
+        private int readByte() {
+            if (pos >= data.length)
+                throw new IllegalArgumentException("Unexpected end of data");
+            return data[pos++] & 0xFF;
+        }
+
+        private long readVarintLong() {
+            long out = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                out |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return out;
+            }
+            throw new IllegalArgumentException("Varint is too long");
+        }
+
+        private int readVarint() {
+            long out = readVarintLong();
+            if (out < 0 || out > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Length out of range: " + out);
+            return (int) out;
+        }
+
+        private long readSigned() {
+            long raw = readVarintLong();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        private long readFixed(int bytes) {
+            long out = 0;
+            for (int i = 0; i < bytes; i++)
+                out |= (long) readByte() << (8 * i);
+            return out;
+        }
+
+        private String readString(int length) {
+            if (length > data.length - pos)
+                throw new IllegalArgumentException("Unexpected end of data");
+            String out = new String(data, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return out;
+        }
+
+        private String readString() {
+            return readString(readVarint());
+        }
+
+        private String readNullableString() {
+            int length = readVarint();
+            return length == 0 ? null : readString(length - 1);
+        }
+    }
+}
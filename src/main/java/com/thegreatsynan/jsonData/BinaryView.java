@@ -0,0 +1,422 @@
+package com.thegreatsynan.jsonData;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable window onto one object in the BinaryCodec form, reading each value from the buffer only when it is asked for.
+ * Wrapping a record finds where each of its fields start once; nothing is copied out of the buffer until a getter is called.
+ * One view can be wrapped around record after record, so scanning many records makes no new objects.
+ * ClassCreator generates a subclass with typed getters for each API.
+ */
+public abstract class BinaryView {
+    public static final byte BOOLEAN = 0;
+    public static final byte INTEGER = 1;
+    public static final byte FLOAT = 2;
+    public static final byte DOUBLE = 3;
+    public static final byte STRING = 4;
+    public static final byte LINK = 5;
+    public static final byte OBJECT = 6;
+
+    /**
+     * How the fields of the viewed type are laid out.
+     */
+    private final Layout layout;
+    /**
+     * Where each field's value starts in the buffer, by ordinal. -1 if the field isn't in the record.
+     */
+    private final int[] offsets;
+    /**
+     * The buffer being viewed.
+     */
+    private ByteBuffer buffer;
+    /**
+     * Where the record starts in the buffer.
+     */
+    private int start;
+    /**
+     * Where the record ends in the buffer.
+     */
+    private int end;
+
+    /**
+     * @param layout How the fields of the viewed type are laid out.
+     */
+    protected BinaryView(Layout layout) {
+        this.layout = layout;
+        this.offsets = new int[layout.kinds.length];
+    }
+
+    /**
+     * Point this view at a record, finding where each of its fields start.
+     *
+     * @param buffer   The buffer holding the record. Only read with absolute gets, so its position isn't changed.
+     * @param position Where the record starts in the buffer.
+     * @return This view.
+     * @throws IllegalArgumentException If the record doesn't match the layout.
+     */
+    public BinaryView wrap(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.start = position;
+        this.end = scan(buffer, position, layout, offsets);
+        return this;
+    }
+
+    /**
+     * Point this view at a whole array holding one record.
+     *
+     * @param data The record.
+     * @return This view.
+     * @throws IllegalArgumentException If the record doesn't match the layout.
+     */
+    public BinaryView wrap(byte[] data) {
+        return wrap(ByteBuffer.wrap(data), 0);
+    }
+
+    /**
+     * @return Where the record starts in the buffer.
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return Where the record ends in the buffer, which is where the next record would start.
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @return The id of the viewed page.
+     * @throws IllegalStateException If the viewed type isn't a page.
+     */
+    public int getPageID() {
+        if (!layout.page)
+            throw new IllegalStateException("Only pages have ids");
+        return (int) readSigned(start);
+    }
+
+    /**
+     * @return The code name of the viewed page.
+     * @throws IllegalStateException If the viewed type isn't a page.
+     */
+    public String getPageName() {
+        if (!layout.page)
+            throw new IllegalStateException("Only pages have names");
+        int pos = skipVarint(buffer, start);
+        int length = (int) readVarint(pos);
+        return length == 0 ? null : readString(skipVarint(buffer, pos), length - 1);
+    }
+
+    /**
+     * @param field The ordinal of the field.
+     * @return True if the field was in the record.
+     */
+    protected boolean has(int field) {
+        return offsets[field] >= 0;
+    }
+
+    protected Boolean getBoolean(int field) {
+        return has(field) ? buffer.get(offsets[field]) != 0 : null;
+    }
+
+    protected Integer getInteger(int field) {
+        return has(field) ? (int) readSigned(offsets[field]) : null;
+    }
+
+    protected Float getFloat(int field) {
+        return has(field) ? Float.intBitsToFloat((int) readFixed(offsets[field], 4)) : null;
+    }
+
+    protected Double getDouble(int field) {
+        return has(field) ? Double.longBitsToDouble(readFixed(offsets[field], 8)) : null;
+    }
+
+    protected String getString(int field) {
+        if (!has(field))
+            return null;
+        int pos = offsets[field];
+        return readString(skipVarint(buffer, pos), (int) readVarint(pos));
+    }
+
+    /**
+     * @param field The ordinal of the field.
+     * @return The id of the linked page, or -1 if the field wasn't in the record.
+     */
+    protected int getLinkID(int field) {
+        return has(field) ? (int) readSigned(offsets[field]) : -1;
+    }
+
+    /**
+     * Point a view at a nested object.
+     *
+     * @param field The ordinal of the field.
+     * @param view  The view to wrap.
+     * @return The view, or null if the field wasn't in the record.
+     */
+    protected <V extends BinaryView> V getView(int field, V view) {
+        if (!has(field))
+            return null;
+        view.wrap(buffer, offsets[field]);
+        return view;
+    }
+
+    /**
+     * @param field The ordinal of an array field.
+     * @return How many elements the array has, or -1 if the field wasn't in the record.
+     */
+    protected int arrayLength(int field) {
+        return has(field) ? (int) readVarint(offsets[field]) : -1;
+    }
+
+    protected Boolean[] getBooleanArray(int field) {
+        int length = arrayLength(field);
+        if (length < 0)
+            return null;
+        Boolean[] out = new Boolean[length];
+        int pos = skipVarint(buffer, offsets[field]);
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(pos++) != 0)
+                out[i] = buffer.get(pos++) != 0;
+        }
+        return out;
+    }
+
+    protected Integer[] getIntegerArray(int field) {
+        int length = arrayLength(field);
+        if (length < 0)
+            return null;
+        Integer[] out = new Integer[length];
+        int pos = skipVarint(buffer, offsets[field]);
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(pos++) != 0) {
+                out[i] = (int) readSigned(pos);
+                pos = skipVarint(buffer, pos);
+            }
+        }
+        return out;
+    }
+
+    protected Float[] getFloatArray(int field) {
+        int length = arrayLength(field);
+        if (length < 0)
+            return null;
+        Float[] out = new Float[length];
+        int pos = skipVarint(buffer, offsets[field]);
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(pos++) != 0) {
+                out[i] = Float.intBitsToFloat((int) readFixed(pos, 4));
+                pos += 4;
+            }
+        }
+        return out;
+    }
+
+    protected Double[] getDoubleArray(int field) {
+        int length = arrayLength(field);
+        if (length < 0)
+            return null;
+        Double[] out = new Double[length];
+        int pos = skipVarint(buffer, offsets[field]);
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(pos++) != 0) {
+                out[i] = Double.longBitsToDouble(readFixed(pos, 8));
+                pos += 8;
+            }
+        }
+        return out;
+    }
+
+    protected String[] getStringArray(int field) {
+        int length = arrayLength(field);
+        if (length < 0)
+            return null;
+        String[] out = new String[length];
+        int pos = skipVarint(buffer, offsets[field]);
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(pos++) != 0) {
+                int size = (int) readVarint(pos);
+                pos = skipVarint(buffer, pos);
+                out[i] = readString(pos, size);
+                pos += size;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @param field The ordinal of a link array field.
+     * @return The ids of the linked pages, with -1 for null links. Null if the field wasn't in the record.
+     */
+    protected int[] getLinkIDs(int field) {
+        int length = arrayLength(field);
+        if (length < 0)
+            return null;
+        int[] out = new int[length];
+        int pos = skipVarint(buffer, offsets[field]);
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(pos++) != 0) {
+                out[i] = (int) readSigned(pos);
+                pos = skipVarint(buffer, pos);
+            } else
+                out[i] = -1;
+        }
+        return out;
+    }
+
+    /**
+     * Point a set of views at the elements of a nested object array. Views for null elements are replaced with null.
+     *
+     * @param field The ordinal of the field.
+     * @param views One view for each element of the array.
+     * @return The views.
+     */
+    protected <V extends BinaryView> V[] getViewArray(int field, V[] views) {
+        int pos = skipVarint(buffer, offsets[field]);
+        for (int i = 0; i < views.length; i++) {
+            if (buffer.get(pos++) != 0) {
+                views[i].wrap(buffer, pos);
+                pos = views[i].end();
+            } else
+                views[i] = null;
+        }
+        return views;
+    }
+
+    private long readVarint(int pos) {
+        return readVarint(buffer, pos);
+    }
+
+    private long readSigned(int pos) {
+        long raw = readVarint(buffer, pos);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private long readFixed(int pos, int bytes) {
+        long out = 0;
+        for (int i = 0; i < bytes; i++)
+            out |= (long) (buffer.get(pos + i) & 0xFF) << (8 * i);
+        return out;
+    }
+
+    private String readString(int pos, int length) {
+        if (buffer.hasArray())
+            return new String(buffer.array(), buffer.arrayOffset() + pos, length, StandardCharsets.UTF_8);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = buffer.get(pos + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarint(ByteBuffer buffer, int pos) {
+        long out = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get(pos++);
+            out |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return out;
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    private static int skipVarint(ByteBuffer buffer, int pos) {
+        while ((buffer.get(pos++) & 0x80) != 0) ;
+        return pos;
+    }
+
+    /**
+     * Find where each field of a record starts.
+     *
+     * @param buffer  The buffer holding the record.
+     * @param pos     Where the record starts.
+     * @param layout  How the record is laid out.
+     * @param offsets Where to put each field's start, or null to only find the end.
+     * @return Where the record ends.
+     */
+    private static int scan(ByteBuffer buffer, int pos, Layout layout, int[] offsets) {
+        if (offsets != null)
+            Arrays.fill(offsets, -1);
+        if (layout.page) {
+            pos = skipVarint(buffer, pos);
+            int name = (int) readVarint(buffer, pos);
+            pos = skipVarint(buffer, pos) + Math.max(0, name - 1);
+        }
+        while (true) {
+            long tag = readVarint(buffer, pos);
+            pos = skipVarint(buffer, pos);
+            if (tag == 0)
+                return pos;
+            if (tag > layout.kinds.length)
+                throw new IllegalArgumentException("Field " + tag + " is not in the layout");
+            int field = (int) tag - 1;
+            if (offsets != null)
+                offsets[field] = pos;
+            if (layout.arrays[field]) {
+                int length = (int) readVarint(buffer, pos);
+                pos = skipVarint(buffer, pos);
+                for (int i = 0; i < length; i++) {
+                    if (buffer.get(pos++) != 0)
+                        pos = skip(buffer, pos, layout, field);
+                }
+            } else
+                pos = skip(buffer, pos, layout, field);
+        }
+    }
+
+    private static int skip(ByteBuffer buffer, int pos, Layout layout, int field) {
+        switch (layout.kinds[field]) {
+            case BOOLEAN:
+                return pos + 1;
+            case INTEGER:
+            case LINK:
+                return skipVarint(buffer, pos);
+            case FLOAT:
+                return pos + 4;
+            case DOUBLE:
+                return pos + 8;
+            case STRING:
+                return skipVarint(buffer, pos) + (int) readVarint(buffer, pos);
+            default:
+                return scan(buffer, pos, layout.nested[field], null);
+        }
+    }
+
+    /**
+     * How the fields of one type are laid out, in the order of its API's values.
+     */
+    public static class Layout {
+        /**
+         * If true, records start with the page's id and name.
+         */
+        public final boolean page;
+        /**
+         * The kind of each field, as one of the BinaryView constants.
+         */
+        private final byte[] kinds;
+        /**
+         * If each field is an array.
+         */
+        private final boolean[] arrays;
+        /**
+         * The layout of each OBJECT field. Null for other kinds.
+         */
+        private final Layout[] nested;
+
+        /**
+         * @param page   If true, records start with the page's id and name.
+         * @param kinds  The kind of each field, as one of the BinaryView constants.
+         * @param arrays If each field is an array.
+         * @param nested The layout of each OBJECT field. Null for other kinds.
+         */
+        public Layout(boolean page, byte[] kinds, boolean[] arrays, Layout[] nested) {
+            if (arrays.length != kinds.length || nested.length != kinds.length)
+                throw new IllegalArgumentException("Every field needs a kind, array flag and nested layout");
+            this.page = page;
+            this.kinds = kinds;
+            this.arrays = arrays;
+            this.nested = nested;
+        }
+    }
+}
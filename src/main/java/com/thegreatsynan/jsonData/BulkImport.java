@@ -0,0 +1,337 @@
+package com.thegreatsynan.jsonData;
+
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loads a file holding one big JSON array of pages into the registry without ever holding the whole file or its tree in memory.
+ * One reader walks the mapped file a window at a time and cuts out each element, and a pool of workers decodes them with
+ * JSONTape and the category's Creator, and registers them once built. The reader waits when the bounded queue between them is full,
+ * so memory stays at about queueSize * BATCH_SIZE elements however big the file is.
+ */
+public class BulkImport {
+    /**
+     * How many elements are handed to a worker at once.
+     */
+    public static final int BATCH_SIZE = 256;
+    /**
+     * How much of the file is mapped at once.
+     */
+    private static final int WINDOW_SIZE = 1 << 26;
+    /**
+     * How much of a window is copied out and scanned at once.
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final byte[][] DONE = new byte[0][];
+
+    /**
+     * The URL reader passed to the page constructors.
+     */
+    public final URLEncoder base;
+    /**
+     * How many workers decode elements.
+     */
+    public final int threads;
+    /**
+     * The most batches waiting for a worker at once.
+     */
+    public final int queueSize;
+    /**
+     * If not null, every element is checked with this before it's made into a page, and counted as an error if it fails.
+     */
+    public final PageValidator validator;
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicReference<Exception> firstError = new AtomicReference<>();
+    private volatile long started;
+
+    /**
+     * @param base      The URL reader passed to the page constructors.
+     * @param threads   How many workers decode elements.
+     * @param queueSize The most batches waiting for a worker at once.
+     */
+    public BulkImport(URLEncoder base, int threads, int queueSize) {
+        this(base, threads, queueSize, null);
+    }
+
+    /**
+     * @param base      The URL reader passed to the page constructors.
+     * @param threads   How many workers decode elements.
+     * @param queueSize The most batches waiting for a worker at once.
+     * @param validator If not null, every element is checked with this before it's made into a page, and counted as an error if it fails.
+     */
+    public BulkImport(URLEncoder base, int threads, int queueSize, PageValidator validator) {
+        this.base = base;
+        this.threads = Math.max(1, threads);
+        this.queueSize = Math.max(1, queueSize);
+        this.validator = validator;
+    }
+
+    /**
+     * @return How many pages have been loaded so far. Can be read from another thread while importing.
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * @return How many pages a second have been loaded so far. Can be read from another thread while importing.
+     */
+    public double getRowsPerSecond() {
+        long start = started;
+        if (start == 0)
+            return 0;
+        return rows.sum() * 1e9 / Math.max(1, System.nanoTime() - start);
+    }
+
+    /**
+     * Load every page in a file. Elements that can't be decoded are counted as errors and skipped.
+     *
+     * @param file     A file holding a JSON array of page objects.
+     * @param category The category of every page in the file. Needs a Creator added with JSONPage.addCreator.
+     * @return How the import went.
+     * @throws IOException If the file can't be read or isn't a JSON array of objects.
+     */
+    public Report run(File file, String category) throws IOException {
+        rows.reset();
+        errors.reset();
+        firstError.set(null);
+        started = System.nanoTime();
+        ArrayBlockingQueue<byte[][]> queue = new ArrayBlockingQueue<>(queueSize);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ArrayList<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+            workers.add(pool.submit(() -> work(queue, category)));
+        long size;
+        try {
+            size = read(file, queue);
+            for (int i = 0; i < threads; i++)
+                queue.put(DONE);
+            for (Future<?> i : workers)
+                i.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing " + file, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not import " + file, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Report(rows.sum(), errors.sum(), size, System.nanoTime() - started, firstError.get());
+    }
+
+    private Void work(ArrayBlockingQueue<byte[][]> queue, String category) throws InterruptedException {
+        while (true) {
+            byte[][] batch = queue.take();
+            if (batch == DONE)
+                return null;
+            for (byte[] i : batch) {
+                try {
+                    JSONObject json = JSONTape.parseObject(i);
+                    if (validator != null)
+                        validator.check(json);
+                    if (JSONPage.createObject(category, json, base) == null)
+                        throw new IllegalStateException("No Creator was added for category " + category);
+                    rows.increment();
+                } catch (RuntimeException e) {
+                    errors.increment();
+                    firstError.compareAndSet(null, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cut each element out of the file's top array and queue them in batches.
+     *
+     * @return The size of the file.
+     */
+    private static long read(File file, ArrayBlockingQueue<byte[][]> queue) throws IOException, InterruptedException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            Splitter splitter = new Splitter(queue);
+            byte[] chunk = new byte[CHUNK_SIZE];
+            for (long offset = 0; offset < size; offset += WINDOW_SIZE) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, size - offset));
+                while (window.hasRemaining()) {
+                    int length = Math.min(chunk.length, window.remaining());
+                    window.get(chunk, 0, length);
+                    splitter.scan(chunk, length, offset + window.position() - length);
+                }
+            }
+            splitter.finish();
+            return size;
+        }
+    }
+
+    /**
+     * Finds where each element of the top array starts and ends, keeping track across chunks.
+     */
+    private static class Splitter {
+        private final ArrayBlockingQueue<byte[][]> queue;
+        /**
+         * How many arrays and objects deep the scan is. 1 is directly inside the top array.
+         */
+        private int depth;
+        private boolean inString;
+        private boolean escaped;
+        private boolean closed;
+        /**
+         * The bytes of the element being cut out so far, from chunks before this one.
+         */
+        private byte[] element = new byte[1024];
+        private int elementSize;
+        private byte[][] batch = new byte[BATCH_SIZE][];
+        private int batchSize;
+
+        private Splitter(ArrayBlockingQueue<byte[][]> queue) {
+            this.queue = queue;
+        }
+
+        private void scan(byte[] chunk, int length, long offset) throws IOException, InterruptedException {
+            int start = depth >= 2 ? 0 : -1;
+            for (int i = 0; i < length; i++) {
+                byte c = chunk[i];
+                if (inString) {
+                    if (escaped)
+                        escaped = false;
+                    else if (c == '\\')
+                        escaped = true;
+                    else if (c == '"')
+                        inString = false;
+                    continue;
+                }
+                if (c == ' ' || c == '\n' || c == '\r' || c == '\t')
+                    continue;
+                if (closed)
+                    throw new IOException("Unexpected data after the array at byte " + (offset + i));
+                if (depth == 0) {
+                    if (c != '[')
+                        throw new IOException("The file must be a JSON array");
+                    depth = 1;
+                    continue;
+                }
+                if (depth == 1) {
+                    if (c == ',')
+                        continue;
+                    if (c == ']') {
+                        depth = 0;
+                        closed = true;
+                        continue;
+                    }
+                    if (c != '{')
+                        throw new IOException("Element at byte " + (offset + i) + " is not an object");
+                    start = i;
+                    depth = 2;
+                    continue;
+                }
+                if (c == '"')
+                    inString = true;
+                else if (c == '{' || c == '[')
+                    depth++;
+                else if (c == '}' || c == ']') {
+                    depth--;
+                    if (depth == 1) {
+                        append(chunk, start, i + 1);
+                        emit();
+                        start = -1;
+                    }
+                }
+            }
+            if (start >= 0)
+                append(chunk, start, length);
+        }
+
+        private void append(byte[] chunk, int from, int to) {
+            int length = to - from;
+            if (elementSize + length > element.length)
+                element = Arrays.copyOf(element, Math.max(element.length * 2, elementSize + length));
+            System.arraycopy(chunk, from, element, elementSize, length);
+            elementSize += length;
+        }
+
+        private void emit() throws InterruptedException {
+            batch[batchSize++] = Arrays.copyOf(element, elementSize);
+            elementSize = 0;
+            if (batchSize == batch.length)
+                flush();
+        }
+
+        private void flush() throws InterruptedException {
+            if (batchSize == 0)
+                return;
+            queue.put(batchSize == batch.length ? batch : Arrays.copyOf(batch, batchSize));
+            batch = new byte[BATCH_SIZE][];
+            batchSize = 0;
+        }
+
+        private void finish() throws IOException, InterruptedException {
+            if (!closed)
+                throw new IOException("The file ended before the array was closed");
+            flush();
+        }
+    }
+
+    /**
+     * How an import went.
+     */
+    public static class Report {
+        /**
+         * How many pages were loaded.
+         */
+        public final long rows;
+        /**
+         * How many elements couldn't be decoded.
+         */
+        public final long errors;
+        /**
+         * How many bytes the file was.
+         */
+        public final long bytes;
+        /**
+         * How long the import took, in nanoseconds.
+         */
+        public final long nanos;
+        /**
+         * The first thing that went wrong decoding an element, or null if nothing did.
+         */
+        public final Exception firstError;
+
+        public Report(long rows, long errors, long bytes, long nanos, Exception firstError) {
+            this.rows = rows;
+            this.errors = errors;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.firstError = firstError;
+        }
+
+        /**
+         * @return How many pages were loaded a second.
+         */
+        public double getRowsPerSecond() {
+            return rows * 1e9 / Math.max(1, nanos);
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("Imported %d rows (%d errors) in %.2f s: %.0f rows/s, %.1f MB/s",
+                    rows, errors, seconds, getRowsPerSecond(), bytes / 1e6 / Math.max(seconds, 1e-9));
+        }
+    }
+}
@@ -12,10 +12,25 @@ public class ClassCreator {
     public static String[] simpleValues = {"Boolean", "Integer", "Float", "Double", "String"};
     public final JSONAPIPage[] apis;
     public final String pack;
+    /**
+     * If true, arrays and nested objects are kept as JSON when loaded, and only decoded the first time their getter is called.
+     * They are then private, so read them with the getters. The JSON given to the constructor shouldn't be changed afterwards.
+     */
+    public final boolean lazyValues;
 
     public ClassCreator(JSONAPIPage[] apis, String pack) {
+        this(apis, pack, false);
+    }
+
+    /**
+     * @param apis       The APIs to make classes for.
+     * @param pack       The package of the classes.
+     * @param lazyValues If true, arrays and nested objects are kept as JSON when loaded, and only decoded the first time their getter is called.
+     */
+    public ClassCreator(JSONAPIPage[] apis, String pack, boolean lazyValues) {
         this.apis = apis;
         this.pack = pack;
+        this.lazyValues = lazyValues;
     }
 
     private static String capitalizeFirst(String original) {
@@ -137,29 +152,39 @@ public class ClassCreator {
 
     private String makeAPIMaker(JSONAPIPage api) {
         StringBuilder out = new StringBuilder("@Override\npublic JSONAPIPage makeAPI() {\n" +
-                tab("ArrayList<JSONAPIValue> vars = new ArrayList<>();\n"));
+                tab("return api(this.getClass().getSimpleName());\n") + "}\n");
+        if (isPage(api))
+            out.append("/**\n * Choose values to load on their own, for JSONPage.get.\n *\n * @param keys The keys of the values.\n * @return The values, with name and id.\n */\n" +
+                    "public static FieldSet select(String... keys) {\n" +
+                    tab("return new FieldSet(api(\"" + api.object + "\"), keys);\n") + "}\n");
+        out.append("private static JSONAPIPage api(String object) {\n");
+        out.append(tab("ArrayList<JSONAPIValue> vars = new ArrayList<>();\n"));
         for (JSONAPIValue i : api.values)
-            out.append(tab("vars.add(new JSONAPIValue(\"" + i.key + "\", \"" + i.type + "\", " + (i.array ? "true" : "false") + ", \"" + i.detail + "\"));\n"));
-        return out + tab("return new JSONAPIPage(this.getClass().getSimpleName(), vars.toArray(new JSONAPIValue[vars.size()]), \"" + api.details + "\", " +
+            out.append(tab("vars.add(new JSONAPIValue(\"" + i.key + "\", \"" + i.type + "\", " + (i.array ? "true" : "false") + ", \"" + i.detail + "\"" + (i.isInterned() ? ", true" : "") + "));\n"));
+        return out + tab("return new JSONAPIPage(object, vars.toArray(new JSONAPIValue[vars.size()]), \"" + api.details + "\", " +
                 (api.category == null ? "null" : "\"" + api.category + "\"") + ", " +
                 (api.inside == null ? "null" : "\"" + api.inside + "\"") + ");\n") + "}";
     }
 
     private String makeCategory(JSONAPIPage api) {
         if (isPage(api))
-            return "@Override\npublic String getCategory() {\n" +
+            return "static {\n" +
+                    tab("JSONPage.addCreator(\"" + api.category + "\", " + api.object + "::new);\n") +
+                    "}\n" +
+                    "@Override\npublic String getCategory() {\n" +
                     tab("return \"" + api.category + "\";\n") +
                     "}";
         return "";
     }
 
     public String makeClass(JSONAPIPage api) {
-        System.out.println("Making " + api.object);
+        Object event = FlightEvents.beginMakeClass();
         String out = (api.inside == null ? "import org.json.JSONObject;\n" +
                 "import com.thegreatsynan.jsonData.*;\n" +
                 "import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;\n" : "") +
                 "/**\n * " + api.details + "\n */\npublic " + (api.inside != null ? "static " : "") + "class " + api.object + " extends JSON" + (isPage(api) ? "Page" : "Make") + " {\n";
         out += tab(makeVariables(api));
+        out += tab(makeFields(api));
         out += tab(makeConstructor(api));
         out += tab(makeJSONConstructor(api));
         out += tab(makeGetters(api));
@@ -173,8 +198,14 @@ public class ClassCreator {
                 out = "import java.util.ArrayList;\n" + out;
             if (out.contains("JSONArray"))
                 out = "import org.json.JSONArray;\n" + out;
+            if (out.contains("Arrays.copyOf"))
+                out = "import java.util.Arrays;\n" + out;
+            if (out.contains("List<PageField"))
+                out = "import java.util.List;\n" + out;
         }
-        return (api.inside == null ? "package " + pack + ";\n\n" : "") + out + "}";
+        out = (api.inside == null ? "package " + pack + ";\n\n" : "") + out + "}";
+        FlightEvents.endMakeClass(event, api.object, out.length());
+        return out;
     }
 
     public ArrayList<String> makeClasses() {
@@ -184,8 +215,10 @@ public class ClassCreator {
     public ArrayList<String> makeClasses(JSONAPIPage[] apis) {
         ArrayList<String> out = new ArrayList<>();
         for (JSONAPIPage i : apis) {
-            if (i.inside == null)
+            if (i.inside == null) {
+                System.out.println("Making " + i.object);
                 out.add(makeClass(i));
+            }
         }
         return out;
     }
@@ -199,6 +232,8 @@ public class ClassCreator {
             if (doVar(api, i))
                 out.append(tab("this." + i.key + " = " + i.key + ";"));
         }
+        if (hasLazyValues(api))
+            out.append(tab("this.jsonBase = null;"));
         return out + "}";
     }
 
@@ -214,17 +249,79 @@ public class ClassCreator {
             return "";
         return "/**\n * Get " + value.detail + "\n * @param base The URL reader.\n * @return " + value.detail + "\n */\n" +
                 " public " + value.type + (value.array ? "[]" : "") + " get" + capitalizeFirst(value.key) + "(URLEncoder base) {\n" +
-                tab("return (" + value.type + (value.array ? "[]" : "") + ") JSONPage.get(\"" + getCategory(value.type) + "\", " + (value.key.equals("base") ? "this." : "") + value.key + ", base);\n") +
+                tab(makePageLoad(value, isLazy(value) ? "get" + capitalizeFirst(value.key) + "IDs()" : (value.key.equals("base") ? "this." : "") + value.key)) +
                 "}";
     }
 
+    /**
+     * Make the code that loads the page or pages a value links to.
+     *
+     * @param value The value linking to pages.
+     * @param ids   The code for the id or ids of the pages.
+     * @return The code, ending in a return of the typed page or array of pages.
+     */
+    private String makePageLoad(JSONAPIValue value, String ids) {
+        String load = "JSONPage.get(\"" + getCategory(value.type) + "\", " + ids + ", base)";
+        if (!value.array)
+            return "if (" + ids + " < 0)\n" + tab("return null;") + "return (" + value.type + ") " + load + ";\n";
+        return "if (" + ids + " == null)\n" + tab("return null;") +
+                "JSONPage[] pages = " + load + ";\n" +
+                "return Arrays.copyOf(pages, pages.length, " + value.type + "[].class);\n";
+    }
+
     private String makeGetters(JSONAPIPage api) {
         StringBuilder out = new StringBuilder();
-        for (JSONAPIValue i : api.values)
+        for (JSONAPIValue i : api.values) {
+            if (isLazy(i))
+                out.append(makeLazyGetter(i));
             out.append(makeGetter(i));
+        }
         return out.toString();
     }
 
+    /**
+     * Make the getter of a lazy value. The first call decodes the JSON kept by the constructor and swaps it for the result,
+     * under the object's lock so it's only ever decoded once. Calls after that only read the volatile field.
+     *
+     * @param value The lazy value.
+     * @return The code of the getter.
+     */
+    private String makeLazyGetter(JSONAPIValue value) {
+        String field = "this." + value.key;
+        String raw = value.array ? "JSONArray" : "JSONObject";
+        String type = makeVarType(value) + (value.array ? "[]" : "");
+        String name = "get" + capitalizeFirst(value.key) + (isPage(value) ? "IDs" : "");
+        return "/**\n * Get " + (isPage(value) ? "the ids of " : "") + value.detail + " Decoded the first time it is read.\n * @return " + value.detail + "\n */\n" +
+                "public " + type + " " + name + "() {\n" +
+                tab("Object value = " + field + ";\n" +
+                        "if (value instanceof " + raw + ") {\n" +
+                        tab("synchronized (this) {\n" +
+                                tab("value = " + field + ";\n" +
+                                        "if (value instanceof " + raw + ") {\n" +
+                                        tab("value = " + makeDecode(value, "(" + raw + ") value", "jsonBase") + ";\n" +
+                                                field + " = value;") +
+                                        "}") +
+                                "}") +
+                        "}\n" +
+                        "return (" + type + ") value;") +
+                "}\n";
+    }
+
+    /**
+     * @return True if the value is kept as JSON until it is read.
+     */
+    private boolean isLazy(JSONAPIValue value) {
+        return lazyValues && (value.array || !(isSimpleValue(value) || isPage(value)));
+    }
+
+    private boolean hasLazyValues(JSONAPIPage api) {
+        for (JSONAPIValue i : api.values) {
+            if (doVar(api, i) && isLazy(i))
+                return true;
+        }
+        return false;
+    }
+
     private String makeGroupCreate(JSONAPIPage api) {
         if (isPage(api))
             return "";
@@ -255,41 +352,75 @@ public class ClassCreator {
                 out.append(tab("this." + i.key + " = " + makeJSONGetter(i) + ";\n"));
             }
         }
+        if (hasLazyValues(api))
+            out.append(tab("this.jsonBase = base;"));
         return out + "}";
     }
 
+    /**
+     * Make the code that reads a value from the JSON. Values missing from the JSON, like those left out of a FieldSet,
+     * are read as null, or -1 for single links.
+     *
+     * @param value The value to read.
+     * @return The code of the expression.
+     */
     private String makeJSONGetter(JSONAPIValue value) {
-        if (value.array) {
-            if (isPage(value))
-                return "base.getIDs(json.getJSONArray(\"" + value.key + "\"))";
-            for (String i : simpleValues) {
-                if (i.toLowerCase().equals(value.type.toLowerCase()))
-                    return "JSONMake.load" + i + "Array(json.getJSONArray(\"" + value.key + "\"))";
-            }
-            return value.type + ".create(json.getJSONArray(\"" + value.key + "\"), base)";
-        }
+        String missing = "json.isNull(\"" + value.key + "\") ? ";
+        if (isLazy(value))
+            return missing + "null : json.get" + (value.array ? "JSONArray" : "JSONObject") + "(\"" + value.key + "\")";
+        if (value.array)
+            return missing + "null : " + makeDecode(value, "json.getJSONArray(\"" + value.key + "\")", "base");
         if (isPage(value))
-            return "base.getID(json, \"" + value.key + "\")";
+            return missing + "-1 : base.getID(json, \"" + value.key + "\")";
         for (String i : simpleValues) {
             if (i.toLowerCase().equals(value.type.toLowerCase())) {
                 if (i.equals("Integer"))
                     i = "Int";
-                return "JSONMake.get" + i + "(json, \"" + value.key + "\")";
+                return "JSONMake.get" + i + "(json, \"" + value.key + "\"" + makePoolArg(value, i) + ")";
             }
         }
-        return "new " + value.type + "(json, base)";
+        return missing + "null : " + makeDecode(value, "json.getJSONObject(\"" + value.key + "\")", "base");
+    }
+
+    /**
+     * Make the code that decodes an array or nested object from its JSON.
+     *
+     * @param value The value to decode.
+     * @param json  The code of the JSONArray, or JSONObject for a single nested object.
+     * @param base  The code of the URL reader.
+     * @return The code of the expression.
+     */
+    private String makeDecode(JSONAPIValue value, String json, String base) {
+        if (!value.array)
+            return "new " + value.type + "(" + json + ", " + base + ")";
+        if (isPage(value))
+            return base + ".getIDs(" + json + ")";
+        for (String i : simpleValues) {
+            if (i.toLowerCase().equals(value.type.toLowerCase()))
+                return "JSONMake.load" + i + "Array(" + json + makePoolArg(value, i) + ")";
+        }
+        return value.type + ".create(" + json + ", " + base + ")";
+    }
+
+    private String makePoolArg(JSONAPIValue value, String type) {
+        if (value.isInterned() && type.equals("String"))
+            return ", StringPool.DEFAULT";
+        return "";
     }
 
     private String makeJSONSaver(JSONAPIValue value) {
+        String field = (value.key.equals("out") || value.key.equals("base") ? "this." : "") + value.key;
+        if (isLazy(value))
+            field = "get" + capitalizeFirst(value.key) + (isPage(value) ? "IDs" : "") + "()";
         if (value.array) {
             if (isPage(value))
-                return "out.put(\"" + value.key + "\", JSONPage.makeURLArray(get" + capitalizeFirst(value.key) + "(base), base));\n";
-            return "out.put(\"" + value.key + "\", JSONMake.makeArray(" + value.key + (isSimpleValue(value) ? "" : ", base") + "));\n";
+                return "if (" + field + " != null)\n" + tab("out.put(\"" + value.key + "\", base.makeLinkArray(\"" + getCategory(value.type) + "\", " + field + "));");
+            return "if (" + field + " != null)\n" + tab("out.put(\"" + value.key + "\", JSONMake.makeArray(" + field + (isSimpleValue(value) ? "" : ", base") + "));");
         } else if (isPage(value))
-            return "base.addLink(out, \"" + value.key + "\", get" + capitalizeFirst(value.key) + "(base));\n";
+            return "if (" + field + " >= 0)\n" + tab("out.put(\"" + value.key + "\", base.makeLink(\"" + getCategory(value.type) + "\", " + field + "));");
         else if (isSimpleValue(value))
-            return "out.put(\"" + value.key + "\", " + value.key + ");\n";
-        return "out.put(\"" + value.key + "\", " + value.key + ".makeObject(base));\n";
+            return "out.put(\"" + value.key + "\", " + field + ");\n";
+        return "if (" + field + " != null)\n" + tab("out.put(\"" + value.key + "\", " + field + ".makeObject(base));");
     }
 
     private String makeObjectMaker(JSONAPIPage api) {
@@ -303,6 +434,103 @@ public class ClassCreator {
         return out + "return out;\n}";
     }
 
+    /**
+     * Make a view class for an API, with a getter for each value read straight from the BinaryCodec form.
+     * Named the object's name with View on the end.
+     *
+     * @param api The API to make a view of.
+     * @return The source of the view class.
+     */
+    public String makeView(JSONAPIPage api) {
+        String name = api.object + "View";
+        StringBuilder out = new StringBuilder(api.inside == null ? "package " + pack + ";\n\n" +
+                "import java.nio.ByteBuffer;\n" +
+                "import com.thegreatsynan.jsonData.*;\n" : "");
+        out.append("/**\n * A view of ").append(api.object).append(" read straight from its BinaryCodec form. ").append(api.details).append("\n */\n")
+                .append("public ").append(api.inside != null ? "static " : "").append("class ").append(name).append(" extends BinaryView {\n");
+        String[] kinds = new String[api.values.length];
+        String[] arrays = new String[api.values.length];
+        String[] nested = new String[api.values.length];
+        for (int i = 0; i < api.values.length; i++) {
+            JSONAPIValue value = api.values[i];
+            kinds[i] = "BinaryView." + makeViewKind(value);
+            arrays[i] = value.array ? "true" : "false";
+            nested[i] = isSimpleValue(value) || isPage(value) ? "null" : value.type + "View.LAYOUT";
+        }
+        out.append(tab("public static final Layout LAYOUT = new Layout(" + isPage(api) + ",\n" +
+                "        new byte[]{" + String.join(", ", kinds) + "},\n" +
+                "        new boolean[]{" + String.join(", ", arrays) + "},\n" +
+                "        new Layout[]{" + String.join(", ", nested) + "});\n"));
+        out.append(tab("public " + name + "() {\n" + tab("super(LAYOUT);") + "}"));
+        out.append(tab("@Override\npublic " + name + " wrap(ByteBuffer buffer, int position) {\n" + tab("super.wrap(buffer, position);\nreturn this;") + "}"));
+        out.append(tab("@Override\npublic " + name + " wrap(byte[] data) {\n" + tab("super.wrap(data);\nreturn this;") + "}"));
+        for (int i = 0; i < api.values.length; i++) {
+            if (doVar(api, api.values[i]))
+                out.append(tab(makeViewGetter(api.values[i], i)));
+        }
+        for (JSONAPIPage i : apis) {
+            if (i.inside != null && i.inside.equals(api.object))
+                out.append(tab(makeView(i)));
+        }
+        if (api.inside == null && out.indexOf("Arrays.copyOf") >= 0)
+            out.insert(out.indexOf("import com.thegreatsynan"), "import java.util.Arrays;\n");
+        return out + "}";
+    }
+
+    /**
+     * Make a view class for every API that isn't inside another one. Views of inside APIs are put in the view of the one they're in.
+     *
+     * @return The source of each view class, in the same order as getClassNames.
+     */
+    public ArrayList<String> makeViews() {
+        ArrayList<String> out = new ArrayList<>();
+        for (JSONAPIPage i : apis) {
+            if (i.inside == null)
+                out.add(makeView(i));
+        }
+        return out;
+    }
+
+    private String makeViewKind(JSONAPIValue value) {
+        if (isPage(value))
+            return "LINK";
+        if (isSimpleValue(value))
+            return value.type.toUpperCase();
+        return "OBJECT";
+    }
+
+    private String makeViewGetter(JSONAPIValue value, int field) {
+        String name = capitalizeFirst(value.key);
+        String doc = "/**\n * @return " + value.detail + "\n */\n";
+        if (isPage(value)) {
+            String ids = value.array ? "int[]" : "int";
+            String type = value.type + (value.array ? "[]" : "");
+            return "/**\n * @return The id value for " + value.detail + "\n */\n" +
+                    "public " + ids + " get" + name + "ID" + (value.array ? "s" : "") + "() {\n" +
+                    tab("return " + (value.array ? "getLinkIDs(" : "getLinkID(") + field + ");") + "}\n" +
+                    "/**\n * Get " + value.detail + "\n * @param base The URL reader.\n * @return " + value.detail + "\n */\n" +
+                    "public " + type + " get" + name + "(URLEncoder base) {\n" +
+                    tab(makePageLoad(value, "get" + name + "ID" + (value.array ? "s" : "") + "()")) + "}";
+        }
+        if (isSimpleValue(value)) {
+            String type = capitalizeFirst(value.type.toLowerCase());
+            return doc + "public " + type + (value.array ? "[]" : "") + " get" + name + "() {\n" +
+                    tab("return get" + type + (value.array ? "Array" : "") + "(" + field + ");") + "}";
+        }
+        String view = value.type + "View";
+        if (value.array)
+            return doc + "public " + view + "[] get" + name + "() {\n" +
+                    tab("int length = arrayLength(" + field + ");\n" +
+                            "if (length < 0)\n" +
+                            "    return null;\n" +
+                            view + "[] out = new " + view + "[length];\n" +
+                            "for (int i = 0; i < length; i++)\n" +
+                            "    out[i] = new " + view + "();\n" +
+                            "return getViewArray(" + field + ", out);") + "}";
+        return doc + "public " + view + " get" + name + "() {\n" +
+                tab("return getView(" + field + ", new " + view + "());") + "}";
+    }
+
     private String makeVarType(JSONAPIValue value) {
         if (isPage(value))
             return "int";
@@ -314,17 +542,65 @@ public class ClassCreator {
     }
 
     private String makeVariable(JSONAPIValue value) {
+        if (isLazy(value))
+            return "/**\n * " + (isPage(value) ? "The id values for " : "") + value.detail + " Held as JSON until first read.\n */\n" +
+                    "private volatile Object " + value.key + ";\n";
         return "/**\n * " + (isPage(value) ? "The id value for " : "") + value.detail + "\n */\n" +
                 (isPage(value) ? "private" : "public") + " final " +
                 makeVarType(value) + (value.array ? "[]" : "") + " " + value.key + ";\n";
     }
 
+    /**
+     * Make a PageField constant for each value, named the key in upper case with words split by underscores,
+     * a FIELDS list of them all, and for pages a query() method.
+     *
+     * @param api The API to make the fields of.
+     * @return The code of the constants.
+     */
+    private String makeFields(JSONAPIPage api) {
+        StringBuilder out = new StringBuilder();
+        ArrayList<String> names = new ArrayList<>();
+        for (JSONAPIValue i : api.values) {
+            String name = makeConstantName(i.key);
+            String type = makeVarType(i) + (i.array ? "[]" : "");
+            if (type.equals("int"))
+                type = "Integer";
+            names.add(name);
+            out.append("/**\n * Reads ").append(isPage(i) ? "the id" + (i.array ? "s" : "") + " of " : "").append(i.detail).append("\n */\n")
+                    .append("public static final PageField<").append(api.object).append(", ").append(type).append("> ").append(name)
+                    .append(" = new PageField<>(\"").append(i.key).append("\", ").append(type).append(".class, object -> object.")
+                    .append(isLazy(i) ? "get" + capitalizeFirst(i.key) + (isPage(i) ? "IDs" : "") + "()" : i.key).append(");\n");
+        }
+        out.append("/**\n * Every value of the class, in the order of its API.\n */\n")
+                .append("public static final List<PageField<").append(api.object).append(", ?>> FIELDS = PageField.list(").append(String.join(", ", names)).append(");\n");
+        if (isPage(api))
+            out.append("/**\n * Start a query over every loaded ").append(api.object).append(".\n *\n * @return A query including every loaded ").append(api.object).append(".\n */\n")
+                    .append("public static PageQuery<").append(api.object).append("> query() {\n")
+                    .append(tab("return new PageQuery<>(\"" + api.category + "\", " + api.object + ".class, FIELDS);"))
+                    .append("}\n");
+        return out.toString();
+    }
+
+    private static String makeConstantName(String key) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isUpperCase(c) && i > 0)
+                out.append('_');
+            out.append(Character.toUpperCase(c));
+        }
+        return out.toString();
+    }
+
     private String makeVariables(JSONAPIPage api) {
         StringBuilder out = new StringBuilder();
         for (JSONAPIValue i : api.values) {
             if (doVar(api, i))
                 out.append(makeVariable(i));
         }
+        if (hasLazyValues(api))
+            out.append("/**\n * The URL reader the values held as JSON are decoded with.\n */\n" +
+                    "private final URLEncoder jsonBase;\n");
         return out.toString();
     }
 
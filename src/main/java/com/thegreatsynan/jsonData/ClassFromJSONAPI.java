@@ -1,16 +1,37 @@
 package com.thegreatsynan.jsonData;
 
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A series of functions to convert JSON api files to actual class files.
  */
 public class ClassFromJSONAPI {
+    /**
+     * The name of the file in the API folder that keeps the hashes of the last run.
+     */
+    public static final String MANIFEST = ".classes-manifest.json";
 
     /**
      * A list of values that can be replaced. This allows shorthand int and bool as values. Add more if you want to add anything.
@@ -49,44 +70,159 @@ public class ClassFromJSONAPI {
      * @throws IOException If there is an error reading the files, saving the files, or a class wasn't listed in the API.
      */
     public static void makeClasses(String folder, String pack, URLEncoder base, int JSONIndents) throws IOException {
-        ArrayList<JSONAPIPage> list = readFiles(folder, base);
-        ClassCreator cc = new ClassCreator(list.toArray(new JSONAPIPage[0]), pack);
-        String js = folder + "\\blankJSON";
-        System.out.println("Making folders " + folder + "\\blankJSON: " + new File(js).mkdirs());
-        folder = folder + "\\src\\" + pack.replace("", "\\");
-        System.out.println("Making folders " + folder + ": " + new File(folder).mkdirs());
-        ArrayList<String> names = cc.getClassNames();
-        ArrayList<String> classes = cc.makeClasses();
-        ArrayList<String> json = cc.blankJSON(base, JSONIndents);
-        for (int i = 0; i < names.size(); i++) {
-            System.out.println(names.get(i) + ".java");
-            try (PrintWriter out = new PrintWriter(folder + "\\" + names.get(i) + ".java")) {
-                out.println(classes.get(i));
+        makeClasses(folder, pack, base, JSONIndents, false);
+    }
+
+    /**
+     * Create a series of classes and sample JSON files from the give APIs in a folder.
+     *
+     * @param folder      The folder to look for API files in.
+     * @param pack        The package name all the classes should be in.
+     * @param JSONIndents How many indents to put into the sample files.
+     * @param views       If true, a BinaryView class is made for each class as well.
+     * @throws IOException If there is an error reading the files, saving the files, or a class wasn't listed in the API.
+     */
+    public static void makeClasses(String folder, String pack, URLEncoder base, int JSONIndents, boolean views) throws IOException {
+        makeClasses(folder, pack, base, JSONIndents, views, false);
+    }
+
+    /**
+     * Create a series of classes and sample JSON files from the give APIs in a folder.
+     * Only the classes whose APIs changed since the last run are made again. A manifest in the folder keeps a hash of each API file
+     * and of the settings, and a class is made again if the hash of its own API, any API inside it or any type it uses changed,
+     * or if its files are missing. Changing any setting, or this version of ClassCreator, makes every class again.
+     * Files are read, and classes made and saved, on a thread for each processor.
+     *
+     * @param folder      The folder to look for API files in.
+     * @param pack        The package name all the classes should be in.
+     * @param JSONIndents How many indents to put into the sample files.
+     * @param views       If true, a BinaryView class is made for each class as well.
+     * @param lazyValues  If true, arrays and nested objects in the classes are only decoded the first time they are read.
+     * @throws IOException If there is an error reading the files, saving the files, or a class wasn't listed in the API.
+     */
+    public static void makeClasses(String folder, String pack, URLEncoder base, int JSONIndents, boolean views, boolean lazyValues) throws IOException {
+        File root = new File(folder);
+        File js = new File(root, "blankJSON");
+        File src = new File(new File(root, "src"), pack.replace('.', File.separatorChar));
+        System.out.println("Making folders " + js + ": " + js.mkdirs());
+        System.out.println("Making folders " + src + ": " + src.mkdirs());
+        ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            ArrayList<Source> sources = new ArrayList<>();
+            for (Future<Source> i : submitAll(pool, listFiles(root), file -> read(file, base)))
+                sources.add(i.get());
+            HashMap<String, Source> byObject = new HashMap<>();
+            JSONAPIPage[] apis = new JSONAPIPage[sources.size()];
+            for (int i = 0; i < apis.length; i++) {
+                apis[i] = sources.get(i).api;
+                byObject.put(apis[i].object, sources.get(i));
             }
-            System.out.println(names.get(i) + ".json");
-            try (PrintWriter out = new PrintWriter(js + "\\" + names.get(i) + ".json")) {
-                out.println(json.get(i));
+            String settings = hash(pack + "\n" + JSONIndents + "\n" + views + "\n" + lazyValues + "\n" + base.getClass().getName() + "\n" +
+                    base.makeURL("category", 1) + "\n" + new TreeMap<>(alternates) + "\n" + hash(readGenerator()));
+            JSONObject manifest = readManifest(new File(root, MANIFEST));
+            JSONObject oldClasses = manifest.optJSONObject("classes");
+            JSONObject classes = new JSONObject();
+            JSONObject files = new JSONObject();
+            for (Source i : sources)
+                files.put(i.file.getName(), i.hash);
+            ClassCreator cc = new ClassCreator(apis, pack, lazyValues);
+            ArrayList<JSONAPIPage> changed = new ArrayList<>();
+            for (JSONAPIPage i : apis) {
+                if (i.inside != null)
+                    continue;
+                StringBuilder key = new StringBuilder(settings);
+                for (String j : getDependencies(i, apis))
+                    key.append('\n').append(j).append(' ').append(byObject.containsKey(j) ? byObject.get(j).hash : "missing");
+                String classKey = hash(key.toString());
+                classes.put(i.object, classKey);
+                boolean made = new File(src, i.object + ".java").isFile() && new File(js, i.object + ".json").isFile() &&
+                        (!views || new File(src, i.object + "View.java").isFile());
+                if (!made || oldClasses == null || !classKey.equals(oldClasses.optString(i.object)))
+                    changed.add(i);
             }
+            System.out.println("Making " + changed.size() + " of " + classes.length() + " classes");
+            for (Future<Void> i : ClassFromJSONAPI.<JSONAPIPage, Void>submitAll(pool, changed, api -> {
+                save(new File(src, api.object + ".java"), cc.makeClass(api));
+                if (views)
+                    save(new File(src, api.object + "View.java"), cc.makeView(api));
+                save(new File(js, api.object + ".json"), cc.blankJSON(api, base).toString(JSONIndents));
+                return null;
+            }))
+                i.get();
+            // Printed once every worker is done, so the lines don't interleave.
+            for (JSONAPIPage i : changed)
+                System.out.println(i.object + ".java" + (views ? ", " + i.object + "View.java" : "") + ", " + i.object + ".json");
+            save(new File(root, MANIFEST), new JSONObject().put("settings", settings).put("files", files).put("classes", classes).toString(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while making classes in " + folder, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Could not make classes in " + folder, e.getCause());
+        } finally {
+            pool.shutdownNow();
         }
     }
 
-    private static JSONAPIPage read(File file, URLEncoder base) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(file));
-        String json;
-        try {
-            StringBuilder sb = new StringBuilder();
-            String line = reader.readLine();
+    /**
+     * Get the APIs a class is made from: its own, the ones inside it, and the types of their values, and so on for each of those.
+     *
+     * @param api  The API of the class.
+     * @param apis Every API.
+     * @return The object names of the APIs, sorted. Types that aren't simple values or in the list are included too.
+     */
+    private static TreeSet<String> getDependencies(JSONAPIPage api, JSONAPIPage[] apis) {
+        TreeSet<String> out = new TreeSet<>();
+        ArrayDeque<String> next = new ArrayDeque<>();
+        next.add(api.object);
+        while (!next.isEmpty()) {
+            String object = next.poll();
+            if (!out.add(object))
+                continue;
+            for (JSONAPIPage i : apis) {
+                if (object.equals(i.inside))
+                    next.add(i.object);
+                if (!i.object.equals(object))
+                    continue;
+                for (JSONAPIValue j : i.values) {
+                    boolean simple = false;
+                    for (String k : ClassCreator.simpleValues)
+                        simple |= k.equalsIgnoreCase(j.type);
+                    if (!simple)
+                        next.add(j.type);
+                }
+            }
+        }
+        return out;
+    }
 
-            while (line != null) {
-                sb.append(line);
-                sb.append("\n");
-                line = reader.readLine();
+    private static <T, R> ArrayList<Future<R>> submitAll(ExecutorService pool, List<T> list, Task<T, R> task) {
+        ArrayList<Future<R>> out = new ArrayList<>();
+        for (T i : list)
+            out.add(pool.submit(() -> task.run(i)));
+        return out;
+    }
+
+    /**
+     * Get the API files in a folder, sorted by name. The manifest and other hidden files are skipped.
+     */
+    private static List<File> listFiles(File folder) {
+        File[] files = folder.listFiles();
+        ArrayList<File> out = new ArrayList<>();
+        if (files != null) {
+            for (File i : files) {
+                if (i.isFile() && !i.getName().startsWith("."))
+                    out.add(i);
             }
-            json = sb.toString();
-        } finally {
-            reader.close();
         }
-        JSONObject j = new JSONObject(json);
+        out.sort(Comparator.comparing(File::getName));
+        return out;
+    }
+
+    private static Source read(File file, URLEncoder base) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        JSONObject j = new JSONObject(new String(bytes, StandardCharsets.UTF_8));
         JSONArray a = j.getJSONArray("values");
         for (int i = 0; i < a.length(); i++) {
             JSONObject js = a.getJSONObject(i);
@@ -94,20 +230,72 @@ public class ClassFromJSONAPI {
             js.put("type", alternates.getOrDefault(sr, sr));
         }
         j.put("values", a);
-        return new JSONAPIPage(j, base);
+        return new Source(file, hash(bytes), new JSONAPIPage(j, base));
     }
 
-    private static ArrayList<JSONAPIPage> readFiles(String path, URLEncoder base) throws IOException {
-        File folder = new File(path);
-        File[] listOfFiles = folder.listFiles();
-        ArrayList<JSONAPIPage> out = new ArrayList<>();
-        if (listOfFiles != null) {
-            for (File i : listOfFiles) {
-                if (i.isFile())
-                    out.add(read(i, base));
-            }
+    private static JSONObject readManifest(File file) {
+        if (!file.isFile())
+            return new JSONObject();
+        try {
+            return new JSONObject(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            return new JSONObject();
+        }
+    }
+
+    /**
+     * Read the compiled ClassCreator, so a new version of it makes every class again.
+     */
+    private static byte[] readGenerator() throws IOException {
+        try (InputStream in = ClassCreator.class.getResourceAsStream("ClassCreator.class")) {
+            return in == null ? new byte[0] : URLEncoder.readBytes(in, -1);
+        }
+    }
+
+    private static void save(File file, String text) throws IOException {
+        Files.write(file.toPath(), (text + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hash(String text) {
+        return hash(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hash(byte[] bytes) {
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        StringBuilder out = new StringBuilder(hash.length * 2);
+        for (byte i : hash)
+            out.append(Character.forDigit((i >> 4) & 15, 16)).append(Character.forDigit(i & 15, 16));
+        return out.toString();
+    }
+
+    /**
+     * Work done for each item on the pool, which can throw an IOException.
+     */
+    private interface Task<T, R> {
+        R run(T item) throws IOException;
+    }
+
+    /**
+     * An API read from a file.
+     */
+    private static class Source {
+        private final File file;
+        /**
+         * The hash of the file's bytes.
+         */
+        private final String hash;
+        private final JSONAPIPage api;
+
+        private Source(File file, String hash, JSONAPIPage api) {
+            this.file = file;
+            this.hash = hash;
+            this.api = api;
         }
-        return out;
     }
 
     private static class Link extends URLEncoder.URLLink {
@@ -0,0 +1,151 @@
+package com.thegreatsynan.jsonData;
+
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The values of a page to fetch and decode, when only a few of them are needed.
+ * Pages are always given their name and id. Checked against the API of the type, so a misspelled key fails straight away.
+ * <p>
+ * Pass one to JSONPage.get to load a partial page: GeneralURLEncoder asks the server for only those values with a "fields" parameter,
+ * which BaseServer understands, and only the chosen keys are decoded from what comes back, even if the server sent everything.
+ * The values left out are null in the page, or -1 for single links.
+ */
+public class FieldSet {
+    /**
+     * The URL parameter the keys are sent in, split by commas.
+     */
+    public static final String PARAMETER = "fields";
+
+    /**
+     * The category of the pages.
+     */
+    public final String category;
+    /**
+     * The keys chosen, in the order of the API, always with name and id for pages.
+     */
+    private final String[] keys;
+    private final Set<String> lookup;
+
+    /**
+     * @param api  The API of the type the values are in.
+     * @param keys The keys of the values to fetch.
+     * @throws IllegalArgumentException If the API has no value with one of the keys.
+     */
+    public FieldSet(JSONAPIPage api, String... keys) {
+        HashSet<String> chosen = new HashSet<>(Arrays.asList(keys));
+        HashSet<String> known = new HashSet<>();
+        for (JSONAPIValue i : api.values)
+            known.add(i.key);
+        if (api.category != null)
+            known.addAll(Arrays.asList(ClassCreator.defaultPageVars));
+        for (String i : chosen) {
+            if (!known.contains(i))
+                throw new IllegalArgumentException(api.object + " has no value " + i);
+        }
+        if (api.category != null)
+            chosen.addAll(Arrays.asList(ClassCreator.defaultPageVars));
+        ArrayList<String> ordered = new ArrayList<>();
+        for (JSONAPIValue i : api.values) {
+            if (chosen.contains(i.key))
+                ordered.add(i.key);
+        }
+        for (String i : ClassCreator.defaultPageVars) {
+            if (chosen.contains(i) && !ordered.contains(i))
+                ordered.add(i);
+        }
+        this.category = api.category;
+        this.keys = ordered.toArray(new String[0]);
+        this.lookup = Collections.unmodifiableSet(new HashSet<>(ordered));
+    }
+
+    /**
+     * @param key The key of a value.
+     * @return True if the value is fetched.
+     */
+    public boolean contains(String key) {
+        return lookup.contains(key);
+    }
+
+    /**
+     * @param other Another set of values.
+     * @return True if every value in the other set is in this one too.
+     */
+    public boolean containsAll(FieldSet other) {
+        return lookup.containsAll(other.lookup);
+    }
+
+    /**
+     * @return The keys chosen, in the order of the API.
+     */
+    public List<String> getKeys() {
+        return Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    /**
+     * @return The keys as the value of the URL parameter.
+     */
+    public String toParameter() {
+        return String.join(",", keys);
+    }
+
+    /**
+     * Copy only the chosen values out of a JSONObject. With JSONTape objects, the values left out are never decoded.
+     *
+     * @param json The full or partial JSON of a page.
+     * @return The chosen values, marked so the page made from them knows it's partial.
+     */
+    public JSONObject select(JSONObject json) {
+        Selected out = new Selected(this);
+        for (String i : keys) {
+            Object value = json.opt(i);
+            if (value != null)
+                out.put(i, value);
+        }
+        return out;
+    }
+
+    /**
+     * Copy only some values out of a JSONObject, by keys sent in a URL parameter. Used by servers, where the type may not be known.
+     *
+     * @param json      The full JSON of a page.
+     * @param parameter The keys split by commas.
+     * @return The chosen values, with name and id as well.
+     */
+    static JSONObject select(JSONObject json, String parameter) {
+        JSONObject out = new JSONObject();
+        for (String i : ClassCreator.defaultPageVars) {
+            if (json.has(i))
+                out.put(i, json.get(i));
+        }
+        for (String i : parameter.split(",")) {
+            Object value = json.opt(i.trim());
+            if (value != null)
+                out.put(i.trim(), value);
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return category + "[" + toParameter() + "]";
+    }
+
+    /**
+     * A JSONObject holding only the values of a FieldSet.
+     */
+    static class Selected extends JSONObject {
+        final FieldSet fields;
+
+        private Selected(FieldSet fields) {
+            this.fields = fields;
+        }
+    }
+}
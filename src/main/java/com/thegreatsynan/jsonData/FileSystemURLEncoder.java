@@ -0,0 +1,372 @@
+package com.thegreatsynan.jsonData;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A GeneralURLEncoder that loads pages from a local folder instead of over HTTP, for offline loading and testing.
+ * Links are read and written the same as GeneralURLEncoder, so dumps of a real API load unchanged.
+ * <p>
+ * Pages are found either as root/category/id.json, or as lines of packed files, root/category.ndjson or any .ndjson file
+ * in root/category, one JSON object per line like BaseServer's export. Packed files are memory-mapped and indexed by scan,
+ * after which each page is read straight out of the mapping. Single files are found by name without a scan;
+ * big ones are memory-mapped, small ones are read in one call, since mapping every small file would use up the process's mappings.
+ */
+public class FileSystemURLEncoder extends GeneralURLEncoder {
+    /**
+     * Files at least this big are memory-mapped instead of read.
+     */
+    private static final int MAP_SIZE = 1 << 16;
+    /**
+     * Packed files are indexed in chunks of about this many bytes, so one big file can use every thread.
+     */
+    private static final int CHUNK_SIZE = 1 << 23;
+    /**
+     * The folder the pages are kept in.
+     */
+    public final File root;
+    /**
+     * Where each page found by scan is, by category then id.
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Entry>> index = new ConcurrentHashMap<>();
+
+    /**
+     * @param root         The folder the pages are kept in.
+     * @param urlBase      The first part of the URLs the pages link to each other with.
+     * @param urlObjectKey The key the url is stored in when links get a full object. If null, URLs will just be stored as strings.
+     * @param lazyJSON     If true, loaded JSON is parsed with JSONTape, so values are only built when they are read.
+     */
+    public FileSystemURLEncoder(File root, String urlBase, String urlObjectKey, boolean lazyJSON) {
+        super(urlBase, urlObjectKey, null, lazyJSON);
+        this.root = root;
+    }
+
+    /**
+     * Use the folder's own file URL as the URL base.
+     *
+     * @param root   The folder the pages are kept in.
+     * @param object If true, links are objects with the URL under "url". If false, they are just URL strings.
+     */
+    public FileSystemURLEncoder(File root, boolean object) {
+        this(root, root.toURI().toString(), object ? "url" : null, true);
+    }
+
+    /**
+     * Index every page in the folder, listing categories and indexing packed files on many threads at once.
+     * Pages found in packed files are used before single files with the same id.
+     *
+     * @param threads How many threads to scan with.
+     * @return How many pages were found.
+     * @throws IOException If the folder or a packed file can't be read.
+     */
+    public int scan(int threads) throws IOException {
+        File[] files = root.listFiles();
+        if (files == null)
+            throw new FileNotFoundException(root + " is not a folder");
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            ArrayList<Future<ArrayList<Chunk>>> lists = new ArrayList<>();
+            ArrayList<Chunk> chunks = new ArrayList<>();
+            for (File i : files) {
+                String name = i.getName();
+                if (i.isDirectory())
+                    lists.add(pool.submit(() -> scanCategory(i)));
+                else if (name.endsWith(".ndjson"))
+                    chunks.addAll(split(name.substring(0, name.length() - 7), i));
+            }
+            for (Future<ArrayList<Chunk>> i : lists)
+                chunks.addAll(i.get());
+            ArrayList<Future<Integer>> packed = new ArrayList<>();
+            for (Chunk i : chunks)
+                packed.add(pool.submit(() -> indexChunk(i)));
+            for (Future<Integer> i : packed)
+                i.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning " + root, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IOException("Could not scan " + root, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        int out = 0;
+        for (ConcurrentHashMap<Integer, Entry> i : index.values())
+            out += i.size();
+        return out;
+    }
+
+    /**
+     * @return Every category found by scan.
+     */
+    public Set<String> getCategories() {
+        return new HashSet<>(index.keySet());
+    }
+
+    /**
+     * @param category The category to look in.
+     * @return The ids of every page found in the category by scan, in order.
+     */
+    public int[] getIDs(String category) {
+        ConcurrentHashMap<Integer, Entry> map = index.get(category);
+        if (map == null)
+            return new int[0];
+        int[] out = new int[map.size()];
+        int size = 0;
+        for (Integer i : map.keySet()) {
+            if (size == out.length)
+                out = Arrays.copyOf(out, size * 2 + 1);
+            out[size++] = i;
+        }
+        out = Arrays.copyOf(out, size);
+        Arrays.sort(out);
+        return out;
+    }
+
+    @Override
+    public JSONObject loadJSON(String url) throws IOException {
+        PageMetrics metrics = JSONPage.getMetrics();
+        Object event = FlightEvents.beginLoad();
+        long start = System.nanoTime();
+        String category = getCategory(url);
+        int id = getID(url);
+        ConcurrentHashMap<Integer, Entry> map = index.get(category);
+        Entry entry = map == null ? null : map.get(id);
+        byte[] bytes;
+        if (entry != null && entry.packed != null) {
+            bytes = new byte[entry.length];
+            ByteBuffer line = entry.packed.duplicate();
+            line.position(entry.offset);
+            line.get(bytes);
+        } else
+            bytes = read(entry != null ? entry.file : new File(new File(root, category), id + ".json"));
+        long read = System.nanoTime();
+        metrics.fetched(category, read - start, bytes.length);
+        JSONObject out;
+        try {
+            out = parseObject(bytes);
+        } catch (JSONException e) {
+            throw new IOException("Could not parse " + url, e);
+        }
+        metrics.parsed(category, System.nanoTime() - read);
+        FlightEvents.endLoad(event, category, url, bytes.length);
+        return out;
+    }
+
+    /**
+     * Reads the whole file, since there is no server to leave values out. Only the chosen values are decoded.
+     */
+    @Override
+    public JSONObject loadJSON(String category, int id, FieldSet fields) throws IOException {
+        return fields.select(loadJSON(makeURL(category, id)));
+    }
+
+    /**
+     * Read a whole file, mapping it if it's big.
+     *
+     * @param file The file to read.
+     * @return The bytes of the file.
+     * @throws IOException If the file can't be read.
+     */
+    private static byte[] read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + " is too big to load");
+            byte[] out = new byte[(int) size];
+            if (size >= MAP_SIZE) {
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, size).get(out);
+                return out;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(out);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    throw new IOException(file + " got shorter while being read");
+            }
+            return out;
+        }
+    }
+
+    private ConcurrentHashMap<Integer, Entry> getCategoryMap(String category) {
+        ConcurrentHashMap<Integer, Entry> out = index.get(category);
+        if (out == null) {
+            out = new ConcurrentHashMap<>();
+            ConcurrentHashMap<Integer, Entry> old = index.putIfAbsent(category, out);
+            if (old != null)
+                out = old;
+        }
+        return out;
+    }
+
+    /**
+     * Index the single files in a category folder, and split its packed files into chunks to index.
+     *
+     * @param folder The category folder.
+     * @return The chunks of the packed files in the folder.
+     * @throws IOException If a packed file can't be mapped.
+     */
+    private ArrayList<Chunk> scanCategory(File folder) throws IOException {
+        String category = folder.getName();
+        ConcurrentHashMap<Integer, Entry> map = getCategoryMap(category);
+        ArrayList<Chunk> out = new ArrayList<>();
+        File[] files = folder.listFiles();
+        if (files == null)
+            return out;
+        for (File i : files) {
+            String name = i.getName();
+            if (name.endsWith(".ndjson"))
+                out.addAll(split(category, i));
+            else if (name.endsWith(".json")) {
+                try {
+                    map.putIfAbsent(Integer.parseInt(name.substring(0, name.length() - 5)), new Entry(i));
+                } catch (NumberFormatException e) {
+                    // Not a page; skip it.
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Map a packed file and split it into chunks that each start at the beginning of a line.
+     *
+     * @param category The category the pages in the file are in.
+     * @param file     The packed file.
+     * @return The chunks of the file.
+     * @throws IOException If the file can't be mapped.
+     */
+    private static ArrayList<Chunk> split(String category, File file) throws IOException {
+        ByteBuffer mapped;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            long size = raf.length();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + " is too big to map");
+            mapped = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ArrayList<Chunk> out = new ArrayList<>();
+        int limit = mapped.limit();
+        int start = 0;
+        while (start < limit) {
+            int end = Math.min(limit, start + CHUNK_SIZE);
+            while (end < limit && mapped.get(end - 1) != '\n')
+                end++;
+            out.add(new Chunk(category, file, mapped, start, end));
+            start = end;
+        }
+        return out;
+    }
+
+    /**
+     * Index every line in a chunk of a packed file by the page's id.
+     *
+     * @param chunk The chunk to index.
+     * @return How many pages were in the chunk.
+     * @throws IOException If a line isn't a page.
+     */
+    private int indexChunk(Chunk chunk) throws IOException {
+        ConcurrentHashMap<Integer, Entry> map = getCategoryMap(chunk.category);
+        ByteBuffer data = chunk.data;
+        int count = 0;
+        int start = chunk.start;
+        while (start < chunk.end) {
+            int end = start;
+            while (end < chunk.end && data.get(end) != '\n')
+                end++;
+            int length = end - start;
+            if (length > 0 && data.get(end - 1) == '\r')
+                length--;
+            if (!isBlank(data, start, length)) {
+                byte[] line = new byte[length];
+                ByteBuffer view = data.duplicate();
+                view.position(start);
+                view.get(line);
+                int id;
+                try {
+                    id = JSONTape.parseObject(line).getInt("id");
+                } catch (JSONException e) {
+                    throw new IOException("Bad page at byte " + start + " of " + chunk.file, e);
+                }
+                map.put(id, new Entry(data, start, length));
+                count++;
+            }
+            start = end + 1;
+        }
+        return count;
+    }
+
+    private static boolean isBlank(ByteBuffer data, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            byte c = data.get(i);
+            if (c != ' ' && c != '\t' && c != '\r')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Where one page is kept.
+     */
+    private static class Entry {
+        /**
+         * The page's own file. Null if it is in a packed file.
+         */
+        private final File file;
+        /**
+         * The mapped packed file the page is in. Null if it has its own file.
+         */
+        private final ByteBuffer packed;
+        private final int offset;
+        private final int length;
+
+        private Entry(File file) {
+            this.file = file;
+            this.packed = null;
+            this.offset = 0;
+            this.length = 0;
+        }
+
+        private Entry(ByteBuffer packed, int offset, int length) {
+            this.file = null;
+            this.packed = packed;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A run of whole lines in a packed file, indexed on its own thread.
+     */
+    private static class Chunk {
+        private final String category;
+        private final File file;
+        private final ByteBuffer data;
+        private final int start;
+        private final int end;
+
+        private Chunk(String category, File file, ByteBuffer data, int start, int end) {
+            this.category = category;
+            this.file = file;
+            this.data = data;
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
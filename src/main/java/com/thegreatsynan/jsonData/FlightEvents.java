@@ -0,0 +1,241 @@
+package com.thegreatsynan.jsonData;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events for page loads, page construction, registry lookups and class generation,
+ * so a recording can show which loads were slow next to the GC and I/O going on at the time.
+ * Events are only made while a recording has them turned on; otherwise each call is one check.
+ * On a Java without Flight Recorder, every method does nothing.
+ * <p>
+ * Registry hits happen far too often to record by default. Turn on com.thegreatsynan.jsonData.RegistryHit in the recording settings to see them.
+ */
+final class FlightEvents {
+    /**
+     * If the running Java has Flight Recorder.
+     */
+    private static final boolean AVAILABLE = isAvailable();
+
+    private FlightEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Start timing a load. Pass what this returns to endLoad.
+     *
+     * @return The event, or null if it isn't being recorded.
+     */
+    static Object beginLoad() {
+        if (!AVAILABLE)
+            return null;
+        return Events.beginLoad();
+    }
+
+    /**
+     * @param event    What beginLoad returned.
+     * @param category The category of the pages.
+     * @param url      The URL loaded.
+     * @param bytes    How many bytes were loaded.
+     */
+    static void endLoad(Object event, String category, String url, long bytes) {
+        if (event != null)
+            Events.endLoad(event, category, url, bytes);
+    }
+
+    /**
+     * Start timing a page's constructor. Pass what this returns to endCreate.
+     *
+     * @return The event, or null if it isn't being recorded.
+     */
+    static Object beginCreate() {
+        if (!AVAILABLE)
+            return null;
+        return Events.beginCreate();
+    }
+
+    /**
+     * @param event    What beginCreate returned.
+     * @param category The category of the page.
+     * @param page     The page made, or null if it couldn't be.
+     */
+    static void endCreate(Object event, String category, JSONPage page) {
+        if (event != null)
+            Events.endCreate(event, category, page);
+    }
+
+    /**
+     * Record a JSONPage.get lookup.
+     *
+     * @param category The category of the page.
+     * @param id       The id of the page.
+     * @param hit      If the page was already loaded.
+     */
+    static void lookup(String category, int id, boolean hit) {
+        if (AVAILABLE)
+            Events.lookup(category, id, hit);
+    }
+
+    /**
+     * Start timing a class being generated. Pass what this returns to endMakeClass.
+     *
+     * @return The event, or null if it isn't being recorded.
+     */
+    static Object beginMakeClass() {
+        if (!AVAILABLE)
+            return null;
+        return Events.beginMakeClass();
+    }
+
+    /**
+     * @param event     What beginMakeClass returned.
+     * @param className The class made.
+     * @param length    How many characters of code were made.
+     */
+    static void endMakeClass(Object event, String className, int length) {
+        if (event != null)
+            Events.endMakeClass(event, className, length);
+    }
+
+    /**
+     * Everything that uses Flight Recorder classes, kept apart so it's only loaded when they exist.
+     */
+    private static final class Events {
+        private static Object beginLoad() {
+            LoadEvent event = new LoadEvent();
+            if (!event.isEnabled())
+                return null;
+            event.begin();
+            return event;
+        }
+
+        private static void endLoad(Object value, String category, String url, long bytes) {
+            LoadEvent event = (LoadEvent) value;
+            event.end();
+            if (event.shouldCommit()) {
+                event.category = category;
+                event.url = url;
+                event.bytes = bytes;
+                event.commit();
+            }
+        }
+
+        private static Object beginCreate() {
+            CreateEvent event = new CreateEvent();
+            if (!event.isEnabled())
+                return null;
+            event.begin();
+            return event;
+        }
+
+        private static void endCreate(Object value, String category, JSONPage page) {
+            CreateEvent event = (CreateEvent) value;
+            event.end();
+            if (event.shouldCommit()) {
+                event.category = category;
+                event.id = page == null ? -1 : page.id;
+                event.commit();
+            }
+        }
+
+        private static void lookup(String category, int id, boolean hit) {
+            LookupEvent event = hit ? new HitEvent() : new MissEvent();
+            if (event.shouldCommit()) {
+                event.category = category;
+                event.id = id;
+                event.commit();
+            }
+        }
+
+        private static Object beginMakeClass() {
+            MakeClassEvent event = new MakeClassEvent();
+            if (!event.isEnabled())
+                return null;
+            event.begin();
+            return event;
+        }
+
+        private static void endMakeClass(Object value, String className, int length) {
+            MakeClassEvent event = (MakeClassEvent) value;
+            event.end();
+            if (event.shouldCommit()) {
+                event.className = className;
+                event.length = length;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("com.thegreatsynan.jsonData.Load")
+    @Label("Page Load")
+    @Category("JSON Data")
+    @Description("JSON loaded by a URLEncoder, from the start of the request to the end of the parse")
+    private static class LoadEvent extends Event {
+        @Label("Category")
+        private String category;
+        @Label("URL")
+        private String url;
+        @Label("Bytes")
+        @DataAmount
+        private long bytes;
+    }
+
+    @Name("com.thegreatsynan.jsonData.Create")
+    @Label("Page Construction")
+    @Category("JSON Data")
+    @Description("A page made from its JSON and added to the registry")
+    private static class CreateEvent extends Event {
+        @Label("Category")
+        private String category;
+        @Label("ID")
+        private int id;
+    }
+
+    @Category("JSON Data")
+    @StackTrace(false)
+    private static abstract class LookupEvent extends Event {
+        @Label("Category")
+        protected String category;
+        @Label("ID")
+        protected int id;
+    }
+
+    @Name("com.thegreatsynan.jsonData.RegistryHit")
+    @Label("Registry Hit")
+    @Description("A page asked for with JSONPage.get that was already loaded")
+    @Enabled(false)
+    private static class HitEvent extends LookupEvent {
+    }
+
+    @Name("com.thegreatsynan.jsonData.RegistryMiss")
+    @Label("Registry Miss")
+    @Description("A page asked for with JSONPage.get that had to be loaded")
+    private static class MissEvent extends LookupEvent {
+    }
+
+    @Name("com.thegreatsynan.jsonData.MakeClass")
+    @Label("Make Class")
+    @Category("JSON Data")
+    @Description("Java code generated for one API by ClassCreator.makeClass")
+    private static class MakeClassEvent extends Event {
+        @Label("Class")
+        private String className;
+        @Label("Length")
+        @Description("Characters of code made")
+        private int length;
+    }
+}
@@ -3,12 +3,15 @@ package com.thegreatsynan.jsonData;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A good URLEncoder to use for most cases. Handles URLs as direct strings, as well as objects with both the URL and the name of the object.
@@ -27,6 +30,42 @@ public class GeneralURLEncoder extends URLEncoder {
      * The value to set the User-Agent when making GET calls to help prevent 403 errors. If null, this value won't be set.
      */
     public final String userAgent;
+    /**
+     * If true, loaded JSON is parsed with JSONTape, so values are only built when they are read.
+     */
+    public final boolean lazyJSON;
+    /**
+     * If true, the server is a BaseServer, so many objects can be loaded with one batch request.
+     */
+    public final boolean batchLoads;
+    /**
+     * If not null, single objects are asked for in the BinaryCodec form, and read with this when the server sends it.
+     */
+    public final BinaryCodec codec;
+    /**
+     * The most ids sent in one batch request, to keep the URL short.
+     */
+    private static final int BATCH_SIZE = 500;
+    /**
+     * How many categories are given a number for pooling their links.
+     */
+    private static final int MAX_CATEGORIES = 1024;
+    /**
+     * The number of each category seen in a link, by category.
+     */
+    private final ConcurrentHashMap<String, CategoryIndex> categories = new ConcurrentHashMap<>();
+    /**
+     * The next index handed out to a new category.
+     */
+    private final AtomicInteger nextCategory = new AtomicInteger();
+    /**
+     * The pool of links still in use, by packed category index and id.
+     */
+    private final ConcurrentHashMap<Long, LinkReference> links = new ConcurrentHashMap<>();
+    /**
+     * Where the references of collected links are queued, so they can be removed from the pool.
+     */
+    private final ReferenceQueue<Linked> collected = new ReferenceQueue<>();
 
     /**
      * @param urlBase      The first part of the URL. Usually the website and opening values.
@@ -34,9 +73,45 @@ public class GeneralURLEncoder extends URLEncoder {
      * @param userAgent    The value to set the User-Agent when making GET calls to help prevent 403 errors. If null, this value won't be set.
      */
     public GeneralURLEncoder(String urlBase, String urlObjectKey, String userAgent) {
+        this(urlBase, urlObjectKey, userAgent, false);
+    }
+
+    /**
+     * @param urlBase      The first part of the URL. Usually the website and opening values.
+     * @param urlObjectKey The key the url is stored in when links get a full object. If null, URLs will just be stored as strings.
+     * @param userAgent    The value to set the User-Agent when making GET calls to help prevent 403 errors. If null, this value won't be set.
+     * @param lazyJSON     If true, loaded JSON is parsed with JSONTape, so values are only built when they are read.
+     */
+    public GeneralURLEncoder(String urlBase, String urlObjectKey, String userAgent, boolean lazyJSON) {
+        this(urlBase, urlObjectKey, userAgent, lazyJSON, false);
+    }
+
+    /**
+     * @param urlBase      The first part of the URL. Usually the website and opening values.
+     * @param urlObjectKey The key the url is stored in when links get a full object. If null, URLs will just be stored as strings.
+     * @param userAgent    The value to set the User-Agent when making GET calls to help prevent 403 errors. If null, this value won't be set.
+     * @param lazyJSON     If true, loaded JSON is parsed with JSONTape, so values are only built when they are read.
+     * @param batchLoads   If true, the server is a BaseServer, so many objects can be loaded with one batch request.
+     */
+    public GeneralURLEncoder(String urlBase, String urlObjectKey, String userAgent, boolean lazyJSON, boolean batchLoads) {
+        this(urlBase, urlObjectKey, userAgent, lazyJSON, batchLoads, null);
+    }
+
+    /**
+     * @param urlBase      The first part of the URL. Usually the website and opening values.
+     * @param urlObjectKey The key the url is stored in when links get a full object. If null, URLs will just be stored as strings.
+     * @param userAgent    The value to set the User-Agent when making GET calls to help prevent 403 errors. If null, this value won't be set.
+     * @param lazyJSON     If true, loaded JSON is parsed with JSONTape, so values are only built when they are read.
+     * @param batchLoads   If true, the server is a BaseServer, so many objects can be loaded with one batch request.
+     * @param codec        If not null, single objects are asked for in the BinaryCodec form, and read with this when the server sends it.
+     */
+    public GeneralURLEncoder(String urlBase, String urlObjectKey, String userAgent, boolean lazyJSON, boolean batchLoads, BinaryCodec codec) {
         this.urlBase = urlBase;
         this.urlObjectKey = urlObjectKey;
         this.userAgent = userAgent;
+        this.lazyJSON = lazyJSON;
+        this.batchLoads = batchLoads;
+        this.codec = codec;
     }
 
     /**
@@ -59,6 +134,9 @@ public class GeneralURLEncoder extends URLEncoder {
         this.urlObjectKey = json.getString("urlObjectKey");
         this.urlBase = json.getString("urlBase");
         this.userAgent = json.getString("userAgent");
+        this.lazyJSON = json.optBoolean("lazyJSON");
+        this.batchLoads = json.optBoolean("batchLoads");
+        this.codec = null;
     }
 
 
@@ -73,43 +151,213 @@ public class GeneralURLEncoder extends URLEncoder {
 
     @Override
     public String getCategory(String url) {
-        String full = url;
-        if (!url.startsWith(urlBase))
-            throw new MalformedURLException(full);
-        url = url.substring(0, urlBase.length());
-        String category = url.substring(0, url.indexOf("/"));
-        if (category.length() == 0 || category.length() == url.length())
-            throw new MalformedURLException(full);
-        return category;
+        return url.substring(urlBase.length(), splitIndex(url));
+    }
+
+    @Override
+    public String getCategory(URLLink link) {
+        if (link instanceof Linked)
+            return ((Linked) link).category;
+        return super.getCategory(link);
     }
 
     @Override
     public int getID(String url) {
-        String full = url;
-        url = url.substring(urlBase.length() + 1);
-        url = url.substring(url.indexOf("/") + 1);
+        return getID(url, splitIndex(url));
+    }
+
+    /**
+     * @param url   The full URL of the object.
+     * @param split The index of the slash before the id.
+     * @return The id of the object.
+     */
+    private int getID(String url, int split) {
         try {
-            return Integer.parseInt(url);
+            return Integer.parseInt(url.substring(split + 1));
         } catch (NumberFormatException e) {
-            throw new MalformedURLException(full);
+            throw new MalformedURLException(url);
+        }
+    }
+
+    @Override
+    public int getID(URLLink link) {
+        if (link instanceof Linked)
+            return ((Linked) link).id;
+        return super.getID(link);
+    }
+
+    /**
+     * Checks the URL in place, without cutting it up or interning the link.
+     */
+    @Override
+    public boolean isLink(Object value, String category) {
+        if (urlObjectKey != null)
+            value = value instanceof JSONObject ? ((JSONObject) value).opt(urlObjectKey) : null;
+        if (!(value instanceof String))
+            return false;
+        String url = (String) value;
+        int split = urlBase.length() + category.length();
+        if (url.length() <= split + 1 || !url.startsWith(urlBase) || !url.startsWith(category, urlBase.length()) || url.charAt(split) != '/')
+            return false;
+        long id = 0;
+        for (int i = split + 1; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+            id = id * 10 + (c - '0');
+            if (id > Integer.MAX_VALUE)
+                return false;
         }
+        return true;
+    }
+
+    /**
+     * Find the slash between the category and the id of a URL.
+     *
+     * @param url The full URL of the object.
+     * @return The index of the slash.
+     */
+    private int splitIndex(String url) {
+        if (!url.startsWith(urlBase))
+            throw new MalformedURLException(url);
+        int split = url.indexOf('/', urlBase.length());
+        if (split <= urlBase.length() || split == url.length() - 1)
+            throw new MalformedURLException(url);
+        return split;
     }
 
+    /**
+     * Loads any URL. URLs outside urlBase are recorded under the category "unknown" and never asked for in binary,
+     * since the codec needs the category to decode them.
+     */
     @Override
     public JSONObject loadJSON(String url) throws IOException {
+        PageMetrics metrics = JSONPage.getMetrics();
+        String known = findCategory(url);
+        String category = known == null ? "unknown" : known;
+        Object event = FlightEvents.beginLoad();
+        long start = System.nanoTime();
+        URLConnection connection = open(url, codec != null && known != null);
+        byte[] bytes = read(connection);
+        long fetched = System.nanoTime();
+        metrics.fetched(category, fetched - start, bytes.length);
+        String type = connection.getContentType();
+        JSONObject out;
+        if (codec != null && type != null && type.startsWith(BinaryCodec.MEDIA_TYPE)) {
+            try {
+                out = codec.decode(bytes, category, this);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Could not decode " + url, e);
+            }
+        } else
+            out = parseObject(bytes);
+        metrics.parsed(category, System.nanoTime() - fetched);
+        FlightEvents.endLoad(event, category, url, bytes.length);
+        return out;
+    }
+
+    /**
+     * Find the category of a URL without throwing, for recording loads.
+     *
+     * @param url The full URL.
+     * @return The category, or null if the URL isn't under urlBase.
+     */
+    private String findCategory(String url) {
+        int split = url.startsWith(urlBase) ? url.indexOf('/', urlBase.length()) : -1;
+        return split > urlBase.length() ? url.substring(urlBase.length(), split) : null;
+    }
+
+    /**
+     * Asks the server for only the chosen values with a FieldSet parameter. Servers that ignore it send everything,
+     * and the values left out are dropped without being decoded.
+     */
+    @Override
+    public JSONObject loadJSON(String category, int id, FieldSet fields) throws IOException {
+        String url = makeURL(category, id) + "?" + FieldSet.PARAMETER + "=" + java.net.URLEncoder.encode(fields.toParameter(), "UTF-8");
+        return fields.select(loadJSON(url));
+    }
+
+    /**
+     * Parse a loaded JSON object, lazily if lazyJSON is set.
+     *
+     * @param bytes The UTF-8 JSON.
+     * @return The JSONObject for converting.
+     */
+    protected JSONObject parseObject(byte[] bytes) {
+        if (lazyJSON)
+            return JSONTape.parseObject(bytes);
+        return new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public JSONObject[] loadJSON(String category, int[] ids) throws IOException {
+        if (!batchLoads)
+            return super.loadJSON(category, ids);
+        PageMetrics metrics = JSONPage.getMetrics();
+        JSONObject[] out = new JSONObject[ids.length];
+        String start = urlBase + BaseServer.BATCH_PATH + "?category=" + java.net.URLEncoder.encode(category, "UTF-8") + "&ids=";
+        for (int first = 0; first < ids.length; first += BATCH_SIZE) {
+            int last = Math.min(ids.length, first + BATCH_SIZE);
+            StringBuilder url = new StringBuilder(start);
+            for (int i = first; i < last; i++) {
+                if (i > first)
+                    url.append(',');
+                url.append(ids[i]);
+            }
+            Object event = FlightEvents.beginLoad();
+            long time = System.nanoTime();
+            byte[] bytes = download(url.toString());
+            long fetched = System.nanoTime();
+            metrics.fetched(category, fetched - time, bytes.length);
+            JSONArray array = lazyJSON ? JSONTape.parseArray(bytes) : new JSONArray(new String(bytes, StandardCharsets.UTF_8));
+            metrics.parsed(category, System.nanoTime() - fetched);
+            FlightEvents.endLoad(event, category, url.toString(), bytes.length);
+            for (int i = first; i < last; i++)
+                out[i] = array.isNull(i - first) ? null : array.getJSONObject(i - first);
+        }
+        return out;
+    }
+
+    /**
+     * Download everything at a URL.
+     *
+     * @param url The full URL to download.
+     * @return The bytes of the response.
+     * @throws IOException If the URL can't be read.
+     */
+    private byte[] download(String url) throws IOException {
+        return read(open(url, false));
+    }
+
+    /**
+     * Open a connection to a URL.
+     *
+     * @param url    The full URL to open.
+     * @param binary If true, the BinaryCodec form is asked for before JSON.
+     * @return The connected connection.
+     * @throws IOException If the URL can't be opened.
+     */
+    private URLConnection open(String url, boolean binary) throws IOException {
         URLConnection connection = new URL(url).openConnection();
         if (userAgent != null)
             connection.setRequestProperty("User-Agent", userAgent);
+        if (binary)
+            connection.setRequestProperty("Accept", BinaryCodec.MEDIA_TYPE + ", application/json;q=0.9");
         connection.connect();
+        return connection;
+    }
 
-        BufferedReader r = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
-
-        StringBuilder sb = new StringBuilder();
-        String line;
-        while ((line = r.readLine()) != null) {
-            sb.append(line);
+    /**
+     * Read the whole response of a connection.
+     *
+     * @param connection The connected connection.
+     * @return The bytes of the response.
+     * @throws IOException If the response can't be read.
+     */
+    private static byte[] read(URLConnection connection) throws IOException {
+        try (InputStream in = connection.getInputStream()) {
+            return readBytes(in, connection.getContentLength());
         }
-        return new JSONObject(sb.toString());
     }
 
     @Override
@@ -117,9 +365,9 @@ public class GeneralURLEncoder extends URLEncoder {
         if (json.isNull(key))
             return null;
         if (urlObjectKey != null)
-            return new Linked(json.getJSONObject(key));
+            return intern(json.getJSONObject(key));
         else
-            return new Linked(json.getString(key));
+            return intern(json.getString(key));
     }
 
     @Override
@@ -129,9 +377,9 @@ public class GeneralURLEncoder extends URLEncoder {
             if (array.isNull(i))
                 out[i] = null;
             else if (urlObjectKey != null)
-                out[i] = new Linked(array.getJSONObject(i));
+                out[i] = intern(array.getJSONObject(i));
             else
-                out[i] = new Linked(array.getString(i));
+                out[i] = intern(array.getString(i));
         }
         return out;
     }
@@ -148,7 +396,7 @@ public class GeneralURLEncoder extends URLEncoder {
         JSONArray out = new JSONArray();
         for (JSONPage i : objects) {
             if (urlObjectKey != null) {
-                out.put(i.makeURL(this));
+                out.put(makeObject(i));
             } else {
                 out.put(makeURL(i));
             }
@@ -161,6 +409,92 @@ public class GeneralURLEncoder extends URLEncoder {
         return urlBase + category + "/" + id;
     }
 
+    @Override
+    public Object makeLink(String category, int id) {
+        if (urlObjectKey == null)
+            return makeURL(category, id);
+        return new JSONObject().put(urlObjectKey, makeURL(category, id));
+    }
+
+    /**
+     * Get the shared link for the URL inside a link object.
+     *
+     * @param json The link object.
+     * @return The shared link.
+     */
+    private Linked intern(JSONObject json) {
+        if (json.isNull(urlObjectKey))
+            throw new MalformedURLException(json, "Key \"" + urlObjectKey + "\" was null in the JSON.");
+        return intern(json.getString(urlObjectKey));
+    }
+
+    /**
+     * Get the shared link for a URL.
+     *
+     * @param url The full URL of the object.
+     * @return The shared link.
+     */
+    private Linked intern(String url) {
+        int split = splitIndex(url);
+        return intern(url.substring(urlBase.length(), split), getID(url, split));
+    }
+
+    /**
+     * Get the shared link for an object, making it if no one is holding on to one already.
+     * Links are only weakly held, so ones no one is using can still be collected.
+     *
+     * @param category The category the object is in.
+     * @param id       The id of the object.
+     * @return The shared link.
+     */
+    private Linked intern(String category, int id) {
+        expungeLinks();
+        CategoryIndex index = getIndex(category);
+        if (index.index < 0)
+            return new Linked(id, index.category);
+        Long key = ((long) index.index << 32) | (id & 0xFFFFFFFFL);
+        while (true) {
+            LinkReference ref = links.get(key);
+            Linked out = ref == null ? null : ref.get();
+            if (out != null)
+                return out;
+            out = new Linked(id, index.category);
+            LinkReference made = new LinkReference(key, out, collected);
+            if (ref == null ? links.putIfAbsent(key, made) == null : links.replace(key, ref, made))
+                return out;
+        }
+    }
+
+    /**
+     * Remove the pool entries of links that have been collected.
+     */
+    private void expungeLinks() {
+        LinkReference ref;
+        while ((ref = (LinkReference) collected.poll()) != null)
+            links.remove(ref.key, ref);
+    }
+
+    /**
+     * Get the number of a category, giving it one the first time it is asked for.
+     * Categories come from the JSON being read, so only about MAX_CATEGORIES are numbered.
+     * Past that, new categories get -1, and their links aren't pooled.
+     *
+     * @param category The category to number.
+     * @return The category and its number.
+     */
+    private CategoryIndex getIndex(String category) {
+        CategoryIndex out = categories.get(category);
+        if (out == null) {
+            if (categories.size() >= MAX_CATEGORIES)
+                return new CategoryIndex(category, -1);
+            out = new CategoryIndex(category, nextCategory.getAndIncrement());
+            CategoryIndex old = categories.putIfAbsent(category, out);
+            if (old != null)
+                out = old;
+        }
+        return out;
+    }
+
     /**
      * Create a JSONObject for the link to the given object. Only use this if links aren't stored as raw strings.
      *
@@ -175,7 +509,41 @@ public class GeneralURLEncoder extends URLEncoder {
     }
 
     /**
-     * The URLLink for the GeneralURLBase
+     * A category seen in a link, with the number its links are pooled under.
+     */
+    private static class CategoryIndex {
+        /**
+         * The category. Links share this instance rather than the one they were parsed from.
+         */
+        private final String category;
+        /**
+         * A unique number for the category, used to pack it with an id. -1 if the category isn't numbered.
+         */
+        private final int index;
+
+        private CategoryIndex(String category, int index) {
+            this.category = category;
+            this.index = index;
+        }
+    }
+
+    /**
+     * A weak reference to a pooled link that remembers its key in the pool.
+     */
+    private static class LinkReference extends WeakReference<Linked> {
+        /**
+         * The packed category index and id the link is pooled under.
+         */
+        private final Long key;
+
+        private LinkReference(Long key, Linked link, ReferenceQueue<Linked> queue) {
+            super(link, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * The URLLink for the GeneralURLBase. Shared between everything linking to the same object.
      */
     private class Linked extends URLLink {
 
@@ -187,27 +555,22 @@ public class GeneralURLEncoder extends URLEncoder {
          * The ID of the object
          */
         private final int id;
+        /**
+         * The full URL, only built the first time it is asked for.
+         */
+        private String url;
 
         private Linked(int id, String category) {
             this.id = id;
             this.category = category;
         }
 
-        private Linked(JSONObject json) {
-            if (json.isNull(urlObjectKey))
-                throw new MalformedURLException(json, "Key \"" + urlObjectKey + "\" was null in the JSON.");
-            String url = json.getString(urlObjectKey);
-            this.id = getID(url);
-            this.category = getCategory(url);
-        }
-
-        private Linked(String url) {
-            this(getID(url), getCategory(url));
-        }
-
         @Override
         public String getURL() {
-            return makeURL(category, id);
+            String out = url;
+            if (out == null)
+                url = out = makeURL(category, id);
+            return out;
         }
     }
 
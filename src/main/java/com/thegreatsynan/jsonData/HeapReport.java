@@ -0,0 +1,374 @@
+package com.thegreatsynan.jsonData;
+
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An estimate of how much heap the loaded pages take, by category and by field, to help pick eviction limits and which fields to slim down.
+ * Each page's fields are read the way its makeAPI() describes them: Strings, boxed numbers, arrays, links and nested JSONMake objects,
+ * with nested fields listed under their parent, like "stats.baseStat".
+ * <p>
+ * Sizes are for a 64-bit JVM with compressed pointers and compact Strings: 12 byte object headers, 16 byte array headers,
+ * 4 byte references, everything rounded up to 8 bytes. Values the JVM shares are only counted once: Strings from fields marked intern
+ * once per field, small Integers and Booleans not at all. Layout padding between fields isn't modelled, so treat the numbers as close estimates.
+ */
+public class HeapReport {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    /**
+     * The size of a String object, not counting its byte array.
+     */
+    private static final int STRING = 24;
+    /**
+     * The size of an Integer, Float or Double. All the same once rounded up.
+     */
+    private static final int BOX = 16;
+
+    /**
+     * Each category measured, largest first.
+     */
+    public final CategorySize[] categories;
+    /**
+     * The estimated bytes of every category together.
+     */
+    public final long bytes;
+
+    private HeapReport(CategorySize[] categories) {
+        this.categories = categories;
+        long total = 0;
+        for (CategorySize i : categories)
+            total += i.bytes;
+        this.bytes = total;
+    }
+
+    /**
+     * Measure every category in the registry.
+     *
+     * @return The report.
+     */
+    public static HeapReport measure() {
+        return measure(JSONPage.getCategories());
+    }
+
+    /**
+     * Measure some categories in the registry. Pages loaded or removed while measuring may or may not be counted.
+     *
+     * @param categories The categories to measure.
+     * @return The report.
+     */
+    public static HeapReport measure(Collection<String> categories) {
+        HashMap<Class<?>, Layout> layouts = new HashMap<>();
+        ArrayList<CategorySize> out = new ArrayList<>();
+        for (String category : categories) {
+            Tallies tallies = new Tallies();
+            long pages = 0;
+            long shallow = 0;
+            for (JSONPage page : JSONPage.getLoadedPages(category)) {
+                Layout layout = getLayout(layouts, page);
+                shallow += layout.shallow;
+                pages++;
+                walk(page, layout, "", tallies, layouts);
+            }
+            out.add(new CategorySize(category, pages, shallow, tallies.build()));
+        }
+        out.sort((a, b) -> Long.compare(b.bytes, a.bytes));
+        return new HeapReport(out.toArray(new CategorySize[0]));
+    }
+
+    /**
+     * Add the size of every value of an object to the tallies.
+     */
+    private static void walk(JSONMake object, Layout layout, String prefix, Tallies tallies, HashMap<Class<?>, Layout> layouts) {
+        for (int i = 0; i < layout.values.length; i++) {
+            Field field = layout.fields[i];
+            if (field == null)
+                continue;
+            JSONAPIValue value = layout.values[i];
+            String path = prefix + value.key;
+            Tally tally = tallies.get(path, value);
+            Object v;
+            try {
+                v = field.get(object);
+            } catch (IllegalAccessException e) {
+                continue;
+            }
+            if (v == null)
+                continue;
+            tally.values++;
+            if (field.getType().isPrimitive())
+                continue;
+            if (v instanceof int[]) {
+                int length = ((int[]) v).length;
+                tally.elements += length;
+                tally.bytes += align(ARRAY_HEADER + 4L * length);
+            } else if (v instanceof Object[]) {
+                Object[] array = (Object[]) v;
+                tally.elements += array.length;
+                tally.bytes += align(ARRAY_HEADER + (long) REFERENCE * array.length);
+                for (Object j : array)
+                    tally.bytes += sizeOf(j, value, path, tallies, layouts);
+            } else
+                tally.bytes += sizeOf(v, value, path, tallies, layouts);
+        }
+    }
+
+    /**
+     * @return The bytes a single value takes. For nested objects, only the object itself; its values are added to their own tallies.
+     */
+    private static long sizeOf(Object v, JSONAPIValue value, String path, Tallies tallies, HashMap<Class<?>, Layout> layouts) {
+        if (v == null || v instanceof Boolean)
+            return 0;
+        if (v instanceof String) {
+            if (value.isInterned() && !tallies.firstShared(path, v))
+                return 0;
+            return stringSize((String) v);
+        }
+        if (v instanceof Integer) {
+            int i = (Integer) v;
+            return i >= -128 && i <= 127 ? 0 : BOX;
+        }
+        if (v instanceof Float || v instanceof Double)
+            return BOX;
+        if (v instanceof JSONMake) {
+            Layout layout = getLayout(layouts, (JSONMake) v);
+            walk((JSONMake) v, layout, path + ".", tallies, layouts);
+            return layout.shallow;
+        }
+        return align(OBJECT_HEADER);
+    }
+
+    private static long stringSize(String s) {
+        int length = s.length();
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                length *= 2;
+                break;
+            }
+        }
+        return STRING + align(ARRAY_HEADER + length);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static Layout getLayout(HashMap<Class<?>, Layout> layouts, JSONMake object) {
+        Layout out = layouts.get(object.getClass());
+        if (out == null) {
+            out = new Layout(object.getClass(), object.makeAPI());
+            layouts.put(object.getClass(), out);
+        }
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(String.format("%,d bytes in %d categories%n", bytes, categories.length));
+        for (CategorySize i : categories) {
+            out.append(String.format("%s: %,d bytes, %,d pages, %,d bytes each, %,d bytes of page objects%n",
+                    i.category, i.bytes, i.pages, i.pages == 0 ? 0 : i.bytes / i.pages, i.shallowBytes));
+            for (FieldSize j : i.fields)
+                out.append(String.format("    %-30s %,14d bytes %5.1f%%  %,d values%s%n", j.path, j.bytes, i.bytes == 0 ? 0 : j.bytes * 100.0 / i.bytes,
+                        j.values, j.array ? String.format(", %,d elements", j.elements) : ""));
+        }
+        return out.toString();
+    }
+
+    /**
+     * How much heap one category takes.
+     */
+    public static class CategorySize {
+        public final String category;
+        /**
+         * How many pages were measured.
+         */
+        public final long pages;
+        /**
+         * The estimated bytes of the pages and everything they hold.
+         */
+        public final long bytes;
+        /**
+         * The bytes of the page objects themselves, not counting what their fields point to.
+         */
+        public final long shallowBytes;
+        /**
+         * Each field's share, largest first.
+         */
+        public final FieldSize[] fields;
+
+        public CategorySize(String category, long pages, long shallowBytes, FieldSize[] fields) {
+            this.category = category;
+            this.pages = pages;
+            this.shallowBytes = shallowBytes;
+            this.fields = fields;
+            long total = shallowBytes;
+            for (FieldSize i : fields)
+                total += i.bytes;
+            this.bytes = total;
+        }
+    }
+
+    /**
+     * How much heap one field takes across a category.
+     */
+    public static class FieldSize {
+        /**
+         * The field's key, with the keys of the objects it's nested in before it, split by dots.
+         */
+        public final String path;
+        /**
+         * The field's type from the API.
+         */
+        public final String type;
+        public final boolean array;
+        /**
+         * The estimated bytes of everything the field points to, not counting the reference in its parent, or its nested fields.
+         */
+        public final long bytes;
+        /**
+         * How many times the field wasn't null.
+         */
+        public final long values;
+        /**
+         * How many elements its arrays had together.
+         */
+        public final long elements;
+
+        public FieldSize(String path, String type, boolean array, long bytes, long values, long elements) {
+            this.path = path;
+            this.type = type;
+            this.array = array;
+            this.bytes = bytes;
+            this.values = values;
+            this.elements = elements;
+        }
+    }
+
+    /**
+     * The fields of one class, matched up with its API values.
+     */
+    private static class Layout {
+        /**
+         * The bytes an object of the class takes itself.
+         */
+        private final long shallow;
+        private final JSONAPIValue[] values;
+        /**
+         * The field holding each value. Null where the class has none.
+         */
+        private final Field[] fields;
+
+        private Layout(Class<?> type, JSONAPIPage api) {
+            long size = OBJECT_HEADER;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field i : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(i.getModifiers()))
+                        size += fieldSize(i.getType());
+                }
+            }
+            this.shallow = align(size);
+            this.values = api.values;
+            this.fields = new Field[values.length];
+            for (int i = 0; i < values.length; i++)
+                fields[i] = findField(type, values[i].key);
+        }
+
+        private static int fieldSize(Class<?> type) {
+            if (type == long.class || type == double.class)
+                return 8;
+            if (type == int.class || type == float.class)
+                return 4;
+            if (type == short.class || type == char.class)
+                return 2;
+            if (type == byte.class || type == boolean.class)
+                return 1;
+            return REFERENCE;
+        }
+
+        private static Field findField(Class<?> type, String key) {
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                try {
+                    Field out = c.getDeclaredField(key);
+                    if (Modifier.isStatic(out.getModifiers()))
+                        return null;
+                    out.setAccessible(true);
+                    return out;
+                } catch (NoSuchFieldException e) {
+                    // Look in the superclass.
+                } catch (RuntimeException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The running totals of one field.
+     */
+    private static class Tally {
+        private final String type;
+        private final boolean array;
+        private long bytes;
+        private long values;
+        private long elements;
+
+        private Tally(JSONAPIValue value) {
+            this.type = value.type;
+            this.array = value.array != null && value.array;
+        }
+    }
+
+    /**
+     * The running totals of every field of one category.
+     */
+    private static class Tallies {
+        private final LinkedHashMap<String, Tally> tallies = new LinkedHashMap<>();
+        /**
+         * The shared Strings already counted, by field.
+         */
+        private final HashMap<String, Set<Object>> shared = new HashMap<>();
+
+        private Tally get(String path, JSONAPIValue value) {
+            Tally out = tallies.get(path);
+            if (out == null) {
+                out = new Tally(value);
+                tallies.put(path, out);
+            }
+            return out;
+        }
+
+        /**
+         * @return True if this is the first time the shared value was seen in the field.
+         */
+        private boolean firstShared(String path, Object value) {
+            Set<Object> seen = shared.get(path);
+            if (seen == null) {
+                seen = Collections.newSetFromMap(new IdentityHashMap<>());
+                shared.put(path, seen);
+            }
+            return seen.add(value);
+        }
+
+        private FieldSize[] build() {
+            ArrayList<FieldSize> out = new ArrayList<>();
+            for (Map.Entry<String, Tally> i : tallies.entrySet()) {
+                Tally t = i.getValue();
+                out.add(new FieldSize(i.getKey(), t.type, t.array, t.bytes, t.values, t.elements));
+            }
+            out.sort((a, b) -> Long.compare(b.bytes, a.bytes));
+            return out.toArray(new FieldSize[0]);
+        }
+    }
+}
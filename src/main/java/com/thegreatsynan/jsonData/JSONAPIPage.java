@@ -101,6 +101,10 @@ public class JSONAPIPage extends JSONMake {
          * The API documentation explaining the value.
          */
         public final String detail;
+        /**
+         * If true, String values are shared through a StringPool when loaded. Use for values that repeat a lot.
+         */
+        public final Boolean intern;
         /**
          * The name of the key.
          */
@@ -117,10 +121,22 @@ public class JSONAPIPage extends JSONMake {
          * @param detail The API documentation explaining the value.
          */
         public JSONAPIValue(String key, String type, Boolean array, String detail) {
+            this(key, type, array, detail, null);
+        }
+
+        /**
+         * @param key    The name of the key.
+         * @param type   The type of value.
+         * @param array  If true, this value is an array.
+         * @param detail The API documentation explaining the value.
+         * @param intern If true, String values are shared through a StringPool when loaded.
+         */
+        public JSONAPIValue(String key, String type, Boolean array, String detail, Boolean intern) {
             this.key = key;
             this.type = type;
             this.array = array;
             this.detail = detail;
+            this.intern = intern;
         }
 
         /**
@@ -134,6 +150,14 @@ public class JSONAPIPage extends JSONMake {
             this.type = JSONMake.getString(json, "type");
             this.array = JSONMake.getBoolean(json, "array");
             this.detail = JSONMake.getString(json, "detail");
+            this.intern = JSONMake.getBoolean(json, "intern");
+        }
+
+        /**
+         * @return True if String values should be shared when loaded.
+         */
+        public boolean isInterned() {
+            return intern != null && intern;
         }
 
         public static JSONAPIValue[] create(JSONArray array, URLEncoder base) {
@@ -151,6 +175,7 @@ public class JSONAPIPage extends JSONMake {
             vars.add(new JSONAPIValue("type", "string", false, "The type of value."));
             vars.add(new JSONAPIValue("array", "boolean", false, "If true, this value is an array."));
             vars.add(new JSONAPIValue("detail", "string", false, "The API documentation explaining the value."));
+            vars.add(new JSONAPIValue("intern", "boolean", false, "If true, String values are shared through a StringPool when loaded. Use for values that repeat a lot."));
             return new JSONAPIPage(this.getClass().getSimpleName(), vars.toArray(new JSONAPIValue[vars.size()]), "A single API value.", null, "JSONAPIPage");
         }
 
@@ -161,6 +186,7 @@ public class JSONAPIPage extends JSONMake {
             out.put("type", type);
             out.put("array", array);
             out.put("detail", detail);
+            out.put("intern", intern);
             return out;
         }
 
@@ -45,6 +45,18 @@ public abstract class JSONMake {
         return json.getString(key);
     }
 
+    /**
+     * Get a String, sharing it through the given pool.
+     *
+     * @param json The JSONObject to look in.
+     * @param key  The key the String is kept under.
+     * @param pool The pool of shared Strings.
+     * @return The shared String, can be null.
+     */
+    public static String getString(JSONObject json, String key, StringPool pool) {
+        return pool.intern(getString(json, key));
+    }
+
     /**
      * Create an array of Doubles from a JSONArray.
      *
@@ -113,6 +125,17 @@ public abstract class JSONMake {
         return out;
     }
 
+    /**
+     * Create an array of Strings from a JSONArray, sharing them through the given pool.
+     *
+     * @param array A JSONArray of Strings.
+     * @param pool  The pool of shared Strings.
+     * @return An array of Strings, can be null.
+     */
+    public static String[] loadStringArray(JSONArray array, StringPool pool) {
+        return pool.intern(loadStringArray(array));
+    }
+
     /**
      * Create a JSONArray from a list of objects.
      *
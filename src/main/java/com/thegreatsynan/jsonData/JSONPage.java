@@ -3,18 +3,49 @@ package com.thegreatsynan.jsonData;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * An object that can be returned as a full page of JSON data.
+ * <p>
+ * Objects loaded with get, BulkImport and RegistrySnapshot are added to the registry once they're built.
+ * Constructors don't add them, so objects made with a constructor aren't found by get or getLoaded until passed to register.
+ * Links to other objects are written from the ids they hold, so makeObject never loads anything.
  */
 public abstract class JSONPage extends JSONMake {
     /**
      * The database of all the loaded objects so far.
      */
-    private static HashMap<String, HashMap<Integer, JSONPage>> LOADED = new HashMap<>();
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<Integer, JSONPage>> LOADED = new ConcurrentHashMap<>();
+    /**
+     * How to make each category of object from JSON.
+     */
+    private static final ConcurrentHashMap<String, Creator> CREATORS = new ConcurrentHashMap<>();
+    /**
+     * The name index of each category that has been looked up by name. Categories never looked up by name have none.
+     */
+    private static final ConcurrentHashMap<String, NameIndex> NAMES = new ConcurrentHashMap<>();
+    /**
+     * Told about every object taken out of the registry, by unload or by a new object registered under its id.
+     */
+    private static final CopyOnWriteArrayList<Consumer<JSONPage>> REMOVED = new CopyOnWriteArrayList<>();
+    /**
+     * Told about every fetch, parse and registry lookup.
+     */
+    private static volatile PageMetrics metrics = PageMetrics.NONE;
     /**
      * The id of the object.
      */
@@ -23,43 +54,159 @@ public abstract class JSONPage extends JSONMake {
      * The code name of the object.
      */
     public final String name;
+    /**
+     * The values this object was loaded with, if it was loaded with a FieldSet. Null if it has every value.
+     */
+    private final FieldSet fields;
 
     /**
      * @param name The code name of the object.
      * @param id   The partial url used to fetch the object.
      */
     public JSONPage(String name, int id) {
+        this(name, id, null);
+    }
+
+    /**
+     * @param name   The code name of the object.
+     * @param id     The partial url used to fetch the object.
+     * @param fields The values the object was loaded with. Null if it has every value.
+     */
+    private JSONPage(String name, int id, FieldSet fields) {
         this.name = name;
         this.id = id;
-        String cat = getCategory();
-        if (id >= 0) {
-            if (!LOADED.containsKey(cat)) {
-                LOADED.put(cat, new HashMap<>());
-            }
-            LOADED.get(cat).put(id, this);
-        }
+        this.fields = fields;
     }
 
     /**
-     * Create from a JSONObject.
+     * Create from a JSONObject. If it was made by FieldSet.select, the object is partial.
      *
      * @param json The JSONObject with all the data.
      * @param base The URL Decoder.
      */
     public JSONPage(JSONObject json, URLEncoder base) {
-        this(json.getString("name"), json.getInt("id"));
+        this(json.getString("name"), json.getInt("id"), json instanceof FieldSet.Selected ? ((FieldSet.Selected) json).fields : null);
+    }
+
+    /**
+     * @return The values this object was loaded with, or null if it has every value.
+     */
+    public FieldSet getFieldSet() {
+        return fields;
     }
 
     /**
-     * Create and load an object based on the given JSONObject
+     * @return True if the object was loaded with a FieldSet, so some of its values are missing.
+     */
+    public boolean isPartial() {
+        return fields != null;
+    }
+
+    /**
+     * Add an object to the registry, so get and getLoaded find it, replacing any object with the same category and id.
+     * Objects loaded with get, BulkImport and RegistrySnapshot are added for you; call this for objects made with a constructor.
+     * Other threads can read the object as soon as it's added, so only add it once it's fully built and won't be changed.
+     * Partial objects are only added if no object with the id is loaded yet, or if the loaded one is partial too,
+     * so they never replace a full one.
+     *
+     * @param page The object to add. Objects without a category or with an id below 0 aren't added.
+     * @return The object registered under its id afterwards: the one given, or the full one kept instead of it.
+     */
+    public static JSONPage register(JSONPage page) {
+        String cat = page.getCategory();
+        if (page.id < 0 || cat == null)
+            return page;
+        JSONPage[] old = new JSONPage[1];
+        JSONPage now = getCategoryMap(cat).compute(page.id, (key, value) -> {
+            old[0] = value;
+            return page.fields != null && value != null && value.fields == null ? value : page;
+        });
+        if (now == page) {
+            NameIndex index = NAMES.get(cat);
+            if (index != null) {
+                if (old[0] != null && old[0] != page)
+                    index.remove(old[0]);
+                index.add(page);
+            }
+            if (old[0] != null && old[0] != page)
+                removed(old[0]);
+        }
+        return now;
+    }
+
+    /**
+     * Create an object from the given JSONObject, and add it to the registry once it's built.
      *
      * @param category The type of object to load.
      * @param json     The JSONObject to load the info from.
      * @param base     The URL reader.
-     * @return The loaded object.
+     * @return The loaded object, or null if no Creator was added for the category.
      */
     static JSONPage createObject(String category, JSONObject json, URLEncoder base) {
-        return null;
+        Creator creator = CREATORS.get(category);
+        if (creator == null)
+            return null;
+        PageMetrics metrics = JSONPage.metrics;
+        Object event = FlightEvents.beginCreate();
+        if (metrics == PageMetrics.NONE && event == null) {
+            JSONPage out = creator.create(json, base);
+            register(out);
+            return out;
+        }
+        long start = System.nanoTime();
+        JSONPage out = creator.create(json, base);
+        register(out);
+        metrics.created(category, System.nanoTime() - start);
+        FlightEvents.endCreate(event, category, out);
+        return out;
+    }
+
+    /**
+     * Make an object from the given JSONObject without adding it to the registry or recording it.
+     *
+     * @param category The type of object to make.
+     * @param json     The JSONObject to load the info from.
+     * @param base     The URL reader.
+     * @return The object, or null if no Creator was added for the category.
+     */
+    static JSONPage createUnregistered(String category, JSONObject json, URLEncoder base) {
+        Creator creator = CREATORS.get(category);
+        return creator == null ? null : creator.create(json, base);
+    }
+
+    /**
+     * Set what is told about every fetch, parse and registry lookup.
+     *
+     * @param metrics The metrics to record with, or null to stop recording.
+     */
+    public static void setMetrics(PageMetrics metrics) {
+        JSONPage.metrics = metrics == null ? PageMetrics.NONE : metrics;
+    }
+
+    /**
+     * @return What is told about every fetch, parse and registry lookup. PageMetrics.NONE if nothing is recording.
+     */
+    public static PageMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Set how objects in a category are made from JSON, so they can be loaded by get. Generated classes add themselves when loaded.
+     *
+     * @param category The category the objects are in.
+     * @param creator  Makes an object from its JSON. Usually the class's (JSONObject, URLEncoder) constructor.
+     */
+    public static void addCreator(String category, Creator creator) {
+        CREATORS.put(category, creator);
+    }
+
+    /**
+     * Get the names of every category with loaded objects.
+     *
+     * @return A copy of the category names.
+     */
+    public static Set<String> getCategories() {
+        return new HashSet<>(LOADED.keySet());
     }
 
     /**
@@ -71,14 +218,43 @@ public abstract class JSONPage extends JSONMake {
      * @return An array of loaded objects.
      */
     public static JSONPage[] get(String category, int[] url, URLEncoder base) {
+        PageMetrics metrics = JSONPage.metrics;
         JSONPage[] out = new JSONPage[url.length];
-        for (int i = 0; i < url.length; i++)
-            out[i] = get(category, url[i], base);
+        int[] missing = new int[url.length];
+        int count = 0;
+        for (int i = 0; i < url.length; i++) {
+            out[i] = getLoaded(category, url[i]);
+            if (out[i] != null && out[i].fields != null)
+                out[i] = null;
+            if (out[i] == null) {
+                missing[count++] = i;
+                metrics.missed(category);
+            } else
+                metrics.hit(category);
+            FlightEvents.lookup(category, url[i], out[i] != null);
+        }
+        if (count == 0)
+            return out;
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++)
+            ids[i] = url[missing[i]];
+        JSONObject[] json;
+        try {
+            json = base.loadJSON(category, ids);
+        } catch (IOException e) {
+            metrics.failed(category, e);
+            return out;
+        }
+        for (int i = 0; i < count; i++) {
+            if (json[i] != null)
+                out[missing[i]] = createObject(category, json[i], base);
+        }
         return out;
     }
 
     /**
      * Get a loaded object or try to load one. Will return null if one can't be found or loaded.
+     * Partial objects in the registry are loaded again in full.
      *
      * @param category The category the object is part of. Should match getCategory().
      * @param url      The partial url of the object.
@@ -86,21 +262,233 @@ public abstract class JSONPage extends JSONMake {
      * @return The loaded object. If it can't be found, returns null.
      */
     public static JSONPage get(String category, int url, URLEncoder base) {
-        JSONPage obj;
-        try {
-            obj = LOADED.get(category).get(url);
-        } catch (NullPointerException e) {
+        return get(category, url, null, base);
+    }
+
+    /**
+     * Get a loaded object with at least some values, or try to load just those values. Will return null if one can't be found or loaded.
+     * A full object, or a partial one with every value asked for, is returned if loaded. Otherwise only the values asked for are loaded,
+     * and the partial object made from them is registered unless a full one was loaded in the meantime.
+     *
+     * @param category The category the object is part of. Should match getCategory().
+     * @param url      The partial url of the object.
+     * @param fields   The values needed. Null for every value.
+     * @param base     The URL reader.
+     * @return The loaded object. If it can't be found, returns null.
+     */
+    public static JSONPage get(String category, int url, FieldSet fields, URLEncoder base) {
+        PageMetrics metrics = JSONPage.metrics;
+        JSONPage obj = getLoaded(category, url);
+        if (obj != null && obj.fields != null && (fields == null || !obj.fields.containsAll(fields)))
             obj = null;
-        }
-        if (obj != null)
+        FlightEvents.lookup(category, url, obj != null);
+        if (obj != null) {
+            metrics.hit(category);
             return obj;
+        }
+        metrics.missed(category);
         try {
-            return createObject(category, base.loadJSON(category, url), base);
+            JSONObject json = fields == null ? base.loadJSON(category, url) : base.loadJSON(category, url, fields);
+            if (json == null)
+                throw new IOException("Nothing was loaded from " + base.makeURL(category, url));
+            return createObject(category, json, base);
         } catch (IOException e) {
+            metrics.failed(category, e);
             return null;
         }
     }
 
+    /**
+     * Get an object only if it has already been loaded. Never tries to load it.
+     *
+     * @param category The category the object is part of. Should match getCategory().
+     * @param id       The id of the object.
+     * @return The loaded object, or null if it hasn't been loaded.
+     */
+    public static JSONPage getLoaded(String category, int id) {
+        ConcurrentHashMap<Integer, JSONPage> map = category == null ? null : LOADED.get(category);
+        return map == null ? null : map.get(id);
+    }
+
+    /**
+     * Get every loaded object in a category with a name.
+     * The first name lookup in a category indexes its names, after which the index is kept up to date as objects are loaded.
+     *
+     * @param category The category to look in.
+     * @param name     The code name of the objects.
+     * @return The loaded objects with exactly that name, in no order. Empty if there are none.
+     */
+    public static JSONPage[] getLoadedByName(String category, String name) {
+        return getNameIndex(category).get(name);
+    }
+
+    /**
+     * Get every loaded object in a category with a name that starts a certain way.
+     * Uses the same index as getLoadedByName.
+     *
+     * @param category The category to look in.
+     * @param prefix   The start of the code names.
+     * @return The loaded objects with names starting with the prefix, sorted by name. Empty if there are none.
+     */
+    public static JSONPage[] getLoadedByPrefix(String category, String prefix) {
+        return getNameIndex(category).getPrefixed(prefix);
+    }
+
+    /**
+     * Remove an object from the registry, so it is loaded again the next time it is asked for.
+     *
+     * @param category The category the object is part of.
+     * @param id       The id of the object.
+     * @return The object removed, or null if it wasn't loaded.
+     */
+    public static JSONPage unload(String category, int id) {
+        ConcurrentHashMap<Integer, JSONPage> map = category == null ? null : LOADED.get(category);
+        JSONPage out = map == null ? null : map.remove(id);
+        if (out != null) {
+            NameIndex index = NAMES.get(category);
+            if (index != null)
+                index.remove(out);
+            removed(out);
+        }
+        return out;
+    }
+
+    /**
+     * Be told about every object taken out of the registry, by unload or by a new object registered under its id.
+     * Called on the thread that removed it, after it's gone.
+     *
+     * @param listener What to tell.
+     */
+    static void addRemovedListener(Consumer<JSONPage> listener) {
+        REMOVED.add(listener);
+    }
+
+    /**
+     * Stop telling a listener added with addRemovedListener.
+     *
+     * @param listener What to stop telling.
+     */
+    static void removeRemovedListener(Consumer<JSONPage> listener) {
+        REMOVED.remove(listener);
+    }
+
+    private static void removed(JSONPage page) {
+        for (Consumer<JSONPage> i : REMOVED)
+            i.accept(page);
+    }
+
+    /**
+     * Get the name index for a category, making and filling it if it doesn't exist yet.
+     *
+     * @param category The category to get the index for.
+     * @return The index of loaded objects by name.
+     */
+    private static NameIndex getNameIndex(String category) {
+        NameIndex out = NAMES.get(category);
+        if (out == null) {
+            NameIndex made = new NameIndex(category);
+            out = NAMES.putIfAbsent(category, made);
+            if (out == null) {
+                out = made;
+                made.fill(getLoadedPages(category));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Count the loaded objects in a category.
+     *
+     * @param category The category to look in.
+     * @return How many objects are loaded.
+     */
+    public static int getLoadedCount(String category) {
+        ConcurrentHashMap<Integer, JSONPage> map = category == null ? null : LOADED.get(category);
+        return map == null ? 0 : map.size();
+    }
+
+    /**
+     * Get every loaded object in a category, without copying or sorting them.
+     * Objects loaded while this is being read may or may not be included.
+     *
+     * @param category The category to look in.
+     * @return A live view of the loaded objects, in no order.
+     */
+    static Collection<JSONPage> getLoadedPages(String category) {
+        ConcurrentHashMap<Integer, JSONPage> map = category == null ? null : LOADED.get(category);
+        return map == null ? Collections.<JSONPage>emptyList() : map.values();
+    }
+
+    /**
+     * Get the IDs of every loaded object in a category.
+     *
+     * @param category The category to look in.
+     * @return The IDs, sorted from lowest to highest.
+     */
+    public static int[] getLoadedIDs(String category) {
+        ConcurrentHashMap<Integer, JSONPage> map = category == null ? null : LOADED.get(category);
+        if (map == null)
+            return new int[0];
+        int[] out = new int[map.size()];
+        int count = 0;
+        for (Integer i : map.keySet()) {
+            if (count == out.length)
+                out = Arrays.copyOf(out, count * 2 + 1);
+            out[count++] = i;
+        }
+        out = Arrays.copyOf(out, count);
+        Arrays.sort(out);
+        return out;
+    }
+
+    /**
+     * Write every loaded object in a category as newline-delimited JSON, one object per line in ID order.
+     * Each object is written straight to a small buffer, so memory use doesn't grow with the category.
+     * Writes block while the stream is full, so a slow reader slows the export down instead of filling the heap.
+     * Objects loaded after the export starts are not included, and neither are partial objects.
+     *
+     * @param category The category to export.
+     * @param after    Only objects with an ID greater than this are written. Use the last ID read to resume.
+     * @param base     The URL writer.
+     * @param out      Where to write the lines. It is flushed, but not closed.
+     * @return How many objects were written.
+     * @throws IOException If the stream can't be written to.
+     */
+    public static int exportCategory(String category, int after, URLEncoder base, OutputStream out) throws IOException {
+        int[] ids = getLoadedIDs(category);
+        int start = Arrays.binarySearch(ids, after);
+        start = start < 0 ? -start - 1 : start + 1;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        int count = 0;
+        for (int i = start; i < ids.length; i++) {
+            JSONPage page = getLoaded(category, ids[i]);
+            if (page == null || page.fields != null)
+                continue;
+            page.makeObject(base).write(writer);
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Get the map of loaded objects for a category, making it if it doesn't exist yet.
+     *
+     * @param category The category to get the map for.
+     * @return The map of loaded objects by id.
+     */
+    private static ConcurrentHashMap<Integer, JSONPage> getCategoryMap(String category) {
+        ConcurrentHashMap<Integer, JSONPage> out = LOADED.get(category);
+        if (out == null) {
+            out = new ConcurrentHashMap<>();
+            ConcurrentHashMap<Integer, JSONPage> old = LOADED.putIfAbsent(category, out);
+            if (old != null)
+                out = old;
+        }
+        return out;
+    }
+
     /**
      * Create an array of IDs from the given array.
      *
@@ -136,11 +524,7 @@ public abstract class JSONPage extends JSONMake {
      * @return A JSONArray containing all the names and URLs as objects.
      */
     public static JSONArray makeURLArray(Iterable<JSONPage> array, URLEncoder base) {
-        JSONArray out = new JSONArray();
-        for (JSONPage i : array) {
-            out.put(i.makeURL(base));
-        }
-        return out;
+        return base.makeLinkArray(array);
     }
 
     /**
@@ -167,4 +551,16 @@ public abstract class JSONPage extends JSONMake {
     public final String makeURL(URLEncoder base) {
         return base.makeURL(this);
     }
+
+    /**
+     * Makes an object in one category from its JSON.
+     */
+    public interface Creator {
+        /**
+         * @param json The JSONObject with all the data.
+         * @param base The URL Decoder.
+         * @return The new object.
+         */
+        JSONPage create(JSONObject json, URLEncoder base);
+    }
 }
@@ -0,0 +1,619 @@
+package com.thegreatsynan.jsonData;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A JSON parser that only indexes where each value is in the raw UTF-8 bytes (the "tape").
+ * The JSONObjects and JSONArrays it returns build their values only when a getter asks for them,
+ * so the normal (JSONObject, URLEncoder) constructors work on them unchanged, but skip the cost of every value they don't read.
+ * Anything that needs the whole object (keySet, put, toString...) fills it in once, after which it acts as a normal JSONObject.
+ * Arrays are built in full the first time they are asked for, but objects inside them stay lazy.
+ * <p>
+ * Everything is checked while indexing, so a value read later never fails. Like org.json, duplicate keys are rejected.
+ * It is stricter than org.json elsewhere, following the JSON spec: strings can't hold raw control characters,
+ * unicode escapes need exactly four hex digits, and numbers can't have leading zeros, a leading '+' or a bare '.' or 'e'.
+ */
+public class JSONTape {
+    private static final byte OBJECT = 0;
+    private static final byte ARRAY = 1;
+    /**
+     * A string with only ASCII and no escapes, so it can be compared to keys byte by byte.
+     */
+    private static final byte PLAIN_STRING = 2;
+    /**
+     * A string with escapes or multi-byte characters.
+     */
+    private static final byte STRING = 3;
+    private static final byte NUMBER = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte NULL = 7;
+    /**
+     * How deep objects and arrays can be nested, so hostile input gets a JSONException instead of overflowing the stack.
+     */
+    private static final int MAX_DEPTH = 512;
+
+    /**
+     * The raw UTF-8 JSON.
+     */
+    private final byte[] data;
+    /**
+     * The kind of each token.
+     */
+    private byte[] kinds;
+    /**
+     * Where each token starts in the data. Strings start after the opening quote.
+     */
+    private int[] starts;
+    /**
+     * For strings and numbers, where they end in the data. For objects and arrays, the token after the last one inside them.
+     */
+    private int[] ends;
+    /**
+     * How many tokens are in the tape.
+     */
+    private int count;
+
+    private JSONTape(byte[] data) {
+        this.data = data;
+        int size = Math.max(16, data.length / 8);
+        this.kinds = new byte[size];
+        this.starts = new int[size];
+        this.ends = new int[size];
+    }
+
+    /**
+     * Index a JSON object.
+     *
+     * @param data The UTF-8 bytes of the JSON.
+     * @return A JSONObject whose values are only built when they are asked for.
+     * @throws JSONException If the bytes aren't a JSON object.
+     */
+    public static JSONObject parseObject(byte[] data) {
+        Object out = parse(data);
+        if (out instanceof JSONObject)
+            return (JSONObject) out;
+        throw new JSONException("A JSONObject text must begin with '{'");
+    }
+
+    /**
+     * Index a JSON object.
+     *
+     * @param json The JSON text.
+     * @return A JSONObject whose values are only built when they are asked for.
+     * @throws JSONException If the text isn't a JSON object.
+     */
+    public static JSONObject parseObject(String json) {
+        return parseObject(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Index a JSON array.
+     *
+     * @param data The UTF-8 bytes of the JSON.
+     * @return A JSONArray whose values are only built when they are asked for.
+     * @throws JSONException If the bytes aren't a JSON array.
+     */
+    public static JSONArray parseArray(byte[] data) {
+        Object out = parse(data);
+        if (out instanceof JSONArray)
+            return (JSONArray) out;
+        throw new JSONException("A JSONArray text must start with '['");
+    }
+
+    /**
+     * Index any JSON value.
+     *
+     * @param data The UTF-8 bytes of the JSON.
+     * @return The top value. Objects and arrays are lazy; anything else is built right away.
+     * @throws JSONException If the bytes aren't valid JSON.
+     */
+    public static Object parse(byte[] data) {
+        JSONTape tape = new JSONTape(data);
+        int end = tape.skipSpace(tape.readValue(tape.skipSpace(0), 0));
+        if (end != data.length)
+            throw tape.error("Unexpected data after the JSON", end);
+        return tape.value(0);
+    }
+
+    private JSONException error(String message, int pos) {
+        return new JSONException(message + " at " + pos);
+    }
+
+    private int add(byte kind, int start) {
+        if (count == kinds.length) {
+            int size = count * 2;
+            kinds = Arrays.copyOf(kinds, size);
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+        }
+        kinds[count] = kind;
+        starts[count] = start;
+        return count++;
+    }
+
+    private int skipSpace(int pos) {
+        while (pos < data.length) {
+            byte c = data[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t')
+                break;
+            pos++;
+        }
+        return pos;
+    }
+
+    private byte at(int pos) {
+        if (pos >= data.length)
+            throw error("Unexpected end of JSON", pos);
+        return data[pos];
+    }
+
+    /**
+     * Add the value starting at pos to the tape.
+     *
+     * @param depth How many objects and arrays the value is inside.
+     * @return The position right after the value.
+     */
+    private int readValue(int pos, int depth) {
+        byte c = at(pos);
+        if ((c == '{' || c == '[') && depth == MAX_DEPTH)
+            throw error("JSON nested more than " + MAX_DEPTH + " deep", pos);
+        switch (c) {
+            case '{':
+                return readObject(pos, depth + 1);
+            case '[':
+                return readArray(pos, depth + 1);
+            case '"':
+                return readString(pos);
+            case 't':
+                return readLiteral(pos, "true", TRUE);
+            case 'f':
+                return readLiteral(pos, "false", FALSE);
+            case 'n':
+                return readLiteral(pos, "null", NULL);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9'))
+                    return readNumber(pos);
+                throw error("Unexpected character '" + (char) c + "'", pos);
+        }
+    }
+
+    private int readObject(int pos, int depth) {
+        int token = add(OBJECT, pos);
+        pos = skipSpace(pos + 1);
+        if (at(pos) == '}') {
+            ends[token] = count;
+            return pos + 1;
+        }
+        while (true) {
+            if (at(pos) != '"')
+                throw error("Expected a key", pos);
+            pos = skipSpace(readString(pos));
+            if (at(pos) != ':')
+                throw error("Expected a ':' after a key", pos);
+            pos = skipSpace(readValue(skipSpace(pos + 1), depth));
+            byte c = at(pos);
+            if (c == '}')
+                break;
+            if (c != ',')
+                throw error("Expected a ',' or '}'", pos);
+            pos = skipSpace(pos + 1);
+        }
+        ends[token] = count;
+        checkKeys(token);
+        return pos + 1;
+    }
+
+    /**
+     * Reject an object with the same key twice, as org.json does.
+     * Small objects compare each pair of keys, which costs less than hashing them.
+     */
+    private void checkKeys(int object) {
+        int keys = size(object);
+        if (keys < 2)
+            return;
+        int end = ends[object];
+        if (keys <= 32) {
+            for (int i = object + 1; i < end; i = next(i + 1)) {
+                for (int j = next(i + 1); j < end; j = next(j + 1)) {
+                    if (sameString(i, j))
+                        throw error("Duplicate key \"" + string(i) + "\"", starts[j]);
+                }
+            }
+            return;
+        }
+        HashSet<String> seen = new HashSet<>();
+        for (int i = object + 1; i < end; i = next(i + 1)) {
+            if (!seen.add(string(i)))
+                throw error("Duplicate key \"" + string(i) + "\"", starts[i]);
+        }
+    }
+
+    private boolean sameString(int a, int b) {
+        if (kinds[a] != PLAIN_STRING || kinds[b] != PLAIN_STRING)
+            return string(a).equals(string(b));
+        int length = ends[a] - starts[a];
+        if (length != ends[b] - starts[b])
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (data[starts[a] + i] != data[starts[b] + i])
+                return false;
+        }
+        return true;
+    }
+
+    private int readArray(int pos, int depth) {
+        int token = add(ARRAY, pos);
+        pos = skipSpace(pos + 1);
+        if (at(pos) == ']') {
+            ends[token] = count;
+            return pos + 1;
+        }
+        while (true) {
+            pos = skipSpace(readValue(pos, depth));
+            byte c = at(pos);
+            if (c == ']')
+                break;
+            if (c != ',')
+                throw error("Expected a ',' or ']'", pos);
+            pos = skipSpace(pos + 1);
+        }
+        ends[token] = count;
+        return pos + 1;
+    }
+
+    private int readString(int pos) {
+        int token = add(PLAIN_STRING, pos + 1);
+        pos++;
+        while (true) {
+            byte c = at(pos);
+            if (c == '"')
+                break;
+            if (c == '\\') {
+                kinds[token] = STRING;
+                pos++;
+                switch (at(pos)) {
+                    case 'u':
+                        for (int i = 1; i <= 4; i++) {
+                            if (hex(at(pos + i)) < 0)
+                                throw error("Illegal escape", pos - 1);
+                        }
+                        pos += 4;
+                        break;
+                    case 'b':
+                    case 'f':
+                    case 'n':
+                    case 'r':
+                    case 't':
+                    case '"':
+                    case '\\':
+                    case '/':
+                        break;
+                    default:
+                        throw error("Illegal escape", pos - 1);
+                }
+            } else if (c < 0) {
+                kinds[token] = STRING;
+            } else if (c < 0x20) {
+                throw error("Unescaped control character in a string", pos);
+            }
+            pos++;
+        }
+        ends[token] = pos;
+        return pos + 1;
+    }
+
+    private int readLiteral(int pos, String literal, byte kind) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (at(pos + i) != literal.charAt(i))
+                throw error("Unexpected literal", pos);
+        }
+        add(kind, pos);
+        return pos + literal.length();
+    }
+
+    /**
+     * Read a number: an optional '-', an integer part without leading zeros, then an optional fraction and exponent.
+     */
+    private int readNumber(int pos) {
+        int token = add(NUMBER, pos);
+        int start = pos;
+        if (data[pos] == '-')
+            pos++;
+        if (at(pos) == '0')
+            pos++;
+        else
+            pos = readDigits(pos, start);
+        if (pos < data.length && data[pos] == '.')
+            pos = readDigits(pos + 1, start);
+        if (pos < data.length && (data[pos] == 'e' || data[pos] == 'E')) {
+            pos++;
+            if (at(pos) == '+' || at(pos) == '-')
+                pos++;
+            pos = readDigits(pos, start);
+        }
+        ends[token] = pos;
+        return pos;
+    }
+
+    /**
+     * Skip one or more digits.
+     *
+     * @param start Where the number starts, for the error.
+     * @return The position after the digits.
+     */
+    private int readDigits(int pos, int start) {
+        byte c = at(pos);
+        if (c < '0' || c > '9')
+            throw error("Malformed number", start);
+        do
+            pos++;
+        while (pos < data.length && data[pos] >= '0' && data[pos] <= '9');
+        return pos;
+    }
+
+    /**
+     * @return The value of a hex digit, or -1 if it isn't one.
+     */
+    private static int hex(byte c) {
+        if (c >= '0' && c <= '9')
+            return c - '0';
+        if (c >= 'a' && c <= 'f')
+            return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F')
+            return c - 'A' + 10;
+        return -1;
+    }
+
+    /**
+     * Get the token after the given value, skipping everything inside it.
+     */
+    private int next(int token) {
+        byte kind = kinds[token];
+        return kind == OBJECT || kind == ARRAY ? ends[token] : token + 1;
+    }
+
+    /**
+     * Find the value for a key in an object.
+     *
+     * @return The token of the value, or -1 if the key isn't there.
+     */
+    private int find(int object, String key) {
+        int end = ends[object];
+        for (int i = object + 1; i < end; i = next(i + 1)) {
+            if (keyEquals(i, key))
+                return i + 1;
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(int token, String key) {
+        if (kinds[token] != PLAIN_STRING)
+            return string(token).equals(key);
+        int start = starts[token];
+        int length = ends[token] - start;
+        if (length != key.length())
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (data[start + i] != key.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Count the values directly inside an object or array.
+     */
+    private int size(int container) {
+        int step = kinds[container] == OBJECT ? 1 : 0;
+        int out = 0;
+        for (int i = container + 1; i < ends[container]; i = next(i + step))
+            out++;
+        return out;
+    }
+
+    /**
+     * Build the value of a token.
+     */
+    private Object value(int token) {
+        switch (kinds[token]) {
+            case OBJECT:
+                return new TapeObject(this, token);
+            case ARRAY:
+                return array(token);
+            case PLAIN_STRING:
+            case STRING:
+                return string(token);
+            case NUMBER:
+                return number(token);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            default:
+                return JSONObject.NULL;
+        }
+    }
+
+    /**
+     * Build an array. Arrays are only built when something asks for them, so their values are built right away,
+     * but objects inside them are still lazy.
+     */
+    private JSONArray array(int token) {
+        JSONArray out = new JSONArray();
+        for (int i = token + 1; i < ends[token]; i = next(i))
+            out.put(value(i));
+        return out;
+    }
+
+    private String string(int token) {
+        int start = starts[token];
+        int end = ends[token];
+        if (kinds[token] == PLAIN_STRING)
+            return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+        StringBuilder out = new StringBuilder(end - start);
+        int run = start;
+        int pos = start;
+        while (pos < end) {
+            if (data[pos] != '\\') {
+                pos++;
+                continue;
+            }
+            out.append(new String(data, run, pos - run, StandardCharsets.UTF_8));
+            byte c = data[pos + 1];
+            pos += 2;
+            switch (c) {
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'u':
+                    // Checked while indexing, so these are four hex digits.
+                    out.append((char) (hex(data[pos]) << 12 | hex(data[pos + 1]) << 8 | hex(data[pos + 2]) << 4 | hex(data[pos + 3])));
+                    pos += 4;
+                    break;
+                default:
+                    // '"', '\\' or '/', the only others indexing allows.
+                    out.append((char) c);
+            }
+            run = pos;
+        }
+        return out.append(new String(data, run, end - run, StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * Build a number the same way org.json would, skipping the String for small integers.
+     */
+    private Object number(int token) {
+        int start = starts[token];
+        int end = ends[token];
+        boolean negative = data[start] == '-';
+        int digits = end - start - (negative ? 1 : 0);
+        if (digits > 0 && digits <= 9 && (digits == 1 || data[end - digits] != '0')) {
+            int out = 0;
+            int i = end - digits;
+            for (; i < end; i++) {
+                byte c = data[i];
+                if (c < '0' || c > '9')
+                    break;
+                out = out * 10 + (c - '0');
+            }
+            if (i == end && !(negative && out == 0))
+                return negative ? -out : out;
+        }
+        return JSONObject.stringToValue(new String(data, start, end - start, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * A JSONObject backed by the tape. Objects and arrays inside it are kept once asked for, so changes to them stick.
+     */
+    private static class TapeObject extends JSONObject {
+        private final JSONTape tape;
+        private final int token;
+        /**
+         * If true, every value has been put into the JSONObject and the tape isn't used anymore.
+         */
+        private boolean filled;
+
+        private TapeObject(JSONTape tape, int token) {
+            this.tape = tape;
+            this.token = token;
+        }
+
+        private void fill() {
+            if (filled)
+                return;
+            filled = true;
+            int end = tape.ends[token];
+            for (int i = token + 1; i < end; i = tape.next(i + 1)) {
+                String key = tape.string(i);
+                if (super.opt(key) == null)
+                    super.put(key, tape.value(i + 1));
+            }
+        }
+
+        @Override
+        public Object opt(String key) {
+            if (key == null)
+                return null;
+            Object out = super.opt(key);
+            if (out != null || filled)
+                return out;
+            int value = tape.find(token, key);
+            if (value < 0)
+                return null;
+            out = tape.value(value);
+            if (out instanceof JSONObject || out instanceof JSONArray)
+                super.put(key, out);
+            return out;
+        }
+
+        @Override
+        public boolean has(String key) {
+            if (filled)
+                return super.has(key);
+            return super.has(key) || tape.find(token, key) >= 0;
+        }
+
+        @Override
+        public int length() {
+            if (filled)
+                return super.length();
+            return tape.size(token);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return length() == 0;
+        }
+
+        @Override
+        public Set<String> keySet() {
+            fill();
+            return super.keySet();
+        }
+
+        @Override
+        protected Set<Map.Entry<String, Object>> entrySet() {
+            fill();
+            return super.entrySet();
+        }
+
+        @Override
+        public JSONArray names() {
+            fill();
+            return super.names();
+        }
+
+        @Override
+        public JSONObject put(String key, Object value) {
+            fill();
+            return super.put(key, value);
+        }
+
+        @Override
+        public Object remove(String key) {
+            fill();
+            return super.remove(key);
+        }
+    }
+}
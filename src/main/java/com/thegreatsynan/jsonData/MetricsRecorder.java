@@ -0,0 +1,257 @@
+package com.thegreatsynan.jsonData;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PageMetrics that keeps counts, totals and a fetch latency histogram for each category.
+ * Everything is kept in LongAdders, so loading threads recording at once don't fight over one counter.
+ * Call snapshot to read them out, for printing or sending on to another metrics system.
+ */
+public class MetricsRecorder extends PageMetrics {
+    /**
+     * How many histogram buckets each doubling of time is split into.
+     */
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+    /**
+     * The counters of each category, made the first time the category is seen.
+     */
+    private final ConcurrentHashMap<String, Counters> categories = new ConcurrentHashMap<>();
+
+    @Override
+    public void fetched(String category, long nanos, long bytes) {
+        Counters counters = getCounters(category);
+        counters.fetches.increment();
+        counters.fetchNanos.add(nanos);
+        counters.bytes.add(bytes);
+        counters.latency[bucket(nanos)].increment();
+    }
+
+    @Override
+    public void parsed(String category, long nanos) {
+        Counters counters = getCounters(category);
+        counters.parses.increment();
+        counters.parseNanos.add(nanos);
+    }
+
+    @Override
+    public void created(String category, long nanos) {
+        Counters counters = getCounters(category);
+        counters.creates.increment();
+        counters.createNanos.add(nanos);
+    }
+
+    @Override
+    public void hit(String category) {
+        getCounters(category).hits.increment();
+    }
+
+    @Override
+    public void missed(String category) {
+        getCounters(category).misses.increment();
+    }
+
+    @Override
+    public void failed(String category, Exception error) {
+        getCounters(category).errors.increment();
+    }
+
+    /**
+     * Read out every count so far. Counts still being added to while this runs may or may not be included.
+     *
+     * @return The counts of each category recorded or in the registry, by category name in order.
+     */
+    public Map<String, Snapshot> snapshot() {
+        TreeMap<String, Snapshot> out = new TreeMap<>();
+        for (Map.Entry<String, Counters> i : categories.entrySet())
+            out.put(i.getKey(), i.getValue().snapshot(i.getKey()));
+        for (String i : JSONPage.getCategories()) {
+            if (!out.containsKey(i))
+                out.put(i, new Counters().snapshot(i));
+        }
+        return out;
+    }
+
+    /**
+     * Set every count back to 0.
+     */
+    public void reset() {
+        categories.clear();
+    }
+
+    private Counters getCounters(String category) {
+        if (category == null)
+            category = "";
+        Counters out = categories.get(category);
+        if (out == null) {
+            out = new Counters();
+            Counters old = categories.putIfAbsent(category, out);
+            if (old != null)
+                out = old;
+        }
+        return out;
+    }
+
+    /**
+     * Find the histogram bucket for a time. Buckets are a quarter of a doubling wide, so they're within about 19% of each other.
+     */
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS)
+            return (int) Math.max(0, nanos);
+        int power = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (power - 2)) & (SUB_BUCKETS - 1);
+        return power * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return The largest time that goes in a bucket.
+     */
+    private static long bucketLimit(int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+        int power = bucket / SUB_BUCKETS;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (power - 2)) - 1;
+    }
+
+    /**
+     * The live counters of one category.
+     */
+    private static class Counters {
+        private final LongAdder fetches = new LongAdder();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder parses = new LongAdder();
+        private final LongAdder parseNanos = new LongAdder();
+        private final LongAdder creates = new LongAdder();
+        private final LongAdder createNanos = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder[] latency = new LongAdder[BUCKETS];
+
+        private Counters() {
+            for (int i = 0; i < latency.length; i++)
+                latency[i] = new LongAdder();
+        }
+
+        private Snapshot snapshot(String category) {
+            long[] buckets = new long[BUCKETS];
+            for (int i = 0; i < buckets.length; i++)
+                buckets[i] = latency[i].sum();
+            return new Snapshot(category, fetches.sum(), fetchNanos.sum(), bytes.sum(), parses.sum(), parseNanos.sum(), creates.sum(),
+                    createNanos.sum(), hits.sum(), misses.sum(), errors.sum(), JSONPage.getLoadedCount(category), buckets);
+        }
+    }
+
+    /**
+     * The counts of one category at one point in time.
+     */
+    public static class Snapshot {
+        public final String category;
+        /**
+         * How many fetches were made. A batch request counts as one.
+         */
+        public final long fetches;
+        /**
+         * How long all the fetches took together, in nanoseconds.
+         */
+        public final long fetchNanos;
+        /**
+         * How many bytes were fetched.
+         */
+        public final long bytes;
+        public final long parses;
+        public final long parseNanos;
+        /**
+         * How many pages were made from JSON.
+         */
+        public final long creates;
+        public final long createNanos;
+        /**
+         * How many pages asked for were already loaded.
+         */
+        public final long hits;
+        /**
+         * How many pages asked for had to be fetched.
+         */
+        public final long misses;
+        /**
+         * How many fetches failed.
+         */
+        public final long errors;
+        /**
+         * How many pages of the category were in the registry.
+         */
+        public final int registrySize;
+        /**
+         * How many fetches took each range of time. Use getFetchPercentile to read it.
+         */
+        private final long[] latency;
+
+        public Snapshot(String category, long fetches, long fetchNanos, long bytes, long parses, long parseNanos, long creates, long createNanos,
+                        long hits, long misses, long errors, int registrySize, long[] latency) {
+            this.category = category;
+            this.fetches = fetches;
+            this.fetchNanos = fetchNanos;
+            this.bytes = bytes;
+            this.parses = parses;
+            this.parseNanos = parseNanos;
+            this.creates = creates;
+            this.createNanos = createNanos;
+            this.hits = hits;
+            this.misses = misses;
+            this.errors = errors;
+            this.registrySize = registrySize;
+            this.latency = latency;
+        }
+
+        /**
+         * @return The share of pages asked for that were already loaded, from 0 to 1.
+         */
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : hits / (double) total;
+        }
+
+        /**
+         * @return The average fetch time, in nanoseconds.
+         */
+        public double getMeanFetchNanos() {
+            return fetches == 0 ? 0 : fetchNanos / (double) fetches;
+        }
+
+        /**
+         * Estimate a fetch time percentile from the histogram.
+         *
+         * @param percent The percentile, from 0 to 100.
+         * @return The most time the given percent of fetches took, in nanoseconds, rounded up to the end of its bucket. 0 if there were no fetches.
+         */
+        public long getFetchPercentile(double percent) {
+            long total = 0;
+            for (long i : latency)
+                total += i;
+            if (total == 0)
+                return 0;
+            long target = Math.max(1, (long) Math.ceil(total * percent / 100));
+            long seen = 0;
+            for (int i = 0; i < latency.length; i++) {
+                seen += latency[i];
+                if (seen >= target)
+                    return bucketLimit(i);
+            }
+            return bucketLimit(latency.length - 1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d fetches (%d errors, %d bytes, mean %.2f ms, p50 %.2f ms, p99 %.2f ms), %d parses (%.2f ms), %d creates (%.2f ms), " +
+                            "%d hits, %d misses (%.1f%% hit), %d loaded",
+                    category, fetches, errors, bytes, getMeanFetchNanos() / 1e6, getFetchPercentile(50) / 1e6, getFetchPercentile(99) / 1e6,
+                    parses, parseNanos / 1e6, creates, createNanos / 1e6, hits, misses, getHitRate() * 100, registrySize);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.thegreatsynan.jsonData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Finds the loaded pages of one category by name, exactly or by the start of the name.
+ * JSONPage keeps it up to date as pages are loaded and unloaded.
+ * <p>
+ * Exact lookups use a map from each name to its page, or an array of pages when more than one page has the name.
+ * Prefix lookups binary search a sorted array of the names. Names added since the array was sorted are queued,
+ * and merged in by the next prefix lookup, so loading pages never sorts anything.
+ * Lookups can run on any number of threads while pages are added; results can miss pages added or removed at the same time.
+ * Pages found that are no longer the registry's page for their id, which can happen when a page is replaced while the index is filled,
+ * are left out and removed.
+ */
+class NameIndex {
+    private static final String[] EMPTY = new String[0];
+    /**
+     * The category of the pages.
+     */
+    private final String category;
+    /**
+     * Opened once the pages already loaded when the index was made have been added.
+     */
+    private final CountDownLatch filled = new CountDownLatch(1);
+    /**
+     * The page or pages with each name.
+     */
+    private final ConcurrentHashMap<String, Object> pages = new ConcurrentHashMap<>();
+    /**
+     * Names added since sorted was made.
+     */
+    private final ConcurrentLinkedQueue<String> added = new ConcurrentLinkedQueue<>();
+    /**
+     * Every name, sorted, as of the last merge. May still have names that have since been removed.
+     */
+    private volatile String[] sorted = EMPTY;
+    /**
+     * If any name was removed since sorted was made.
+     */
+    private volatile boolean removed;
+
+    /**
+     * @param category The category of the pages.
+     */
+    NameIndex(String category) {
+        this.category = category;
+    }
+
+    /**
+     * Add the pages already loaded. Lookups wait until this is done.
+     *
+     * @param loaded The pages loaded before the index was made.
+     */
+    void fill(Collection<JSONPage> loaded) {
+        try {
+            for (JSONPage i : loaded)
+                add(i);
+        } finally {
+            filled.countDown();
+        }
+    }
+
+    private void awaitFilled() {
+        boolean interrupted = false;
+        while (filled.getCount() > 0) {
+            try {
+                filled.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Add a page. Does nothing if it is already added.
+     *
+     * @param page The page to add.
+     */
+    void add(JSONPage page) {
+        if (page.name == null)
+            return;
+        boolean[] isNew = new boolean[1];
+        pages.compute(page.name, (name, old) -> {
+            if (old == null) {
+                isNew[0] = true;
+                return page;
+            }
+            if (old instanceof JSONPage) {
+                if (old == page)
+                    return old;
+                return new JSONPage[]{(JSONPage) old, page};
+            }
+            JSONPage[] list = (JSONPage[]) old;
+            for (JSONPage i : list) {
+                if (i == page)
+                    return old;
+            }
+            JSONPage[] out = Arrays.copyOf(list, list.length + 1);
+            out[list.length] = page;
+            return out;
+        });
+        if (isNew[0])
+            added.add(page.name);
+    }
+
+    /**
+     * Remove a page. Does nothing if it wasn't added.
+     *
+     * @param page The page to remove.
+     */
+    void remove(JSONPage page) {
+        if (page.name == null)
+            return;
+        pages.computeIfPresent(page.name, (name, old) -> {
+            if (old == page) {
+                removed = true;
+                return null;
+            }
+            if (old instanceof JSONPage)
+                return old;
+            JSONPage[] list = (JSONPage[]) old;
+            int index = -1;
+            for (int i = 0; i < list.length; i++) {
+                if (list[i] == page)
+                    index = i;
+            }
+            if (index < 0)
+                return old;
+            if (list.length == 2)
+                return list[1 - index];
+            JSONPage[] out = new JSONPage[list.length - 1];
+            System.arraycopy(list, 0, out, 0, index);
+            System.arraycopy(list, index + 1, out, index, out.length - index);
+            return out;
+        });
+    }
+
+    /**
+     * @param name The name to look for.
+     * @return Every page with exactly that name, in no order.
+     */
+    JSONPage[] get(String name) {
+        awaitFilled();
+        ArrayList<JSONPage> out = new ArrayList<>(1);
+        if (name != null)
+            collect(pages.get(name), out);
+        return out.toArray(new JSONPage[0]);
+    }
+
+    /**
+     * @param prefix The start of the names to look for.
+     * @return Every page with a name starting with the prefix, sorted by name.
+     */
+    JSONPage[] getPrefixed(String prefix) {
+        awaitFilled();
+        String[] names = getSorted();
+        int start = Arrays.binarySearch(names, prefix);
+        if (start < 0)
+            start = -start - 1;
+        ArrayList<JSONPage> out = new ArrayList<>();
+        for (int i = start; i < names.length && names[i].startsWith(prefix); i++)
+            collect(pages.get(names[i]), out);
+        return out.toArray(new JSONPage[0]);
+    }
+
+    /**
+     * Add the pages found for a name to a list, leaving out and removing any no longer in the registry.
+     */
+    private void collect(Object found, ArrayList<JSONPage> out) {
+        if (found instanceof JSONPage)
+            collect((JSONPage) found, out);
+        else if (found != null) {
+            for (JSONPage i : (JSONPage[]) found)
+                collect(i, out);
+        }
+    }
+
+    private void collect(JSONPage page, ArrayList<JSONPage> out) {
+        if (JSONPage.getLoaded(category, page.id) == page)
+            out.add(page);
+        else
+            remove(page);
+    }
+
+    /**
+     * Get the sorted names, merging in any added since the last time and dropping any removed.
+     */
+    private String[] getSorted() {
+        if (added.isEmpty() && !removed)
+            return sorted;
+        synchronized (this) {
+            ArrayList<String> fresh = new ArrayList<>();
+            String name;
+            while ((name = added.poll()) != null)
+                fresh.add(name);
+            boolean prune = removed;
+            removed = false;
+            if (fresh.isEmpty() && !prune)
+                return sorted;
+            String[] adding = fresh.toArray(EMPTY);
+            Arrays.sort(adding);
+            String[] old = sorted;
+            String[] out = new String[old.length + adding.length];
+            int size = 0;
+            int a = 0;
+            int b = 0;
+            while (a < old.length || b < adding.length) {
+                String next;
+                if (b == adding.length || (a < old.length && old[a].compareTo(adding[b]) <= 0))
+                    next = old[a++];
+                else
+                    next = adding[b++];
+                if (size > 0 && out[size - 1].equals(next))
+                    continue;
+                if (prune && !pages.containsKey(next))
+                    continue;
+                out[size++] = next;
+            }
+            sorted = size == out.length ? out : Arrays.copyOf(out, size);
+            return sorted;
+        }
+    }
+}
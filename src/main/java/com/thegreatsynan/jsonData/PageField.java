@@ -0,0 +1,74 @@
+package com.thegreatsynan.jsonData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A typed getter for one value of a generated class, named by the value's key in its API.
+ * ClassCreator makes one constant for each value, like Pokemon.HEIGHT, and a FIELDS list of them all, for PageQuery to filter and project with.
+ * Link values give the linked page's id, or ids for arrays.
+ *
+ * @param <T> The class the value is in.
+ * @param <V> The type of the value.
+ */
+public class PageField<T, V> {
+    /**
+     * The value's key in the API.
+     */
+    public final String key;
+    /**
+     * The type of the value.
+     */
+    public final Class<V> type;
+    private final Function<T, V> getter;
+
+    /**
+     * @param key    The value's key in the API.
+     * @param type   The type of the value.
+     * @param getter Reads the value from an object.
+     */
+    public PageField(String key, Class<V> type, Function<T, V> getter) {
+        this.key = key;
+        this.type = type;
+        this.getter = getter;
+    }
+
+    /**
+     * @param object The object to read.
+     * @return The value, can be null.
+     */
+    public V get(T object) {
+        return getter.apply(object);
+    }
+
+    /**
+     * Make a test for objects whose value passes a test. Objects where the value is null never pass.
+     *
+     * @param test The test for the value.
+     * @return The test for the object.
+     */
+    public Predicate<T> matches(Predicate<? super V> test) {
+        return object -> {
+            V value = getter.apply(object);
+            return value != null && test.test(value);
+        };
+    }
+
+    /**
+     * Make the FIELDS list of a generated class.
+     *
+     * @param fields Every field of the class, in the order of its API's values.
+     * @return An unmodifiable copy of the fields.
+     */
+    @SafeVarargs
+    public static <T> List<PageField<T, ?>> list(PageField<T, ?>... fields) {
+        // Copied one by one, since handing the array on to Arrays.asList would let it escape.
+        ArrayList<PageField<T, ?>> out = new ArrayList<>(fields.length);
+        for (PageField<T, ?> i : fields)
+            out.add(i);
+        return Collections.unmodifiableList(out);
+    }
+}
@@ -0,0 +1,68 @@
+package com.thegreatsynan.jsonData;
+
+/**
+ * Told about every page fetch, parse and registry lookup, so they can be counted and timed.
+ * Set one with JSONPage.setMetrics. Every method does nothing by default, so only the ones needed have to be overridden.
+ * Methods are called on the loading threads, often many at once, so they should be quick and thread safe.
+ * MetricsRecorder is a ready made one.
+ */
+public abstract class PageMetrics {
+    /**
+     * Records nothing. Used until another is set.
+     */
+    public static final PageMetrics NONE = new PageMetrics() {
+    };
+
+    /**
+     * A page or batch of pages was downloaded or read.
+     *
+     * @param category The category of the pages.
+     * @param nanos    How long the fetch took, in nanoseconds.
+     * @param bytes    How many bytes were fetched.
+     */
+    public void fetched(String category, long nanos, long bytes) {
+    }
+
+    /**
+     * Fetched bytes were parsed into JSON.
+     *
+     * @param category The category of the pages.
+     * @param nanos    How long the parse took, in nanoseconds.
+     */
+    public void parsed(String category, long nanos) {
+    }
+
+    /**
+     * A page was made from its JSON, which also adds it to the registry.
+     *
+     * @param category The category of the page.
+     * @param nanos    How long the page's constructor took, in nanoseconds.
+     */
+    public void created(String category, long nanos) {
+    }
+
+    /**
+     * A page asked for with JSONPage.get was already loaded.
+     *
+     * @param category The category of the page.
+     */
+    public void hit(String category) {
+    }
+
+    /**
+     * A page asked for with JSONPage.get wasn't loaded yet, so it was fetched.
+     *
+     * @param category The category of the page.
+     */
+    public void missed(String category) {
+    }
+
+    /**
+     * A page or batch of pages couldn't be fetched.
+     *
+     * @param category The category of the pages.
+     * @param error    What went wrong.
+     */
+    public void failed(String category, Exception error) {
+    }
+}
@@ -0,0 +1,169 @@
+package com.thegreatsynan.jsonData;
+
+import java.util.ArrayList;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Filters and projects the loaded pages of one category in parallel, reading values with the generated PageField getters.
+ * Generated page classes have a query() method that starts one, like Pokemon.query().where(Pokemon.HEIGHT, h -> h > 10).select(Pokemon.NAME).
+ * <p>
+ * Queries are immutable; where returns a new query. Nothing is read until a stream is consumed, and the streams are parallel,
+ * splitting the category's registry map across the common fork-join pool. Pages loaded while a query runs may or may not be included.
+ * Partial pages, loaded with a FieldSet, are left out, as the values they're missing would read as null.
+ *
+ * @param <T> The class of the pages.
+ */
+public class PageQuery<T extends JSONPage> {
+    /**
+     * The category searched.
+     */
+    public final String category;
+    /**
+     * The class of the pages.
+     */
+    public final Class<T> type;
+    /**
+     * Every field of the class, used to look fields up by key.
+     */
+    public final List<PageField<T, ?>> fields;
+    /**
+     * What a page has to pass to be included. Null to include them all.
+     */
+    private final Predicate<? super T> filter;
+
+    /**
+     * @param category The category to search.
+     * @param type     The class of the pages.
+     * @param fields   Every field of the class. Usually the class's FIELDS.
+     */
+    public PageQuery(String category, Class<T> type, List<PageField<T, ?>> fields) {
+        this(category, type, fields, null);
+    }
+
+    private PageQuery(String category, Class<T> type, List<PageField<T, ?>> fields, Predicate<? super T> filter) {
+        this.category = category;
+        this.type = type;
+        this.fields = fields;
+        this.filter = filter;
+    }
+
+    /**
+     * Only include pages that pass a test, as well as any tests already added.
+     *
+     * @param test The test.
+     * @return The new query.
+     */
+    public PageQuery<T> where(Predicate<? super T> test) {
+        Predicate<? super T> old = filter;
+        return new PageQuery<>(category, type, fields, old == null ? test : (Predicate<T>) page -> old.test(page) && test.test(page));
+    }
+
+    /**
+     * Only include pages where a value passes a test. Pages where the value is null are left out.
+     *
+     * @param field The value to test.
+     * @param test  The test.
+     * @return The new query.
+     */
+    public <V> PageQuery<T> where(PageField<? super T, V> field, Predicate<? super V> test) {
+        return where(page -> {
+            V value = field.get(page);
+            return value != null && test.test(value);
+        });
+    }
+
+    /**
+     * Only include pages where the value with a key from the API passes a test. Pages where the value is null are left out.
+     *
+     * @param key  The value's key.
+     * @param test The test.
+     * @return The new query.
+     * @throws IllegalArgumentException If the class has no value with the key.
+     */
+    public PageQuery<T> where(String key, Predicate<Object> test) {
+        return where(getField(key), test);
+    }
+
+    /**
+     * Get the field with a key from the API.
+     *
+     * @param key The value's key.
+     * @return The field.
+     * @throws IllegalArgumentException If the class has no value with the key.
+     */
+    public PageField<T, ?> getField(String key) {
+        for (PageField<T, ?> i : fields) {
+            if (i.key.equals(key))
+                return i;
+        }
+        ArrayList<String> keys = new ArrayList<>();
+        for (PageField<T, ?> i : fields)
+            keys.add(i.key);
+        throw new IllegalArgumentException(type.getSimpleName() + " has no value " + key + ". It has " + String.join(", ", keys));
+    }
+
+    /**
+     * @return A parallel stream of every page included. Read lazily as it is consumed.
+     */
+    public Stream<T> stream() {
+        Stream<T> out = StreamSupport.stream(JSONPage.getLoadedPages(category).spliterator(), true)
+                .filter(page -> !page.isPartial() && type.isInstance(page))
+                .map(type::cast);
+        return filter == null ? out : out.filter(filter);
+    }
+
+    /**
+     * @param field The value to read.
+     * @return A parallel stream of the value of every page included, null values included.
+     */
+    public <V> Stream<V> select(PageField<? super T, V> field) {
+        return stream().map(field::get);
+    }
+
+    /**
+     * @param keys The keys of the values to read.
+     * @return A parallel stream with an array for every page included, holding its values in the order of the keys.
+     * @throws IllegalArgumentException If the class has no value with one of the keys.
+     */
+    public Stream<Object[]> select(String... keys) {
+        ArrayList<PageField<T, ?>> chosen = new ArrayList<>();
+        for (String i : keys)
+            chosen.add(getField(i));
+        return stream().map(page -> {
+            Object[] row = new Object[chosen.size()];
+            for (int i = 0; i < row.length; i++)
+                row[i] = chosen.get(i).get(page);
+            return row;
+        });
+    }
+
+    /**
+     * @return How many pages are included.
+     */
+    public long count() {
+        return stream().count();
+    }
+
+    /**
+     * @return Every page included, in no order.
+     */
+    public List<T> list() {
+        return stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Count, total, average, lowest and highest of a number value over the pages included. Null values are skipped.
+     *
+     * @param field The value to summarize.
+     * @return The summary.
+     */
+    public DoubleSummaryStatistics summarize(PageField<? super T, ? extends Number> field) {
+        return select(field).filter(value -> value != null).mapToDouble(Number::doubleValue)
+                .collect(DoubleSummaryStatistics::new, DoubleSummaryStatistics::accept, DoubleSummaryStatistics::combine);
+    }
+}
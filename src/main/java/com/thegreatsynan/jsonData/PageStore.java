@@ -0,0 +1,829 @@
+package com.thegreatsynan.jsonData;
+
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * An embedded store that keeps encoded pages on disk, so more pages can be served than fit in the heap.
+ * Each category has its own folder of append-only segment files. Only the newest segment is written to;
+ * older ones are memory-mapped for reading. An in-memory index maps each id to where its newest copy is.
+ * A background thread compacts a category's old segments once most of their records have been replaced or deleted.
+ * Compaction only deletes the segments it replaced once the new ones are safely on disk, oldest first,
+ * so a crash partway through never leaves an old copy of a page without the newer deletion that outranks it.
+ * Its failures go to the handler given to the constructor, or are thrown by close if there isn't one.
+ * <p>
+ * Each record is: int id, int length (-1 for a deletion), long sequence number, then the UTF-8 JSON.
+ */
+public class PageStore implements Closeable {
+    private static final int HEADER = 16;
+    private static final String SUFFIX = ".seg";
+    private static final String TEMP = ".compact";
+    /**
+     * The folder holding a folder for each category.
+     */
+    public final File folder;
+    /**
+     * The size a segment can grow to before a new one is started.
+     */
+    public final long segmentSize;
+    /**
+     * The logs that have been opened, by category.
+     */
+    private final ConcurrentHashMap<String, Log> logs = new ConcurrentHashMap<>();
+    /**
+     * Runs compaction in the background. Null if compaction was turned off.
+     */
+    private final ScheduledExecutorService compactor;
+    /**
+     * Told about failures of background compaction. Null to keep the first one for close to throw.
+     */
+    private final Consumer<IOException> errors;
+    /**
+     * The first background failure, if there's no handler.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Open a store with 64 MB segments, compacting every 30 seconds.
+     *
+     * @param folder The folder to keep the store in. Made if it doesn't exist.
+     * @throws IOException If existing segments can't be read.
+     */
+    public PageStore(File folder) throws IOException {
+        this(folder, 64L << 20, 30);
+    }
+
+    /**
+     * @param folder          The folder to keep the store in. Made if it doesn't exist.
+     * @param segmentSize     The size a segment can grow to before a new one is started.
+     * @param compactSeconds  How often to check for categories to compact. If 0 or less, only compact() does it.
+     * @throws IOException If existing segments can't be read.
+     */
+    public PageStore(File folder, long segmentSize, int compactSeconds) throws IOException {
+        this(folder, segmentSize, compactSeconds, null);
+    }
+
+    /**
+     * @param folder          The folder to keep the store in. Made if it doesn't exist.
+     * @param segmentSize     The size a segment can grow to before a new one is started.
+     * @param compactSeconds  How often to check for categories to compact. If 0 or less, only compact() does it.
+     * @param errors          Told about each failure of background compaction, on the compaction thread.
+     *                        If null, the first failure is thrown by close.
+     * @throws IOException If existing segments can't be read.
+     */
+    public PageStore(File folder, long segmentSize, int compactSeconds, Consumer<IOException> errors) throws IOException {
+        if (segmentSize <= HEADER || segmentSize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Bad segment size " + segmentSize);
+        this.folder = folder;
+        this.segmentSize = segmentSize;
+        this.errors = errors;
+        if (!folder.isDirectory() && !folder.mkdirs())
+            throw new IOException("Could not make " + folder);
+        File[] categories = folder.listFiles();
+        if (categories != null) {
+            for (File i : categories) {
+                if (i.isDirectory())
+                    logs.put(i.getName(), new Log(i));
+            }
+        }
+        if (compactSeconds > 0) {
+            compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "PageStore compactor");
+                t.setDaemon(true);
+                return t;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly, compactSeconds, compactSeconds, TimeUnit.SECONDS);
+        } else
+            compactor = null;
+    }
+
+    private Log getLog(String category) throws IOException {
+        Log out = logs.get(category);
+        if (out == null) {
+            synchronized (logs) {
+                out = logs.get(category);
+                if (out == null) {
+                    checkCategory(category);
+                    out = new Log(new File(folder, category));
+                    logs.put(category, out);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Categories are used as folder names, so they can't be empty or a path.
+     *
+     * @throws IllegalArgumentException If the category isn't a plain name.
+     */
+    private static void checkCategory(String category) {
+        if (category.isEmpty() || category.equals(".") || category.equals("..") || category.indexOf('/') >= 0
+                || category.indexOf('\\') >= 0 || category.indexOf(File.separatorChar) >= 0 || category.indexOf(0) >= 0)
+            throw new IllegalArgumentException("Bad category " + category);
+    }
+
+    /**
+     * Save a page, replacing any older copy.
+     *
+     * @param page The page to save.
+     * @param base The URL writer used to encode it.
+     * @throws IOException              If the page can't be written.
+     * @throws IllegalArgumentException If the page is partial, as it would be served as a full page missing values.
+     */
+    public void put(JSONPage page, URLEncoder base) throws IOException {
+        if (page.isPartial())
+            throw new IllegalArgumentException("Page " + page.getCategory() + "/" + page.id + " is partial");
+        put(page.getCategory(), page.id, page.makeObject(base).toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Save the JSON for a page, replacing any older copy.
+     *
+     * @param category The category the page is in.
+     * @param id       The id of the page.
+     * @param json     The UTF-8 JSON of the page.
+     * @throws IOException              If the page can't be written.
+     * @throws IllegalArgumentException If the category is empty or has a path in it.
+     */
+    public void put(String category, int id, byte[] json) throws IOException {
+        getLog(category).append(id, json);
+    }
+
+    /**
+     * Save every loaded page in a category, leaving out partial pages.
+     *
+     * @param category The category to save.
+     * @param base     The URL writer used to encode the pages.
+     * @return How many pages were saved.
+     * @throws IOException If a page can't be written.
+     */
+    public int putAll(String category, URLEncoder base) throws IOException {
+        int count = 0;
+        for (int i : JSONPage.getLoadedIDs(category)) {
+            JSONPage page = JSONPage.getLoaded(category, i);
+            if (page != null && !page.isPartial()) {
+                put(page, base);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Delete a page. Nothing is written if it isn't stored.
+     *
+     * @param category The category the page is in.
+     * @param id       The id of the page.
+     * @throws IOException If the deletion can't be written.
+     */
+    public void remove(String category, int id) throws IOException {
+        Log log = logs.get(category);
+        if (log != null)
+            log.append(id, null);
+    }
+
+    /**
+     * Get the stored JSON for a page. For older segments this is a view of the mapped file, so nothing is copied.
+     *
+     * @param category The category the page is in.
+     * @param id       The id of the page.
+     * @return A read-only buffer of the UTF-8 JSON, or null if it isn't stored.
+     * @throws IOException If the page can't be read.
+     */
+    public ByteBuffer get(String category, int id) throws IOException {
+        Log log = logs.get(category);
+        return log == null ? null : log.read(id);
+    }
+
+    /**
+     * Get the stored JSON for a page.
+     *
+     * @param category The category the page is in.
+     * @param id       The id of the page.
+     * @return The JSON, or null if it isn't stored.
+     * @throws IOException If the page can't be read.
+     */
+    public JSONObject getJSON(String category, int id) throws IOException {
+        ByteBuffer buffer = get(category, id);
+        if (buffer == null)
+            return null;
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return JSONTape.parseObject(bytes);
+    }
+
+    /**
+     * @param category The category to look in.
+     * @return How many pages are stored in the category.
+     */
+    public int size(String category) {
+        Log log = logs.get(category);
+        return log == null ? 0 : log.size();
+    }
+
+    /**
+     * Compact every category with more replaced or deleted data than live data.
+     *
+     * @throws IOException If a segment can't be rewritten.
+     */
+    public void compact() throws IOException {
+        for (Log i : logs.values()) {
+            if (i.needsCompaction())
+                i.compact();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            if (errors != null)
+                errors.accept(e);
+            else if (failure == null)
+                failure = e;
+        }
+    }
+
+    /**
+     * Stop compacting and close every segment. Waits for a compaction that's already running to finish first.
+     *
+     * @throws IOException If a segment can't be closed, or background compaction failed and there was no handler.
+     */
+    @Override
+    public void close() throws IOException {
+        if (compactor != null) {
+            // Not shutdownNow, as interrupting a compaction would close the file channels it's using.
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for compaction to finish");
+            }
+        }
+        for (Log i : logs.values())
+            i.close();
+        if (failure != null)
+            throw new IOException("Background compaction failed", failure);
+    }
+
+    /**
+     * One file of records.
+     */
+    private static class Segment {
+        private final int number;
+        private final File file;
+        private final FileChannel channel;
+        /**
+         * The whole file, mapped once the segment is full. Null while it's still being written.
+         */
+        private volatile MappedByteBuffer mapped;
+        /**
+         * Where the next record will be written.
+         */
+        private long size;
+        /**
+         * The highest sequence number of any record in the segment, or -1 if it's empty.
+         */
+        private long last = -1;
+        /**
+         * If true, every record was copied out by a compaction that couldn't delete the file.
+         * It's kept so a later compaction can delete it in order, but its bytes are no longer counted.
+         */
+        private boolean replaced;
+
+        private Segment(File file, int number) throws IOException {
+            this.file = file;
+            this.number = number;
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+            this.size = channel.size();
+        }
+
+        private void seal() throws IOException {
+            channel.force(false);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        private ByteBuffer read(long position, int length) throws IOException {
+            MappedByteBuffer m = mapped;
+            if (m != null) {
+                ByteBuffer out = m.asReadOnlyBuffer();
+                out.position((int) position).limit((int) position + length);
+                return out.slice();
+            }
+            ByteBuffer out = ByteBuffer.allocate(length);
+            while (out.hasRemaining()) {
+                if (channel.read(out, position + out.position()) < 0)
+                    throw new IOException("Unexpected end of " + file);
+            }
+            out.flip();
+            return out.asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * The segments and index for one category.
+     */
+    private class Log {
+        private final File folder;
+        /**
+         * Where the newest copy of each id is: the segment number and the position of its record.
+         */
+        private final IntLongMap index = new IntLongMap();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        /**
+         * Every segment by number. Numbers are never reused, but don't give the order of the records; sequence numbers do.
+         */
+        private final HashMap<Integer, Segment> segments = new HashMap<>();
+        /**
+         * Stops two compactions from running on the same category at once.
+         */
+        private final Object compacting = new Object();
+        /**
+         * The only segment written to. Everything in it is newer than everything in the other segments.
+         */
+        private Segment active;
+        private int nextNumber;
+        private long sequence;
+        private long deadBytes;
+        private long totalBytes;
+        /**
+         * The part of deadBytes in the active segment, which compaction can't reclaim until it's sealed.
+         */
+        private long activeDead;
+        /**
+         * Set once closed, so a compaction started afterwards does nothing.
+         */
+        private boolean closed;
+
+        private Log(File folder) throws IOException {
+            this.folder = folder;
+            if (!folder.isDirectory() && !folder.mkdirs())
+                throw new IOException("Could not make " + folder);
+            File[] temps = folder.listFiles((dir, name) -> name.endsWith(TEMP));
+            if (temps != null) {
+                for (File i : temps) {
+                    if (!i.delete())
+                        throw new IOException("Could not delete " + i);
+                }
+            }
+            // Anything not named like a segment isn't one of ours, so it's left alone.
+            File[] files = folder.listFiles((dir, name) -> name.matches("\\d{1,9}" + Pattern.quote(SUFFIX)));
+            int[] numbers = new int[files == null ? 0 : files.length];
+            for (int i = 0; i < numbers.length; i++)
+                numbers[i] = Integer.parseInt(files[i].getName().substring(0, files[i].getName().length() - SUFFIX.length()));
+            Arrays.sort(numbers);
+            IntLongMap sequences = new IntLongMap();
+            for (int i : numbers) {
+                Segment segment = new Segment(new File(folder, i + SUFFIX), i);
+                nextNumber = i + 1;
+                if (segment.size == 0) {
+                    segment.channel.close();
+                    if (!segment.file.delete())
+                        throw new IOException("Could not delete " + segment.file);
+                    continue;
+                }
+                segments.put(i, segment);
+                recover(segment, sequences);
+                segment.seal();
+            }
+            // Always start a new segment, so the active one only ever holds the newest records.
+            active = newSegment();
+        }
+
+        private Segment newSegment() throws IOException {
+            Segment out = new Segment(new File(folder, nextNumber + SUFFIX), nextNumber);
+            segments.put(nextNumber++, out);
+            return out;
+        }
+
+        /**
+         * Replay a segment into the index, keeping whichever copy of each id has the highest sequence number.
+         */
+        private void recover(Segment segment, IntLongMap sequences) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            long position = 0;
+            while (position + HEADER <= segment.size) {
+                header.clear();
+                while (header.hasRemaining()) {
+                    if (segment.channel.read(header, position + header.position()) < 0)
+                        break;
+                }
+                header.flip();
+                int id = header.getInt();
+                int length = header.getInt();
+                long seq = header.getLong();
+                int size = HEADER + Math.max(length, 0);
+                if (position + size > segment.size)
+                    break;
+                totalBytes += size;
+                sequence = Math.max(sequence, seq + 1);
+                segment.last = Math.max(segment.last, seq);
+                long newest = sequences.get(id);
+                if (newest == IntLongMap.MISSING || newest < seq) {
+                    sequences.put(id, seq);
+                    long old = index.get(id);
+                    if (old != IntLongMap.MISSING)
+                        deadBytes += recordSize(old);
+                    if (length < 0) {
+                        index.remove(id);
+                        deadBytes += size;
+                    } else
+                        index.put(id, pack(segment.number, position));
+                } else
+                    deadBytes += size;
+                position += size;
+            }
+            if (position < segment.size) {
+                // A record was only partly written before a crash; drop it.
+                segment.channel.truncate(position);
+                segment.size = position;
+            }
+        }
+
+        private int size() {
+            lock.readLock().lock();
+            try {
+                return index.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void append(int id, byte[] json) throws IOException {
+            lock.writeLock().lock();
+            try {
+                long old = index.get(id);
+                if (json == null && old == IntLongMap.MISSING)
+                    return;
+                int length = json == null ? -1 : json.length;
+                int size = HEADER + Math.max(length, 0);
+                if (active.size > 0 && active.size + size > segmentSize) {
+                    active.seal();
+                    active = newSegment();
+                    activeDead = 0;
+                }
+                active.last = sequence;
+                ByteBuffer record = ByteBuffer.allocate(size);
+                record.putInt(id).putInt(length).putLong(sequence++);
+                if (json != null)
+                    record.put(json);
+                record.flip();
+                long position = active.size;
+                while (record.hasRemaining())
+                    active.channel.write(record, position + record.position());
+                active.size += size;
+                totalBytes += size;
+                if (old != IntLongMap.MISSING) {
+                    long dead = recordSize(old);
+                    deadBytes += dead;
+                    if (segmentOf(old) == active.number)
+                        activeDead += dead;
+                }
+                if (json == null) {
+                    index.remove(id);
+                    deadBytes += size;
+                    activeDead += size;
+                } else
+                    index.put(id, pack(active.number, position));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * The lock is held for the whole read, as compaction closes the segments it replaces.
+         * Mapped buffers handed out stay readable after that.
+         */
+        private ByteBuffer read(int id) throws IOException {
+            lock.readLock().lock();
+            try {
+                long location = index.get(id);
+                if (location == IntLongMap.MISSING)
+                    return null;
+                Segment segment = segments.get(segmentOf(location));
+                long position = positionOf(location);
+                return segment.read(position + HEADER, lengthAt(segment, position));
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private long recordSize(long location) throws IOException {
+            return HEADER + Math.max(lengthAt(segments.get(segmentOf(location)), positionOf(location)), 0);
+        }
+
+        /**
+         * Only the sealed segments are counted, as they're all compaction rewrites.
+         */
+        private boolean needsCompaction() {
+            lock.readLock().lock();
+            try {
+                return segments.size() > 1 && (deadBytes - activeDead) * 2 > totalBytes - active.size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Copy the live records out of every segment but the active one into one new segment, then drop the old ones.
+         * Writes can keep going while records are copied; any record replaced meanwhile is left where it is.
+         * Deletion records are dropped, since everything older than them is in the segments being dropped.
+         * That's only safe if those older copies are gone whenever the deletion is, so the old segments are deleted in
+         * order of their newest record, after the new ones are synced, and the rest are kept if one can't be deleted.
+         */
+        private void compact() throws IOException {
+            synchronized (compacting) {
+                HashMap<Integer, Segment> old = new HashMap<>();
+                int[] ids;
+                long[] locations;
+                long oldBytes = 0;
+                lock.readLock().lock();
+                try {
+                    if (closed)
+                        return;
+                    for (Segment i : segments.values()) {
+                        if (i != active) {
+                            old.put(i.number, i);
+                            if (!i.replaced)
+                                oldBytes += i.size;
+                        }
+                    }
+                    if (old.isEmpty())
+                        return;
+                    ids = new int[index.size()];
+                    locations = new long[ids.length];
+                    int count = 0;
+                    for (int i = 0; i < index.capacity(); i++) {
+                        if (index.isUsed(i) && old.containsKey(segmentOf(index.valueAt(i)))) {
+                            ids[count] = index.keyAt(i);
+                            locations[count++] = index.valueAt(i);
+                        }
+                    }
+                    ids = Arrays.copyOf(ids, count);
+                    locations = Arrays.copyOf(locations, count);
+                } finally {
+                    lock.readLock().unlock();
+                }
+                // The live records are copied into as many new files as it takes to keep each under the segment size.
+                ArrayList<File> temps = new ArrayList<>();
+                ArrayList<Long> lasts = new ArrayList<>();
+                int[] movedFile = new int[ids.length];
+                long[] moved = new long[ids.length];
+                long written = 0;
+                long position = 0;
+                RandomAccessFile file = null;
+                try {
+                    for (int i = 0; i < ids.length; i++) {
+                        Segment segment = old.get(segmentOf(locations[i]));
+                        long from = positionOf(locations[i]);
+                        ByteBuffer record = segment.read(from, HEADER + lengthAt(segment, from));
+                        if (file == null || (position > 0 && position + record.remaining() > segmentSize)) {
+                            if (file != null) {
+                                file.getChannel().force(false);
+                                file.close();
+                            }
+                            File temp = new File(folder, temps.size() + TEMP);
+                            temps.add(temp);
+                            lasts.add(-1L);
+                            file = new RandomAccessFile(temp, "rw");
+                            file.setLength(0);
+                            position = 0;
+                        }
+                        movedFile[i] = temps.size() - 1;
+                        moved[i] = position;
+                        lasts.set(movedFile[i], Math.max(lasts.get(movedFile[i]), record.getLong(8)));
+                        while (record.hasRemaining())
+                            position += file.getChannel().write(record, position);
+                        written += HEADER + lengthAt(segment, from);
+                    }
+                    if (file != null)
+                        file.getChannel().force(false);
+                } finally {
+                    if (file != null)
+                        file.close();
+                }
+                ArrayList<File> kept = new ArrayList<>();
+                lock.writeLock().lock();
+                try {
+                    if (closed) {
+                        for (File i : temps)
+                            i.delete();
+                        return;
+                    }
+                    int[] numbers = new int[temps.size()];
+                    for (int i = 0; i < numbers.length; i++) {
+                        numbers[i] = nextNumber++;
+                        File target = new File(folder, numbers[i] + SUFFIX);
+                        // Once renamed, the new segment is safe; if the old ones outlive a crash, sequence numbers sort it out.
+                        if (!temps.get(i).renameTo(target))
+                            throw new IOException("Could not rename " + temps.get(i) + " to " + target);
+                        Segment compacted = new Segment(target, numbers[i]);
+                        compacted.last = lasts.get(i);
+                        compacted.seal();
+                        segments.put(numbers[i], compacted);
+                    }
+                    syncFolder(folder);
+                    for (int i = 0; i < ids.length; i++) {
+                        if (index.get(ids[i]) == locations[i])
+                            index.put(ids[i], pack(numbers[movedFile[i]], moved[i]));
+                    }
+                    Segment[] order = old.values().toArray(new Segment[0]);
+                    Arrays.sort(order, (a, b) -> Long.compare(a.last, b.last));
+                    for (Segment i : order) {
+                        // Once one can't be deleted, newer ones holding the deletions that outrank its records have to stay too.
+                        if (!kept.isEmpty() || !i.file.delete()) {
+                            kept.add(i.file);
+                            i.replaced = true;
+                            continue;
+                        }
+                        segments.remove(i.number);
+                        i.channel.close();
+                    }
+                    totalBytes += written - oldBytes;
+                    deadBytes = Math.max(0, deadBytes - (oldBytes - written));
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                // The compaction still worked; the kept segments are deleted by the next one, or replayed and outranked on reopening.
+                if (!kept.isEmpty())
+                    throw new IOException("Compacted " + folder + " but could not delete " + kept);
+            }
+        }
+
+        /**
+         * Waits for a compaction of this category that's already running.
+         */
+        private void close() throws IOException {
+            synchronized (compacting) {
+                lock.writeLock().lock();
+                try {
+                    closed = true;
+                    for (Segment i : segments.values())
+                        i.channel.close();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Make the renames in a folder durable, so new segments are found after a crash before old ones are deleted.
+     * Some platforms can't open a folder to sync it, and the rename is left to the file system there.
+     */
+    private static void syncFolder(File folder) {
+        try (FileChannel channel = FileChannel.open(folder.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Ignored; see above.
+        }
+    }
+
+    /**
+     * Read the length from the header of a record.
+     */
+    private static int lengthAt(Segment segment, long position) throws IOException {
+        return segment.read(position + 4, 4).getInt(0);
+    }
+
+    private static long pack(int segment, long position) {
+        return ((long) segment << 40) | position;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 40);
+    }
+
+    private static long positionOf(long location) {
+        return location & ((1L << 40) - 1);
+    }
+
+    /**
+     * A map from int keys to long values, kept in two arrays so no objects are made per entry.
+     * Uses linear probing; removals shift later entries back instead of leaving markers.
+     */
+    private static class IntLongMap {
+        /**
+         * Returned when a key isn't in the map. Values can't be negative.
+         */
+        private static final long MISSING = -1;
+        private int[] keys = new int[16];
+        private long[] values = newValues(16);
+        private int size;
+
+        private static long[] newValues(int capacity) {
+            long[] out = new long[capacity];
+            Arrays.fill(out, MISSING);
+            return out;
+        }
+
+        private int slot(int key) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (keys.length - 1);
+        }
+
+        private long get(int key) {
+            for (int i = slot(key); ; i = (i + 1) & (keys.length - 1)) {
+                if (values[i] == MISSING)
+                    return MISSING;
+                if (keys[i] == key)
+                    return values[i];
+            }
+        }
+
+        private void put(int key, long value) {
+            if ((size + 1) * 4 > keys.length * 3)
+                grow();
+            for (int i = slot(key); ; i = (i + 1) & (keys.length - 1)) {
+                if (values[i] == MISSING) {
+                    keys[i] = key;
+                    values[i] = value;
+                    size++;
+                    return;
+                }
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+            }
+        }
+
+        private void remove(int key) {
+            int mask = keys.length - 1;
+            int i = slot(key);
+            while (true) {
+                if (values[i] == MISSING)
+                    return;
+                if (keys[i] == key)
+                    break;
+                i = (i + 1) & mask;
+            }
+            size--;
+            int gap = i;
+            for (int j = (gap + 1) & mask; values[j] != MISSING; j = (j + 1) & mask) {
+                int home = slot(keys[j]);
+                // Move the entry back if the gap is between its home slot and where it is now.
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            values[gap] = MISSING;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = newValues(oldKeys.length * 2);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != MISSING)
+                    put(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int capacity() {
+            return keys.length;
+        }
+
+        private boolean isUsed(int slot) {
+            return values[slot] != MISSING;
+        }
+
+        private int keyAt(int slot) {
+            return keys[slot];
+        }
+
+        private long valueAt(int slot) {
+            return values[slot];
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.thegreatsynan.jsonData;
+
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Checks JSON against the API of a type before it's made into an object: the type of each value, if it's an array,
+ * the values of nested objects, and that links are links to the right category.
+ * <p>
+ * The API is compiled once into a flat table with one check for each value, and nested types get their own table, shared by
+ * every value of that type. Checking reads each value once, walking the table, and allocates nothing unless there's a problem,
+ * so isValid can run on every page as it's loaded. validate and check then say what was wrong.
+ * <p>
+ * Values that are missing or null are allowed, as the generated classes read them as null, except the name and id of pages.
+ * Keys not in the API are ignored. A validator can be used by any number of threads at once.
+ */
+public class PageValidator {
+    private static final byte STRING = 0;
+    private static final byte INTEGER = 1;
+    private static final byte NUMBER = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte LINK = 4;
+    private static final byte OBJECT = 5;
+    private static final String[] KIND_NAMES = {"string", "integer", "number", "boolean", "link", "object"};
+
+    /**
+     * The API checked against.
+     */
+    public final JSONAPIPage api;
+    private final URLEncoder base;
+    private final String[] keys;
+    private final byte[] kinds;
+    private final boolean[] arrays;
+    /**
+     * If the value can't be missing or null.
+     */
+    private final boolean[] required;
+    /**
+     * The category linked to, for links.
+     */
+    private final String[] categories;
+    /**
+     * The validator of the type, for nested objects.
+     */
+    private final PageValidator[] nested;
+
+    /**
+     * @param api  The API to check against.
+     * @param apis Every API, so the types of nested objects and links can be found. Usually the same list given to ClassCreator.
+     * @param base The URL reader, used to check links.
+     * @throws IllegalArgumentException If a value has a type that isn't a simple value or in the list of APIs.
+     */
+    public PageValidator(JSONAPIPage api, JSONAPIPage[] apis, URLEncoder base) {
+        this(api, apis, base, new HashMap<>());
+    }
+
+    private PageValidator(JSONAPIPage api, JSONAPIPage[] apis, URLEncoder base, HashMap<String, PageValidator> compiled) {
+        compiled.put(api.object, this);
+        this.api = api;
+        this.base = base;
+        ArrayList<JSONAPIValue> values = new ArrayList<>();
+        for (JSONAPIValue i : api.values)
+            values.add(i);
+        if (api.category != null) {
+            for (String i : ClassCreator.defaultPageVars) {
+                boolean found = false;
+                for (JSONAPIValue j : api.values)
+                    found |= j.key.equals(i);
+                if (!found)
+                    values.add(new JSONAPIValue(i, i.equals("id") ? "integer" : "string", false, ""));
+            }
+        }
+        int size = values.size();
+        keys = new String[size];
+        kinds = new byte[size];
+        arrays = new boolean[size];
+        required = new boolean[size];
+        categories = new String[size];
+        nested = new PageValidator[size];
+        for (int i = 0; i < size; i++) {
+            JSONAPIValue value = values.get(i);
+            keys[i] = value.key;
+            arrays[i] = value.array != null && value.array;
+            required[i] = api.category != null && !arrays[i] && (value.key.equals("name") || value.key.equals("id"));
+            kinds[i] = getKind(value.type);
+            if (kinds[i] >= 0)
+                continue;
+            JSONAPIPage type = find(apis, value.type);
+            if (type == null)
+                throw new IllegalArgumentException(value.type + " does not have a loaded API");
+            if (type.category != null) {
+                kinds[i] = LINK;
+                categories[i] = type.category;
+            } else {
+                kinds[i] = OBJECT;
+                PageValidator made = compiled.get(type.object);
+                nested[i] = made != null ? made : new PageValidator(type, apis, base, compiled);
+            }
+        }
+    }
+
+    private static byte getKind(String type) {
+        switch (type.toLowerCase()) {
+            case "string":
+                return STRING;
+            case "integer":
+                return INTEGER;
+            case "float":
+            case "double":
+                return NUMBER;
+            case "boolean":
+                return BOOLEAN;
+            default:
+                return -1;
+        }
+    }
+
+    private static JSONAPIPage find(JSONAPIPage[] apis, String object) {
+        for (JSONAPIPage i : apis) {
+            if (i.object.equals(object))
+                return i;
+        }
+        return null;
+    }
+
+    /**
+     * Check JSON, stopping at the first problem. Allocates nothing itself.
+     *
+     * @param json The JSON of an object of the type.
+     * @return True if the JSON can be made into an object.
+     */
+    public boolean isValid(JSONObject json) {
+        return json != null && check(json, null) == 0;
+    }
+
+    /**
+     * Check JSON and list every problem found.
+     *
+     * @param json The JSON of an object of the type.
+     * @return Each problem, starting with the path to the value, like stats[2].baseStat. Empty if there are none.
+     */
+    public List<String> validate(JSONObject json) {
+        if (json == null)
+            return Collections.singletonList(api.object + ": expected object, found null");
+        ArrayList<String> out = null;
+        if (check(json, null) != 0) {
+            out = new ArrayList<>();
+            check(json, out);
+        }
+        return out == null ? Collections.<String>emptyList() : out;
+    }
+
+    /**
+     * Check JSON, as a step before making it into an object.
+     *
+     * @param json The JSON of an object of the type.
+     * @return The same JSON.
+     * @throws IllegalArgumentException If there are any problems, listing them all.
+     */
+    public JSONObject check(JSONObject json) {
+        if (!isValid(json))
+            throw new IllegalArgumentException("Invalid " + api.object + ": " + String.join("; ", validate(json)));
+        return json;
+    }
+
+    /**
+     * Walk the table once over the JSON.
+     *
+     * @param json   The JSON to check.
+     * @param errors Where to add problems. If null, stops at the first one.
+     * @return How many problems were found.
+     */
+    private int check(JSONObject json, List<String> errors) {
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            Object value = json.opt(keys[i]);
+            if (value == null || value == JSONObject.NULL) {
+                if (required[i]) {
+                    if (errors == null)
+                        return 1;
+                    errors.add(keys[i] + ": is required");
+                    count++;
+                }
+                continue;
+            }
+            if (!arrays[i]) {
+                int found = checkValue(i, value, errors);
+                if (found != 0) {
+                    if (errors == null)
+                        return found;
+                    count += found;
+                    prefix(errors, found, keys[i]);
+                }
+                continue;
+            }
+            if (!(value instanceof JSONArray)) {
+                if (errors == null)
+                    return 1;
+                errors.add(keys[i] + ": expected array, found " + describe(value));
+                count++;
+                continue;
+            }
+            JSONArray array = (JSONArray) value;
+            for (int j = 0, length = array.length(); j < length; j++) {
+                Object element = array.opt(j);
+                if ((element == null || element == JSONObject.NULL) && (kinds[i] != LINK && kinds[i] != OBJECT))
+                    continue;
+                int found = checkValue(i, element, errors);
+                if (found != 0) {
+                    if (errors == null)
+                        return found;
+                    count += found;
+                    prefix(errors, found, keys[i] + "[" + j + "]");
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check one value, or one element of an array, against its row of the table.
+     * Problems are added without the path to the value, which the caller puts in front.
+     */
+    private int checkValue(int row, Object value, List<String> errors) {
+        boolean ok;
+        switch (kinds[row]) {
+            case STRING:
+                ok = value instanceof String;
+                break;
+            case INTEGER:
+                ok = isInt(value);
+                break;
+            case NUMBER:
+                ok = value instanceof Number;
+                break;
+            case BOOLEAN:
+                ok = value instanceof Boolean;
+                break;
+            case LINK:
+                ok = value != null && value != JSONObject.NULL && base.isLink(value, categories[row]);
+                if (!ok && errors != null) {
+                    errors.add(": expected a link to " + categories[row] + ", found " + describe(value));
+                    return 1;
+                }
+                break;
+            default:
+                if (value instanceof JSONObject)
+                    return nested[row].check((JSONObject) value, errors);
+                ok = false;
+        }
+        if (!ok && errors != null)
+            errors.add(": expected " + KIND_NAMES[kinds[row]] + ", found " + describe(value));
+        return ok ? 0 : 1;
+    }
+
+    /**
+     * @return True if the value is a whole number that fits in an int, so JSONObject.getInt reads it without losing anything.
+     */
+    private static boolean isInt(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return true;
+        if (value instanceof Long)
+            return (Long) value == ((Long) value).intValue();
+        if (value instanceof BigInteger)
+            return ((BigInteger) value).bitLength() < 32;
+        if (!(value instanceof Number))
+            return false;
+        double number = ((Number) value).doubleValue();
+        return number == Math.rint(number) && number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE;
+    }
+
+    private static String describe(Object value) {
+        if (value == null || value == JSONObject.NULL)
+            return "null";
+        if (value instanceof String)
+            return "string \"" + value + "\"";
+        if (value instanceof JSONObject)
+            return "object";
+        if (value instanceof JSONArray)
+            return "array";
+        return value.getClass().getSimpleName().toLowerCase() + " " + value;
+    }
+
+    /**
+     * Put the path of a value in front of the last few problems added. Problems with the value itself start with a colon,
+     * and problems inside a nested object start with the path inside it.
+     */
+    private static void prefix(List<String> errors, int count, String path) {
+        for (int i = errors.size() - count; i < errors.size(); i++) {
+            String error = errors.get(i);
+            errors.set(i, path + (error.startsWith(":") ? "" : ".") + error);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder(api.object).append(" {");
+        for (int i = 0; i < keys.length; i++) {
+            out.append(i == 0 ? " " : ", ").append(keys[i]).append(": ")
+                    .append(kinds[i] == LINK ? "link to " + categories[i] : kinds[i] == OBJECT ? nested[i].api.object : KIND_NAMES[kinds[i]])
+                    .append(arrays[i] ? "[]" : "").append(required[i] ? " required" : "");
+        }
+        return out.append(" }").toString();
+    }
+}
@@ -0,0 +1,246 @@
+package com.thegreatsynan.jsonData;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Saves every loaded JSONPage to one binary file and loads them back, so a service can start from local disk
+ * instead of downloading every page again.
+ * <p>
+ * The file is: int magic, int version, long offset of the directory, then each category's records, then the directory.
+ * A record is an int id, an int length and the page's UTF-8 JSON. The directory lists each category's name,
+ * where its records start, how many bytes they take and how many there are, so categories can be loaded in parallel,
+ * and the name of the class the pages were saved from, so its Creator can be added before loading.
+ */
+public class RegistrySnapshot {
+    private static final int MAGIC = 0x4A415053;
+    private static final int VERSION = 2;
+    private static final int HEADER = 16;
+
+    private RegistrySnapshot() {
+    }
+
+    /**
+     * Save every loaded page. Partial pages are left out, since loading them back would make full pages missing values.
+     * The snapshot is written to a temporary file next to the given one and then moved over it,
+     * so a crash while saving leaves the old snapshot whole.
+     *
+     * @param file Where to save the snapshot. Replaced if it exists.
+     * @param base The URL writer used to encode the pages.
+     * @return How many pages were saved.
+     * @throws IOException If the file can't be written.
+     */
+    public static int save(File file, URLEncoder base) throws IOException {
+        File folder = file.getAbsoluteFile().getParentFile();
+        File temp = File.createTempFile(file.getName(), ".tmp", folder);
+        try {
+            int total = write(temp, base);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return total;
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    private static int write(File file, URLEncoder base) throws IOException {
+        ArrayList<String> names = new ArrayList<>(JSONPage.getCategories());
+        long[] offsets = new long[names.size()];
+        long[] lengths = new long[names.size()];
+        int[] counts = new int[names.size()];
+        String[] classes = new String[names.size()];
+        int total = 0;
+        long directory;
+        CountingStream counter = new CountingStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try (DataOutputStream out = new DataOutputStream(counter)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(0);
+            for (int c = 0; c < names.size(); c++) {
+                String category = names.get(c);
+                offsets[c] = counter.count;
+                for (int id : JSONPage.getLoadedIDs(category)) {
+                    JSONPage page = JSONPage.getLoaded(category, id);
+                    if (page == null || page.isPartial())
+                        continue;
+                    if (classes[c] == null)
+                        classes[c] = page.getClass().getName();
+                    byte[] json = page.makeObject(base).toString().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(id);
+                    out.writeInt(json.length);
+                    out.write(json);
+                    counts[c]++;
+                }
+                lengths[c] = counter.count - offsets[c];
+                total += counts[c];
+            }
+            directory = counter.count;
+            out.writeInt(names.size());
+            for (int c = 0; c < names.size(); c++) {
+                out.writeUTF(names.get(c));
+                out.writeLong(offsets[c]);
+                out.writeLong(lengths[c]);
+                out.writeInt(counts[c]);
+                out.writeUTF(classes[c] == null ? "" : classes[c]);
+            }
+        }
+        try (RandomAccessFile patch = new RandomAccessFile(file, "rw")) {
+            patch.seek(8);
+            patch.writeLong(directory);
+            patch.getFD().sync();
+        }
+        return total;
+    }
+
+    /**
+     * Load every page in a snapshot into the registry, decoding categories and runs of records on many threads at once.
+     * Each category needs a Creator added with JSONPage.addCreator, which generated classes do when they are loaded.
+     * The class each category was saved from is loaded first, so this works before anything else has touched those classes.
+     *
+     * @param file    The snapshot to load.
+     * @param base    The URL reader passed to the page constructors.
+     * @param threads How many threads to decode with.
+     * @return How many pages were loaded.
+     * @throws IOException If the file can't be read, isn't a snapshot, or a category has no Creator.
+     */
+    public static int load(File file, URLEncoder base, int threads) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt() != MAGIC)
+                throw new IOException(file + " is not a registry snapshot");
+            int version = header.getInt();
+            if (version != 1 && version != VERSION)
+                throw new IOException(file + " is snapshot version " + version + ", expected " + VERSION);
+            long directory = header.getLong();
+            ByteBuffer dir = channel.map(FileChannel.MapMode.READ_ONLY, directory, channel.size() - directory);
+            int categories = dir.getInt();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+            try {
+                ArrayList<Future<Integer>> loads = new ArrayList<>();
+                for (int c = 0; c < categories; c++) {
+                    String category = readUTF(dir);
+                    long offset = dir.getLong();
+                    long length = dir.getLong();
+                    int count = dir.getInt();
+                    if (version > 1)
+                        loadClass(category, readUTF(dir));
+                    if (length > Integer.MAX_VALUE)
+                        throw new IOException("Category " + category + " is too big to map");
+                    MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                    // Big categories are split into runs of records, so one category can use every thread too.
+                    int parts = Math.max(1, Math.min(threads, count / 1024));
+                    int perPart = (count + parts - 1) / Math.max(parts, 1);
+                    int position = 0;
+                    for (int first = 0; first < count; first += perPart) {
+                        int size = Math.min(perPart, count - first);
+                        int end = position;
+                        for (int i = 0; i < size; i++)
+                            end += 8 + records.getInt(end + 4);
+                        ByteBuffer part = records.duplicate();
+                        part.limit(end);
+                        part.position(position);
+                        ByteBuffer slice = part.slice();
+                        loads.add(pool.submit(() -> loadCategory(category, slice, size, base)));
+                        position = end;
+                    }
+                }
+                int total = 0;
+                for (Future<Integer> i : loads)
+                    total += i.get();
+                return total;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new IOException("Could not load " + file, e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static String readUTF(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Load the class a category was saved from, which adds its Creator.
+     *
+     * @param category The category.
+     * @param name     The name of the class. Empty if no pages were saved.
+     * @throws IOException If the class can't be found.
+     */
+    private static void loadClass(String category, String name) throws IOException {
+        if (name.isEmpty())
+            return;
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        try {
+            Class.forName(name, true, loader != null ? loader : RegistrySnapshot.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Category " + category + " was saved from " + name + ", which can't be found", e);
+        }
+    }
+
+    private static int loadCategory(String category, ByteBuffer records, int count, URLEncoder base) throws IOException {
+        for (int i = 0; i < count; i++) {
+            int id = records.getInt();
+            byte[] json = new byte[records.getInt()];
+            records.get(json);
+            JSONPage page = JSONPage.createObject(category, JSONTape.parseObject(json), base);
+            if (page == null)
+                throw new IOException("No Creator was added for category " + category);
+            if (page.id != id)
+                throw new IOException("Page " + category + "/" + id + " loaded with id " + page.id);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the bytes written, so offsets past 2 GB can be tracked.
+     */
+    private static class CountingStream extends FilterOutputStream {
+        private long count;
+
+        private CountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.thegreatsynan.jsonData;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded table for sharing equal Strings while decoding. Safe to use from many threads.
+ * Each String hashes to one slot; a new value takes the slot over, so the table never grows past its size.
+ */
+public class StringPool {
+    /**
+     * The pool used by generated classes for values marked to be interned.
+     */
+    public static final StringPool DEFAULT = new StringPool(1 << 14);
+    /**
+     * The slots holding the shared Strings.
+     */
+    private final AtomicReferenceArray<String> table;
+    /**
+     * Used to turn a hash into a slot. One less than the size of the table.
+     */
+    private final int mask;
+    /**
+     * How many Strings have been looked up.
+     */
+    private final LongAdder lookups = new LongAdder();
+    /**
+     * How many Strings were replaced by one already in the table.
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * The estimated bytes freed by replacing Strings with shared ones.
+     */
+    private final LongAdder savedBytes = new LongAdder();
+
+    /**
+     * @param size The most Strings to hold at once. Rounded up to a power of two.
+     */
+    public StringPool(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Size must be positive: " + size);
+        int slots = Integer.highestOneBit(size);
+        if (slots < size)
+            slots <<= 1;
+        this.table = new AtomicReferenceArray<>(slots);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Estimate how much heap a String takes up, counting its backing array.
+     *
+     * @param value The String to measure.
+     * @return The estimated size in bytes.
+     */
+    public static long sizeOf(String value) {
+        return 24 + ((16 + value.length() * 2L + 7) & ~7L);
+    }
+
+    /**
+     * Get the shared copy of a String, adding it to the table if there isn't one.
+     *
+     * @param value The String to share. Can be null.
+     * @return An equal String, the shared one if there is one.
+     */
+    public String intern(String value) {
+        if (value == null)
+            return null;
+        lookups.increment();
+        int h = value.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        String old = table.get(slot);
+        if (old != null && old.equals(value)) {
+            if (old != value) {
+                hits.increment();
+                savedBytes.add(sizeOf(value));
+            }
+            return old;
+        }
+        table.lazySet(slot, value);
+        return value;
+    }
+
+    /**
+     * Share every String in an array, replacing them in place.
+     *
+     * @param values The Strings to share. Can contain null.
+     * @return The same array.
+     */
+    public String[] intern(String[] values) {
+        for (int i = 0; i < values.length; i++)
+            values[i] = intern(values[i]);
+        return values;
+    }
+
+    /**
+     * @return How many Strings have been looked up.
+     */
+    public long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return How many Strings were replaced by a shared one.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The estimated bytes freed by sharing Strings.
+     */
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    /**
+     * Empty the table and reset the counts.
+     */
+    public void clear() {
+        for (int i = 0; i < table.length(); i++)
+            table.set(i, null);
+        lookups.reset();
+        hits.reset();
+        savedBytes.reset();
+    }
+
+    /**
+     * Make a readable summary of how much the pool has saved.
+     *
+     * @return The number of lookups, hits and estimated bytes saved.
+     */
+    public String report() {
+        long l = getLookups();
+        long h = getHits();
+        return String.format("StringPool[%d slots]: %d lookups, %d shared (%.1f%%), ~%d KB saved",
+                table.length(), l, h, l == 0 ? 0.0 : 100.0 * h / l, getSavedBytes() / 1024);
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
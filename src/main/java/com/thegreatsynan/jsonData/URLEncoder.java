@@ -3,7 +3,9 @@ package com.thegreatsynan.jsonData;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * Extend this class to make a class that will be able to decode/encode urls for objects and download/load JSON data.
@@ -34,7 +36,7 @@ public abstract class URLEncoder {
      * @param link The object containing the link.
      * @return The category the object is in.
      */
-    public final String getCategory(URLLink link) {
+    public String getCategory(URLLink link) {
         return getCategory(link.getURL());
     }
 
@@ -44,7 +46,7 @@ public abstract class URLEncoder {
      * @param link The object containing the link.
      * @return The ID for the object.
      */
-    public final int getID(URLLink link) {
+    public int getID(URLLink link) {
         return getID(link.getURL());
     }
 
@@ -59,6 +61,23 @@ public abstract class URLEncoder {
         return getID(loadLink(json, key));
     }
 
+    /**
+     * Check that a JSON value is a link to an object in a category, with a valid id. Used by PageValidator.
+     * Reads it with loadLink, getCategory and getID; override this to check it without building anything.
+     *
+     * @param value    The value a link is stored as.
+     * @param category The category it should link to.
+     * @return True if it's a link to an object in the category.
+     */
+    public boolean isLink(Object value, String category) {
+        try {
+            URLLink link = loadLink(new JSONObject().put("link", value), "link");
+            return link != null && category.equals(getCategory(link)) && getID(link) >= 0;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
     /**
      * Get the unique ID for the object fro the given URL.
      *
@@ -102,6 +121,58 @@ public abstract class URLEncoder {
         return loadJSON(makeURL(category, id));
     }
 
+    /**
+     * Load only some of the values of an object.
+     * Loads the whole object and keeps the chosen values; override this if the server can leave the others out.
+     *
+     * @param category The category the object is in.
+     * @param id       The id of the object.
+     * @param fields   The values to load.
+     * @return The JSONObject with only the chosen values, for converting into a partial object.
+     * @throws IOException If the JSON could not be loaded.
+     */
+    public JSONObject loadJSON(String category, int id, FieldSet fields) throws IOException {
+        return fields.select(loadJSON(category, id));
+    }
+
+    /**
+     * Load the JSON objects for many objects in one category.
+     * Loads them one at a time; override this if they can all be fetched at once.
+     *
+     * @param category The category the objects are in.
+     * @param ids      The ids of the objects.
+     * @return The JSONObjects for converting, in the same order as the ids. Null where one couldn't be loaded.
+     * @throws IOException If none of the JSON could be loaded.
+     */
+    public JSONObject[] loadJSON(String category, int[] ids) throws IOException {
+        JSONObject[] out = new JSONObject[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            try {
+                out[i] = loadJSON(category, ids[i]);
+            } catch (IOException e) {
+                out[i] = null;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Read everything left in a stream.
+     *
+     * @param in   The stream to read. It isn't closed.
+     * @param size How many bytes are expected, or less than 0 if it isn't known.
+     * @return All the bytes read.
+     * @throws IOException If the stream can't be read.
+     */
+    protected static byte[] readBytes(InputStream in, int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(size, 256));
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+            out.write(buffer, 0, read);
+        return out.toByteArray();
+    }
+
     /**
      * Make a URLLink object from inside the given JSONObject and key
      *
@@ -152,6 +223,32 @@ public abstract class URLEncoder {
         return makeURL(object.getCategory(), object.id);
     }
 
+    /**
+     * Make the JSON value a link to an object is stored as, when only its category and id are known.
+     * Override this if links aren't stored as plain URL strings.
+     *
+     * @param category The category the object is in.
+     * @param id       The id of the object.
+     * @return The value to put in a JSONObject or JSONArray.
+     */
+    public Object makeLink(String category, int id) {
+        return makeURL(category, id);
+    }
+
+    /**
+     * Create a JSONArray of links to objects when only their category and ids are known, without loading them.
+     *
+     * @param category The category the objects are in.
+     * @param ids      The ids of the objects.
+     * @return A JSONArray containing links to all the objects.
+     */
+    public JSONArray makeLinkArray(String category, int[] ids) {
+        JSONArray out = new JSONArray();
+        for (int i : ids)
+            out.put(makeLink(category, i));
+        return out;
+    }
+
     /**
      * A class that dictates how to save and read URL links.
      */
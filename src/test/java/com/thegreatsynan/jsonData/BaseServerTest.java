@@ -0,0 +1,205 @@
+package com.thegreatsynan.jsonData;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class BaseServerTest {
+    private static final String URL_BASE = "https://example.test/api/";
+    private static final GeneralURLEncoder BASE = new GeneralURLEncoder(URL_BASE, true);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger misses = new AtomicInteger();
+    private BaseServer server;
+
+    @Before
+    public void start() throws IOException {
+        JSONPage.setMetrics(new PageMetrics() {
+            @Override
+            public void missed(String category) {
+                misses.incrementAndGet();
+            }
+        });
+        server = new BaseServer(BASE, URL_BASE);
+        server.start(0, null);
+    }
+
+    @After
+    public void stop() {
+        server.stop(0);
+        JSONPage.setMetrics(null);
+        for (String category : new String[]{Widget.CATEGORY, Gadget.CATEGORY}) {
+            for (int id : JSONPage.getLoadedIDs(category))
+                JSONPage.unload(category, id);
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        return open(server, path);
+    }
+
+    private static HttpURLConnection open(BaseServer server, String path) throws IOException {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/api/" + path).openConnection();
+    }
+
+    private static String read(HttpURLConnection connection) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1)
+                out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void servesLinksThatArentLoaded() throws IOException {
+        JSONPage.register(new Gadget("gadget-1", 1, "first", 5, new int[]{5, 6, 7}));
+        HttpURLConnection connection = open("gadget/1");
+        assertEquals(200, connection.getResponseCode());
+        JSONObject json = new JSONObject(read(connection));
+        assertEquals(BASE.makeURL(Widget.CATEGORY, 5), json.getJSONObject("part").getString("url"));
+        JSONArray parts = json.getJSONArray("parts");
+        assertEquals(3, parts.length());
+        assertEquals(BASE.makeURL(Widget.CATEGORY, 7), parts.getJSONObject(2).getString("url"));
+        assertEquals(0, misses.get());
+        assertEquals(0, JSONPage.getLoadedCount(Widget.CATEGORY));
+
+        Gadget read = new Gadget(json, BASE);
+        assertEquals(5, read.getPartID());
+        assertEquals(7, read.getPartIDs()[2]);
+    }
+
+    @Test
+    public void servesFieldsOfLinksThatArentLoaded() throws IOException {
+        JSONPage.register(new Gadget("gadget-2", 2, "second", 8, new int[]{8}));
+        HttpURLConnection connection = open("gadget/2?fields=parts");
+        assertEquals(200, connection.getResponseCode());
+        JSONObject json = new JSONObject(read(connection));
+        assertEquals(BASE.makeURL(Widget.CATEGORY, 8), json.getJSONArray("parts").getJSONObject(0).getString("url"));
+        assertEquals(0, misses.get());
+    }
+
+    @Test
+    public void storeFailuresAreServerErrors() throws IOException {
+        PageStore store = new PageStore(folder.newFolder(), 1 << 20, 0);
+        store.put(Widget.CATEGORY, 9, Widget.json(9, "red", 90).toString().getBytes(StandardCharsets.UTF_8));
+        // Reads of a closed store fail with an IOException.
+        store.close();
+        BaseServer stored = new BaseServer(BASE, URL_BASE, true, false, store);
+        stored.start(0, null);
+        try {
+            assertEquals(500, open(stored, "widget/9").getResponseCode());
+        } finally {
+            stored.stop(0);
+        }
+    }
+
+    @Test
+    public void gzipBodiesHaveTheirOwnETag() throws IOException {
+        int[] parts = new int[200];
+        for (int i = 0; i < parts.length; i++)
+            parts[i] = i;
+        JSONPage.register(new Gadget("gadget-3", 3, "third", 0, parts));
+        BaseServer zipped = new BaseServer(BASE, URL_BASE, true, true);
+        zipped.start(0, null);
+        try {
+            HttpURLConnection plain = open(zipped, "gadget/3");
+            assertEquals(200, plain.getResponseCode());
+            assertEquals("Accept-Encoding", plain.getHeaderField("Vary"));
+            String etag = plain.getHeaderField("ETag");
+
+            HttpURLConnection gzip = open(zipped, "gadget/3");
+            gzip.setRequestProperty("Accept-Encoding", "gzip");
+            assertEquals(200, gzip.getResponseCode());
+            assertEquals("gzip", gzip.getHeaderField("Content-Encoding"));
+            assertEquals("Accept-Encoding", gzip.getHeaderField("Vary"));
+            String gzipETag = gzip.getHeaderField("ETag");
+            assertNotEquals(etag, gzipETag);
+            assertEquals(etag.substring(0, etag.length() - 1) + "-gzip\"", gzipETag);
+
+            // The plain body's ETag doesn't match the gzipped one, or the other way around.
+            HttpURLConnection stale = open(zipped, "gadget/3");
+            stale.setRequestProperty("Accept-Encoding", "gzip");
+            stale.setRequestProperty("If-None-Match", etag);
+            assertEquals(200, stale.getResponseCode());
+            stale = open(zipped, "gadget/3");
+            stale.setRequestProperty("If-None-Match", gzipETag);
+            assertEquals(200, stale.getResponseCode());
+
+            HttpURLConnection fresh = open(zipped, "gadget/3");
+            fresh.setRequestProperty("Accept-Encoding", "gzip");
+            fresh.setRequestProperty("If-None-Match", gzipETag);
+            assertEquals(304, fresh.getResponseCode());
+        } finally {
+            zipped.stop(0);
+        }
+    }
+
+    @Test
+    public void cachesResponsesUntilThePageChanges() throws IOException {
+        Widget first = new Widget("widget-1", 1, "red", 10);
+        JSONPage.register(first);
+        BaseServer.Response cached = server.getResponse(first);
+        assertSame(cached, server.getResponse(first));
+        HttpURLConnection connection = open("widget/1");
+        assertEquals(cached.etag, connection.getHeaderField("ETag"));
+        assertEquals("red", new JSONObject(read(connection)).getString("color"));
+
+        // Replacing the page drops the old response, so the new values are sent under a new ETag.
+        Widget second = new Widget("widget-1", 1, "blue", 10);
+        JSONPage.register(second);
+        connection = open("widget/1");
+        connection.setRequestProperty("If-None-Match", cached.etag);
+        assertEquals(200, connection.getResponseCode());
+        assertNotEquals(cached.etag, connection.getHeaderField("ETag"));
+        assertEquals("blue", new JSONObject(read(connection)).getString("color"));
+        assertNotSame(cached, server.getResponse(second));
+
+        // Unloaded pages aren't served, and their responses aren't kept.
+        JSONPage.unload(Widget.CATEGORY, 1);
+        assertEquals(404, open("widget/1").getResponseCode());
+        assertNotSame(server.getResponse(second), server.getResponse(second));
+    }
+
+    @Test
+    public void invalidateDropsOneResponse() {
+        Widget first = new Widget("widget-1", 1, "red", 10);
+        Widget other = new Widget("widget-2", 2, "red", 20);
+        JSONPage.register(first);
+        JSONPage.register(other);
+        BaseServer.Response cached = server.getResponse(first);
+        BaseServer.Response kept = server.getResponse(other);
+        server.invalidate(Widget.CATEGORY, 1);
+        assertNotSame(cached, server.getResponse(first));
+        assertSame(kept, server.getResponse(other));
+        server.clearCache();
+        assertNotSame(kept, server.getResponse(other));
+    }
+
+    @Test
+    public void partialPagesAreNeverCached() {
+        JSONPage partial = JSONPage.createObject(Widget.CATEGORY, Widget.select("color").select(Widget.json(3, "green", 30)), BASE);
+        assertNotSame(server.getResponse(partial), server.getResponse(partial));
+    }
+}
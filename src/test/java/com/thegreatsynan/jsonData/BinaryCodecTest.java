@@ -0,0 +1,100 @@
+package com.thegreatsynan.jsonData;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class BinaryCodecTest {
+    private static final String URL_BASE = "https://example.test/api/";
+    private static final BinaryCodec CODEC = new BinaryCodec(new JSONAPIPage[]{Widget.api(), Gadget.api()});
+
+    @After
+    public void unload() {
+        for (int id : JSONPage.getLoadedIDs(Widget.CATEGORY))
+            JSONPage.unload(Widget.CATEGORY, id);
+    }
+
+    /**
+     * A view of a gadget, written the way ClassCreator writes them.
+     */
+    private static class GadgetView extends BinaryView {
+        private static final Layout LAYOUT = new Layout(true,
+                new byte[]{BinaryView.STRING, BinaryView.INTEGER, BinaryView.STRING, BinaryView.LINK, BinaryView.LINK},
+                new boolean[]{false, false, false, false, true},
+                new Layout[]{null, null, null, null, null});
+
+        private GadgetView() {
+            super(LAYOUT);
+        }
+
+        private String getLabel() {
+            return getString(2);
+        }
+
+        private int getPartID() {
+            return getLinkID(3);
+        }
+
+        private int[] getPartIDs() {
+            return getLinkIDs(4);
+        }
+    }
+
+    @Test
+    public void roundTripsLinksThatArentLoaded() {
+        for (URLEncoder base : new URLEncoder[]{new GeneralURLEncoder(URL_BASE, true), new GeneralURLEncoder(URL_BASE, false)}) {
+            Gadget gadget = new Gadget("gadget-1", 1, "first", 5, new int[]{5, 300, 70000});
+            JSONObject json = CODEC.decode(CODEC.encode(gadget, base), Gadget.CATEGORY, base);
+            Gadget read = new Gadget(json, base);
+            assertEquals("gadget-1", read.name);
+            assertEquals(1, read.id);
+            assertEquals("first", read.label);
+            assertEquals(5, read.getPartID());
+            assertArrayEquals(new int[]{5, 300, 70000}, read.getPartIDs());
+            assertEquals(0, JSONPage.getLoadedCount(Widget.CATEGORY));
+        }
+    }
+
+    @Test
+    public void leavesOutMissingLinks() {
+        URLEncoder base = new GeneralURLEncoder(URL_BASE, true);
+        JSONObject json = CODEC.decode(CODEC.encode(new Gadget("gadget-2", 2, "second", -1, null), base), Gadget.CATEGORY, base);
+        assertFalse(json.has("part"));
+        assertFalse(json.has("parts"));
+        Gadget read = new Gadget(json, base);
+        assertEquals(-1, read.getPartID());
+        assertNull(read.getPartIDs());
+    }
+
+    @Test
+    public void viewsReadLinksThatArentLoaded() {
+        URLEncoder base = new GeneralURLEncoder(URL_BASE, true);
+        byte[] first = CODEC.encode(new Gadget("gadget-1", 1, "first", 5, new int[]{5, 6}), base);
+        byte[] second = CODEC.encode(new Gadget("gadget-2", 2, "second", -1, null), base);
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length).put(first).put(second);
+        GadgetView view = new GadgetView();
+
+        view.wrap(buffer, 0);
+        assertEquals(1, view.getPageID());
+        assertEquals("gadget-1", view.getPageName());
+        assertEquals("first", view.getLabel());
+        assertEquals(5, view.getPartID());
+        assertArrayEquals(new int[]{5, 6}, view.getPartIDs());
+        assertEquals(first.length, view.end());
+
+        view.wrap(buffer, view.end());
+        assertEquals(2, view.getPageID());
+        assertEquals("second", view.getLabel());
+        assertEquals(-1, view.getPartID());
+        assertNull(view.getPartIDs());
+        assertEquals(buffer.capacity(), view.end());
+        assertEquals(0, JSONPage.getLoadedCount(Widget.CATEGORY));
+    }
+}
@@ -0,0 +1,79 @@
+package com.thegreatsynan.jsonData;
+
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+import org.json.JSONObject;
+
+/**
+ * A small page with links to widgets, written the way ClassCreator writes them, for tests that need links to pages that aren't loaded.
+ */
+public class Gadget extends JSONPage {
+    public static final String CATEGORY = "gadget";
+
+    public final String label;
+    private final int part;
+    private final int[] parts;
+
+    static {
+        JSONPage.addCreator(CATEGORY, Gadget::new);
+    }
+
+    public Gadget(String name, int id, String label, int part, int[] parts) {
+        super(name, id);
+        this.label = label;
+        this.part = part;
+        this.parts = parts;
+    }
+
+    public Gadget(JSONObject json, URLEncoder base) {
+        super(json, base);
+        this.label = JSONMake.getString(json, "label");
+        this.part = json.isNull("part") ? -1 : base.getID(json, "part");
+        this.parts = json.isNull("parts") ? null : base.getIDs(json.getJSONArray("parts"));
+    }
+
+    /**
+     * @return The JSON of a full gadget, linking to the given widgets.
+     */
+    public static JSONObject json(int id, String label, int part, int[] parts, URLEncoder base) {
+        return new Gadget("gadget-" + id, id, label, part, parts).makeObject(base);
+    }
+
+    static JSONAPIPage api() {
+        return new JSONAPIPage("Gadget", new JSONAPIValue[]{
+                new JSONAPIValue("name", "string", false, "The code name of the gadget."),
+                new JSONAPIValue("id", "integer", false, "The id of the gadget."),
+                new JSONAPIValue("label", "string", false, "The label of the gadget."),
+                new JSONAPIValue("part", "Widget", false, "The main widget of the gadget."),
+                new JSONAPIValue("parts", "Widget", true, "Every widget in the gadget.")
+        }, "A test page with links.", CATEGORY, null);
+    }
+
+    public int getPartID() {
+        return part;
+    }
+
+    public int[] getPartIDs() {
+        return parts;
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public JSONAPIPage makeAPI() {
+        return api();
+    }
+
+    @Override
+    public JSONObject makeObject(URLEncoder base) {
+        JSONObject out = super.makeObject(base);
+        out.put("label", label);
+        if (part >= 0)
+            out.put("part", base.makeLink(Widget.CATEGORY, part));
+        if (parts != null)
+            out.put("parts", base.makeLinkArray(Widget.CATEGORY, parts));
+        return out;
+    }
+}
@@ -0,0 +1,157 @@
+package com.thegreatsynan.jsonData;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JSONPageTest {
+    private static final URLEncoder BASE = new GeneralURLEncoder("https://example.test/api/", false);
+
+    @After
+    public void unload() {
+        JSONPage.setMetrics(null);
+        for (String category : new String[]{Widget.CATEGORY, Gadget.CATEGORY}) {
+            for (int id : JSONPage.getLoadedIDs(category))
+                JSONPage.unload(category, id);
+        }
+    }
+
+    @Test
+    public void nothingLoadedIsAFailure() {
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        JSONPage.setMetrics(new PageMetrics() {
+            @Override
+            public void failed(String category, Exception error) {
+                failure.set(error);
+            }
+        });
+        URLEncoder empty = new GeneralURLEncoder("https://example.test/api/", false) {
+            @Override
+            public JSONObject loadJSON(String url) {
+                return null;
+            }
+        };
+        assertNull(JSONPage.get(Widget.CATEGORY, 4, empty));
+        assertTrue(failure.get() instanceof IOException);
+        assertTrue(failure.get().getMessage().contains(BASE.makeURL(Widget.CATEGORY, 4)));
+    }
+
+    @Test
+    public void constructorsDontRegister() {
+        Widget widget = new Widget("widget-1", 1, "red", 10);
+        assertNull(JSONPage.getLoaded(Widget.CATEGORY, 1));
+        assertEquals(widget, JSONPage.register(widget));
+        assertEquals(widget, JSONPage.getLoaded(Widget.CATEGORY, 1));
+    }
+
+    @Test
+    public void exportsLinksThatArentLoaded() throws IOException {
+        for (int i = 1; i <= 5; i++)
+            JSONPage.register(new Gadget("gadget-" + i, i, "label-" + i, i * 10, new int[]{i * 10, i * 10 + 1}));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, JSONPage.exportCategory(Gadget.CATEGORY, 2, BASE, out));
+        assertEquals(0, JSONPage.getLoadedCount(Widget.CATEGORY));
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            int id = i + 3;
+            Gadget read = new Gadget(new JSONObject(lines[i]), BASE);
+            assertEquals(id, read.id);
+            assertEquals("label-" + id, read.label);
+            assertEquals(id * 10, read.getPartID());
+            assertArrayEquals(new int[]{id * 10, id * 10 + 1}, read.getPartIDs());
+        }
+    }
+
+    private static Widget partial(int id) {
+        return new Widget(Widget.select("color").select(Widget.json(id, "partial", id)), BASE);
+    }
+
+    @Test
+    public void partialPagesNeverReplaceFullOnes() {
+        Widget full = new Widget("widget-1", 1, "full", 10);
+        Widget partial = partial(1);
+        assertSame(full, JSONPage.register(full));
+        assertSame(full, JSONPage.register(partial));
+        assertSame(full, JSONPage.getLoaded(Widget.CATEGORY, 1));
+
+        // Partial pages can replace each other, and full pages replace them.
+        Widget first = partial(2);
+        Widget second = partial(2);
+        assertSame(first, JSONPage.register(first));
+        assertSame(second, JSONPage.register(second));
+        Widget replacing = new Widget("widget-2", 2, "full", 20);
+        assertSame(replacing, JSONPage.register(replacing));
+        assertSame(replacing, JSONPage.getLoaded(Widget.CATEGORY, 2));
+    }
+
+    @Test
+    public void partialPagesNeverReplaceFullOnesWhileRacing() throws Exception {
+        int ids = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        try {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+            boolean[][] seenFull = new boolean[2][ids];
+            ArrayList<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 2; t++) {
+                tasks.add(pool.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        for (int i = 0; i < ids; i++)
+                            JSONPage.register(partial(i));
+                    }
+                    return null;
+                }));
+            }
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < ids; i++)
+                    JSONPage.register(new Widget("widget-" + i, i, "full", i));
+                return null;
+            }));
+            for (int t = 0; t < 2; t++) {
+                boolean[] seen = seenFull[t];
+                tasks.add(pool.submit(() -> {
+                    // Once a reader sees a full page for an id, it never sees a partial one again.
+                    while (System.nanoTime() < end) {
+                        for (int i = 0; i < ids; i++) {
+                            JSONPage page = JSONPage.getLoaded(Widget.CATEGORY, i);
+                            if (page == null)
+                                continue;
+                            if (page.isPartial())
+                                assertFalse("Partial page replaced a full one at " + i, seen[i]);
+                            else
+                                seen[i] = true;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> i : tasks)
+                i.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        for (int i = 0; i < ids; i++) {
+            Widget page = (Widget) JSONPage.getLoaded(Widget.CATEGORY, i);
+            assertFalse(page.isPartial());
+            assertEquals("full", page.color);
+            assertEquals(Integer.valueOf(i), page.size);
+        }
+    }
+}
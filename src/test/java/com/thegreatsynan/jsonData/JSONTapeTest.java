@@ -0,0 +1,113 @@
+package com.thegreatsynan.jsonData;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONTapeTest {
+    private static void assertMalformed(String json) {
+        try {
+            JSONTape.parse(json.getBytes(StandardCharsets.UTF_8));
+            fail("Parsed " + json);
+        } catch (JSONException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void readsEscapes() {
+        JSONObject json = JSONTape.parseObject("{\"a\":\"line\\nbreak\\t\\\"quoted\\\" \\\\ \\/ \\b\\f\\r\","
+                + "\"u\":\"\\u0041\\u00e9\\uD83D\\uDE00\",\"raw\":\"caf\u00e9 \ud83d\ude00\",\"\\u006B\":1}");
+        assertEquals("line\nbreak\t\"quoted\" \\ / \b\f\r", json.getString("a"));
+        assertEquals("A\u00e9\ud83d\ude00", json.getString("u"));
+        assertEquals("caf\u00e9 \ud83d\ude00", json.getString("raw"));
+        assertEquals(1, json.getInt("k"));
+    }
+
+    @Test
+    public void readsNumbersLikeOrgJson() {
+        String text = "[0,-0,7,-7,123456789,1234567890,-2147483648,9223372036854775807,92233720368547758070,"
+                + "0.5,-1.25,1e3,1E+3,2.5e-3,-0.0,1.0]";
+        JSONArray tape = JSONTape.parseArray(text.getBytes(StandardCharsets.UTF_8));
+        JSONArray org = new JSONArray(text);
+        assertEquals(org.length(), tape.length());
+        for (int i = 0; i < org.length(); i++) {
+            assertEquals("Element " + i, org.get(i), tape.get(i));
+            assertEquals("Element " + i, org.get(i).getClass(), tape.get(i).getClass());
+        }
+    }
+
+    @Test
+    public void matchesOrgJson() {
+        String text = "{\"name\":\"x\",\"id\":3,\"list\":[1,\"two\",null,true,false,{\"deep\":[[]]}],\"empty\":{},\"n\":null}";
+        JSONObject tape = JSONTape.parseObject(text);
+        assertTrue(new JSONObject(text).similar(tape));
+        assertEquals(5, tape.length());
+        assertTrue(tape.isNull("n"));
+    }
+
+    @Test
+    public void rejectsDuplicateKeys() {
+        assertMalformed("{\"a\":1,\"a\":2}");
+        assertMalformed("{\"a\":1,\"\\u0061\":2}");
+        assertMalformed("{\"x\":{\"b\":1,\"c\":2,\"b\":3}}");
+        StringBuilder big = new StringBuilder("{");
+        for (int i = 0; i < 40; i++)
+            big.append("\"k").append(i).append("\":").append(i).append(',');
+        JSONTape.parseObject(big.substring(0, big.length() - 1) + "}");
+        assertMalformed(big.append("\"k7\":0}").toString());
+    }
+
+    @Test
+    public void rejectsBadStrings() {
+        assertMalformed("\"\\u+041\"");
+        assertMalformed("\"\\u-041\"");
+        assertMalformed("\"\\u00g0\"");
+        assertMalformed("\"\\u004\"");
+        assertMalformed("\"\\x\"");
+        assertMalformed("\"raw\nnewline\"");
+        assertMalformed("\"tab\there\"");
+        assertMalformed("\"\u0000\"");
+        assertMalformed("\"unterminated");
+        assertMalformed("\"ends in \\");
+    }
+
+    @Test
+    public void rejectsBadNumbers() {
+        for (String i : new String[]{"01", "-", "-a", "+1", "1.", ".5", "1e", "1e+", "1.5.3", "--1", "1-2", "0x10", "1e5.5", "NaN"})
+            assertMalformed(i);
+    }
+
+    @Test
+    public void rejectsBadStructure() {
+        for (String i : new String[]{"", "{", "[1,]", "{\"a\":1,}", "[1 2]", "{\"a\" 1}", "{a:1}", "tru", "nul", "{} {}", "[]]"})
+            assertMalformed(i);
+        StringBuilder deep = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            deep.append('[');
+        assertMalformed(deep.toString());
+    }
+
+    @Test
+    public void checksTheTopValue() {
+        try {
+            JSONTape.parseObject("[1]");
+            fail();
+        } catch (JSONException e) {
+            // Expected.
+        }
+        try {
+            JSONTape.parseArray("{}".getBytes(StandardCharsets.UTF_8));
+            fail();
+        } catch (JSONException e) {
+            // Expected.
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.thegreatsynan.jsonData;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NameIndexTest {
+    private static final int IDS = 400;
+
+    @After
+    public void unload() {
+        for (int id : JSONPage.getLoadedIDs(Widget.CATEGORY))
+            JSONPage.unload(Widget.CATEGORY, id);
+    }
+
+    /**
+     * Names are shared by several ids, so some names have more than one page.
+     */
+    private static String name(int id) {
+        return "w" + (id % 150);
+    }
+
+    @Test
+    public void prefixesMatchTheRegistryAfterConcurrentChanges() throws Exception {
+        // Make the index first, so every change below goes through add and remove.
+        JSONPage.getLoadedByPrefix(Widget.CATEGORY, "");
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            ArrayList<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                int seed = t;
+                tasks.add(pool.submit(() -> {
+                    Random random = new Random(seed);
+                    while (System.nanoTime() < end) {
+                        int id = random.nextInt(IDS);
+                        if (random.nextInt(3) == 0)
+                            JSONPage.unload(Widget.CATEGORY, id);
+                        else
+                            JSONPage.register(new Widget(name(id), id, "red", id));
+                    }
+                    return null;
+                }));
+            }
+            for (int t = 0; t < 3; t++) {
+                String prefix = "w" + (t + 1);
+                tasks.add(pool.submit(() -> {
+                    while (System.nanoTime() < end)
+                        assertSortedAndPrefixed(JSONPage.getLoadedByPrefix(Widget.CATEGORY, prefix), prefix);
+                    return null;
+                }));
+            }
+            for (Future<?> i : tasks)
+                i.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        for (String prefix : new String[]{"", "w", "w1", "w12", "w149", "w7", "x"}) {
+            JSONPage[] found = JSONPage.getLoadedByPrefix(Widget.CATEGORY, prefix);
+            assertSortedAndPrefixed(found, prefix);
+            IdentityHashMap<JSONPage, Boolean> expected = new IdentityHashMap<>();
+            for (int id : JSONPage.getLoadedIDs(Widget.CATEGORY)) {
+                JSONPage page = JSONPage.getLoaded(Widget.CATEGORY, id);
+                if (page.name.startsWith(prefix))
+                    expected.put(page, true);
+            }
+            assertEquals(prefix, expected.size(), found.length);
+            for (JSONPage i : found)
+                assertTrue(prefix, expected.containsKey(i));
+        }
+        for (int id : JSONPage.getLoadedIDs(Widget.CATEGORY)) {
+            JSONPage page = JSONPage.getLoaded(Widget.CATEGORY, id);
+            JSONPage[] named = JSONPage.getLoadedByName(Widget.CATEGORY, page.name);
+            int matches = 0;
+            for (JSONPage i : named)
+                matches += i == page ? 1 : 0;
+            assertEquals(1, matches);
+        }
+    }
+
+    @Test
+    public void removedNamesComeBack() {
+        Widget first = new Widget("gone", 1, "red", 1);
+        JSONPage.register(first);
+        assertEquals(1, JSONPage.getLoadedByPrefix(Widget.CATEGORY, "go").length);
+        JSONPage.unload(Widget.CATEGORY, 1);
+        assertEquals(0, JSONPage.getLoadedByPrefix(Widget.CATEGORY, "go").length);
+        Widget second = new Widget("gone", 1, "blue", 1);
+        JSONPage.register(second);
+        JSONPage[] found = JSONPage.getLoadedByPrefix(Widget.CATEGORY, "go");
+        assertEquals(1, found.length);
+        assertSame(second, found[0]);
+    }
+
+    private static void assertSortedAndPrefixed(JSONPage[] found, String prefix) {
+        ArrayList<String> names = new ArrayList<>();
+        IdentityHashMap<JSONPage, Boolean> seen = new IdentityHashMap<>();
+        for (JSONPage i : found) {
+            assertTrue(i.name, i.name.startsWith(prefix));
+            assertTrue(i.name, seen.put(i, true) == null);
+            names.add(i.name);
+        }
+        ArrayList<String> sorted = new ArrayList<>(names);
+        Collections.sort(sorted);
+        assertEquals(sorted, names);
+    }
+}
@@ -0,0 +1,302 @@
+package com.thegreatsynan.jsonData;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class PageStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root() {
+        return new File(folder.getRoot(), "store");
+    }
+
+    private PageStore open(long segmentSize) throws IOException {
+        return new PageStore(root(), segmentSize, 0);
+    }
+
+    private static byte[] json(int id, String value) {
+        return ("{\"name\":\"page-" + id + "\",\"id\":" + id + ",\"value\":\"" + value + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(PageStore store, String category, int id) throws IOException {
+        ByteBuffer buffer = store.get(category, id);
+        if (buffer == null)
+            return null;
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void putGetAndRemove() throws IOException {
+        try (PageStore store = open(1 << 20)) {
+            assertNull(store.get("page", 1));
+            store.put("page", 1, json(1, "a"));
+            store.put("page", 2, json(2, "b"));
+            store.put("page", 1, json(1, "c"));
+            assertEquals(new String(json(1, "c"), StandardCharsets.UTF_8), read(store, "page", 1));
+            assertEquals("b", store.getJSON("page", 2).getString("value"));
+            assertEquals(2, store.size("page"));
+            store.remove("page", 2);
+            assertNull(store.get("page", 2));
+            assertEquals(1, store.size("page"));
+            store.remove("other", 1);
+            assertEquals(0, store.size("other"));
+        }
+    }
+
+    @Test
+    public void reopens() throws IOException {
+        try (PageStore store = open(256)) {
+            for (int i = 0; i < 50; i++)
+                store.put("page", i, json(i, "first"));
+            for (int i = 0; i < 50; i += 2)
+                store.put("page", i, json(i, "second"));
+            for (int i = 0; i < 50; i += 5)
+                store.remove("page", i);
+        }
+        try (PageStore store = open(256)) {
+            assertEquals(40, store.size("page"));
+            for (int i = 0; i < 50; i++) {
+                String value = i % 5 == 0 ? null : i % 2 == 0 ? "second" : "first";
+                assertEquals(value, value == null ? read(store, "page", i) : store.getJSON("page", i).getString("value"));
+            }
+        }
+    }
+
+    @Test
+    public void compacts() throws IOException {
+        try (PageStore store = open(512)) {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 40; i++)
+                    store.put("page", i, json(i, "round-" + round));
+            }
+            store.remove("page", 7);
+            File category = new File(root(), "page");
+            int before = category.list().length;
+            store.compact();
+            assertTrue(category.list().length < before);
+            for (int i = 0; i < 40; i++)
+                assertEquals(i == 7 ? null : "round-4", i == 7 ? read(store, "page", i) : store.getJSON("page", i).getString("value"));
+            store.put("page", 0, json(0, "after"));
+            assertEquals("after", store.getJSON("page", 0).getString("value"));
+        }
+        try (PageStore store = open(512)) {
+            assertEquals(39, store.size("page"));
+            assertEquals("after", store.getJSON("page", 0).getString("value"));
+            assertEquals("round-4", store.getJSON("page", 39).getString("value"));
+        }
+    }
+
+    @Test
+    public void readsWhileCompacting() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try (PageStore store = open(1024)) {
+            for (int i = 0; i < 200; i++)
+                store.put("page", i, json(i, "value"));
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            ArrayList<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                readers.add(pool.submit(() -> {
+                    for (int i = 0; System.nanoTime() < end; i = (i + 1) % 200)
+                        assertEquals("value", store.getJSON("page", i).getString("value"));
+                    return null;
+                }));
+            }
+            while (System.nanoTime() < end) {
+                for (int i = 0; i < 200; i += 3)
+                    store.put("page", i, json(i, "value"));
+                store.compact();
+            }
+            for (Future<?> i : readers)
+                i.get();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void dropsTornRecords() throws IOException {
+        try (PageStore store = open(1 << 20)) {
+            store.put("page", 1, json(1, "a"));
+            store.put("page", 2, json(2, "b"));
+        }
+        File segment = newestSegment(new File(root(), "page"));
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            // Cut the last record short, as a crash mid-write would.
+            file.setLength(file.length() - 5);
+        }
+        try (PageStore store = open(1 << 20)) {
+            assertEquals("a", store.getJSON("page", 1).getString("value"));
+            assertNull(store.get("page", 2));
+            store.put("page", 2, json(2, "c"));
+        }
+        try (PageStore store = open(1 << 20)) {
+            assertEquals("c", store.getJSON("page", 2).getString("value"));
+        }
+    }
+
+    @Test
+    public void recoversFromACrashDuringCompaction() throws IOException {
+        File category = new File(root(), "page");
+        File saved = folder.newFolder("saved");
+        try (PageStore store = open(512)) {
+            for (int round = 0; round < 4; round++) {
+                for (int i = 0; i < 30; i++)
+                    store.put("page", i, json(i, "round-" + round));
+            }
+            for (File i : category.listFiles())
+                Files.copy(i.toPath(), new File(saved, i.getName()).toPath());
+            store.compact();
+            store.put("page", 3, json(3, "newest"));
+        }
+        // The old segments coming back is what a crash between the rename and the deletes leaves,
+        // and a half-written compaction file is what a crash before the rename leaves.
+        for (File i : saved.listFiles()) {
+            if (!new File(category, i.getName()).exists())
+                Files.copy(i.toPath(), new File(category, i.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.write(new File(category, "0.compact").toPath(), new byte[]{1, 2, 3});
+        try (PageStore store = open(512)) {
+            assertFalse(new File(category, "0.compact").exists());
+            assertEquals(30, store.size("page"));
+            for (int i = 0; i < 30; i++)
+                assertEquals(i == 3 ? "newest" : "round-3", store.getJSON("page", i).getString("value"));
+            store.compact();
+            assertEquals("newest", store.getJSON("page", 3).getString("value"));
+        }
+    }
+
+    @Test
+    public void deletionsOutliveAPartlyDeletedCompaction() throws IOException {
+        File category = new File(root(), "page");
+        try (PageStore store = open(1 << 20)) {
+            store.put("page", 1, json(1, "a"));
+            for (int round = 0; round < 5; round++)
+                store.put("page", 2, json(2, "round-" + round));
+        }
+        try (PageStore store = open(1 << 20)) {
+            // Copies 1 into a new segment, 2.seg, with a higher number than the segment its deletion goes in.
+            store.compact();
+            assertTrue(new File(category, "2.seg").exists());
+            store.remove("page", 1);
+            for (int round = 5; round < 10; round++)
+                store.put("page", 2, json(2, "round-" + round));
+        }
+        File older = new File(category, "2.seg");
+        File saved = new File(folder.getRoot(), "2.seg");
+        try (PageStore store = open(1 << 20)) {
+            // Stand in for a crash partway through deleting the old segments by making 2.seg undeletable.
+            Files.copy(older.toPath(), saved.toPath());
+            assumeTrue(older.delete());
+            assertTrue(new File(older, "keep").mkdirs());
+            try {
+                store.compact();
+                fail("Deleted every old segment");
+            } catch (IOException e) {
+                // Expected.
+            }
+            assertTrue(new File(category, "1.seg").exists());
+        }
+        assertTrue(new File(older, "keep").delete() && older.delete());
+        Files.copy(saved.toPath(), older.toPath());
+        try (PageStore store = open(1 << 20)) {
+            assertNull(store.get("page", 1));
+            assertEquals("round-9", store.getJSON("page", 2).getString("value"));
+            assertEquals(1, store.size("page"));
+        }
+    }
+
+    @Test
+    public void leavesSealedSegmentsAloneForActiveGarbage() throws IOException {
+        File category = new File(root(), "page");
+        try (PageStore store = open(1 << 20)) {
+            for (int i = 0; i < 10; i++)
+                store.put("page", i, json(i, "a"));
+        }
+        try (PageStore store = open(1 << 20)) {
+            for (int round = 0; round < 100; round++)
+                store.put("page", 50, json(50, "round-" + round));
+            store.compact();
+            assertTrue(new File(category, "0.seg").exists());
+            assertEquals("round-99", store.getJSON("page", 50).getString("value"));
+        }
+    }
+
+    @Test
+    public void removingMissingPagesWritesNothing() throws IOException {
+        try (PageStore store = open(1 << 20)) {
+            store.put("page", 1, json(1, "a"));
+            File segment = newestSegment(new File(root(), "page"));
+            long length = segment.length();
+            for (int i = 0; i < 10; i++)
+                store.remove("page", 2);
+            assertEquals(length, segment.length());
+            store.remove("page", 1);
+            store.remove("page", 1);
+            assertEquals(length + 16, segment.length());
+        }
+    }
+
+    @Test
+    public void ignoresStrayFiles() throws IOException {
+        File category = new File(root(), "page");
+        try (PageStore store = open(1 << 20)) {
+            store.put("page", 1, json(1, "a"));
+        }
+        Files.write(new File(category, "notes.seg").toPath(), new byte[]{1, 2, 3});
+        try (PageStore store = open(1 << 20)) {
+            assertEquals("a", store.getJSON("page", 1).getString("value"));
+        }
+    }
+
+    @Test
+    public void rejectsPathCategories() throws IOException {
+        try (PageStore store = open(1 << 20)) {
+            for (String i : new String[]{"..", "../escape", "a/b", "", "."}) {
+                try {
+                    store.put(i, 1, json(1, "a"));
+                    fail("Stored under " + i);
+                } catch (IllegalArgumentException e) {
+                    // Expected.
+                }
+            }
+        }
+        assertFalse(new File(folder.getRoot(), "escape").exists());
+    }
+
+    private static File newestSegment(File category) {
+        File out = null;
+        int newest = -1;
+        for (File i : category.listFiles()) {
+            int number = Integer.parseInt(i.getName().substring(0, i.getName().indexOf('.')));
+            if (i.length() > 0 && number > newest) {
+                newest = number;
+                out = i;
+            }
+        }
+        return out;
+    }
+}
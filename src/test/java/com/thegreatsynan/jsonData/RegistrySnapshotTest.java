@@ -0,0 +1,134 @@
+package com.thegreatsynan.jsonData;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RegistrySnapshotTest {
+    private static final URLEncoder BASE = new GeneralURLEncoder("https://example.test/api/", false);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void unload() {
+        for (String category : new String[]{Widget.CATEGORY, Gadget.CATEGORY}) {
+            for (int id : JSONPage.getLoadedIDs(category))
+                JSONPage.unload(category, id);
+        }
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        for (int i = 0; i < 3000; i++)
+            JSONPage.createObject(Widget.CATEGORY, Widget.json(i, "red", i), BASE);
+        File file = folder.newFile();
+        assertEquals(3000, RegistrySnapshot.save(file, BASE));
+        unload();
+        assertEquals(3000, RegistrySnapshot.load(file, BASE, 4));
+        Widget widget = (Widget) JSONPage.getLoaded(Widget.CATEGORY, 1234);
+        assertEquals("widget-1234", widget.name);
+        assertEquals("red", widget.color);
+        assertEquals(Integer.valueOf(1234), widget.size);
+    }
+
+    @Test
+    public void loadsBeforeTheCreatorIsAdded() throws Exception {
+        JSONPage.createObject(Widget.CATEGORY, Widget.json(7, "red", 70), BASE);
+        File file = folder.newFile();
+        RegistrySnapshot.save(file, BASE);
+        // A fresh copy of the library, where nothing has loaded Widget yet.
+        ArrayList<URL> urls = new ArrayList<>();
+        for (String i : System.getProperty("java.class.path").split(File.pathSeparator))
+            urls.add(new File(i).toURI().toURL());
+        Thread thread = Thread.currentThread();
+        ClassLoader old = thread.getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]), null)) {
+            thread.setContextClassLoader(loader);
+            Class<?> snapshot = loader.loadClass(RegistrySnapshot.class.getName());
+            Class<?> encoder = loader.loadClass(URLEncoder.class.getName());
+            Object base = loader.loadClass(GeneralURLEncoder.class.getName()).getConstructor(String.class, boolean.class)
+                    .newInstance("https://example.test/api/", false);
+            Object count = snapshot.getMethod("load", File.class, encoder, int.class).invoke(null, file, base, 1);
+            assertEquals(1, count);
+            Object page = loader.loadClass(JSONPage.class.getName()).getMethod("getLoaded", String.class, int.class)
+                    .invoke(null, Widget.CATEGORY, 7);
+            assertEquals(Widget.class.getName(), page.getClass().getName());
+        } finally {
+            thread.setContextClassLoader(old);
+        }
+    }
+
+    @Test
+    public void saveReplacesTheOldSnapshot() throws Exception {
+        File file = folder.newFile();
+        JSONPage.createObject(Widget.CATEGORY, Widget.json(1, "red", 10), BASE);
+        RegistrySnapshot.save(file, BASE);
+        JSONPage.createObject(Widget.CATEGORY, Widget.json(2, "blue", 20), BASE);
+        assertEquals(2, RegistrySnapshot.save(file, BASE));
+        unload();
+        assertEquals(2, RegistrySnapshot.load(file, BASE, 1));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void partialPagesAreLeftOut() throws Exception {
+        JSONPage.createObject(Widget.CATEGORY, Widget.json(1, "red", 10), BASE);
+        JSONPage partial = JSONPage.createObject(Widget.CATEGORY, Widget.select("color").select(Widget.json(2, "blue", 20)), BASE);
+        assertSame(partial, JSONPage.getLoaded(Widget.CATEGORY, 2));
+        File file = folder.newFile();
+        assertEquals(1, RegistrySnapshot.save(file, BASE));
+        unload();
+        assertEquals(1, RegistrySnapshot.load(file, BASE, 2));
+        assertNull(JSONPage.getLoaded(Widget.CATEGORY, 2));
+        Widget full = (Widget) JSONPage.getLoaded(Widget.CATEGORY, 1);
+        assertFalse(full.isPartial());
+        assertEquals(Integer.valueOf(10), full.size);
+    }
+
+    @Test
+    public void partialPagesDontReplaceFullOnes() throws Exception {
+        JSONPage full = JSONPage.createObject(Widget.CATEGORY, Widget.json(3, "green", 30), BASE);
+        JSONPage.createObject(Widget.CATEGORY, Widget.select("color").select(Widget.json(3, "green", 30)), BASE);
+        assertSame(full, JSONPage.getLoaded(Widget.CATEGORY, 3));
+        File file = folder.newFile();
+        assertEquals(1, RegistrySnapshot.save(file, BASE));
+        unload();
+        RegistrySnapshot.load(file, BASE, 1);
+        Widget loaded = (Widget) JSONPage.getLoaded(Widget.CATEGORY, 3);
+        assertFalse(loaded.isPartial());
+        assertEquals("green", loaded.color);
+        assertEquals(Integer.valueOf(30), loaded.size);
+    }
+
+    @Test
+    public void savesLinksThatArentLoaded() throws Exception {
+        JSONPage.createObject(Widget.CATEGORY, Widget.json(1, "red", 10), BASE);
+        for (int i = 1; i <= 20; i++)
+            JSONPage.register(new Gadget("gadget-" + i, i, "label-" + i, i, new int[]{i, i + 100}));
+        File file = folder.newFile();
+        assertEquals(21, RegistrySnapshot.save(file, BASE));
+        assertEquals(1, JSONPage.getLoadedCount(Widget.CATEGORY));
+        unload();
+        assertEquals(21, RegistrySnapshot.load(file, BASE, 2));
+        assertEquals(1, JSONPage.getLoadedCount(Widget.CATEGORY));
+        for (int i = 1; i <= 20; i++) {
+            Gadget gadget = (Gadget) JSONPage.getLoaded(Gadget.CATEGORY, i);
+            assertEquals("label-" + i, gadget.label);
+            assertEquals(i, gadget.getPartID());
+            assertArrayEquals(new int[]{i, i + 100}, gadget.getPartIDs());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.thegreatsynan.jsonData;
+
+import com.thegreatsynan.jsonData.JSONAPIPage.JSONAPIValue;
+import org.json.JSONObject;
+
+/**
+ * A small page written the way ClassCreator writes them, for tests that need pages in the registry.
+ */
+public class Widget extends JSONPage {
+    public static final String CATEGORY = "widget";
+
+    public final String color;
+    public final Integer size;
+
+    static {
+        JSONPage.addCreator(CATEGORY, Widget::new);
+    }
+
+    public Widget(String name, int id, String color, Integer size) {
+        super(name, id);
+        this.color = color;
+        this.size = size;
+    }
+
+    public Widget(JSONObject json, URLEncoder base) {
+        super(json, base);
+        this.color = json.has("color") ? json.getString("color") : null;
+        this.size = json.has("size") ? json.getInt("size") : null;
+    }
+
+    /**
+     * @return The JSON of a full widget.
+     */
+    public static JSONObject json(int id, String color, int size) {
+        return new JSONObject().put("name", "widget-" + id).put("id", id).put("color", color).put("size", size);
+    }
+
+    public static FieldSet select(String... keys) {
+        return new FieldSet(api(), keys);
+    }
+
+    static JSONAPIPage api() {
+        return new JSONAPIPage("Widget", new JSONAPIValue[]{
+                new JSONAPIValue("name", "string", false, "The code name of the widget."),
+                new JSONAPIValue("id", "integer", false, "The id of the widget."),
+                new JSONAPIValue("color", "string", false, "The color of the widget."),
+                new JSONAPIValue("size", "integer", false, "The size of the widget.")
+        }, "A test page.", CATEGORY, null);
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public JSONAPIPage makeAPI() {
+        return api();
+    }
+
+    @Override
+    public JSONObject makeObject(URLEncoder base) {
+        JSONObject out = super.makeObject(base);
+        out.put("color", color);
+        out.put("size", size);
+        return out;
+    }
+}